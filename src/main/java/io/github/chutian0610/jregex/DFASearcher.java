@@ -0,0 +1,71 @@
+package io.github.chutian0610.jregex;
+
+import com.google.common.base.Preconditions;
+import io.github.chutian0610.jregex.automata.dfa.ConcurrentLazyDFA;
+import io.github.chutian0610.jregex.automata.dfa.ConcurrentLazyDFAMatcher;
+import io.github.chutian0610.jregex.automata.dfa.ForwardSearchDFA;
+import io.github.chutian0610.jregex.automata.nfa.NFATable;
+import io.github.chutian0610.jregex.literal.Prefilter;
+
+import java.util.Optional;
+
+/**
+ * 两遍 DFA 查找:
+ * <pre>
+ * 1. 前向 DFA({@link ForwardSearchDFA}) 找到最左最长匹配的结束位置 end;
+ * 2. 反向 DFA(反向 NFA 上的 {@link ConcurrentLazyDFAMatcher}) 从 end 向左扫描, 最远的接受位置就是匹配的开始位置。
+ *
+ * 两个惰性 DFA 的缓存都可以在多个线程之间共享({@link ConcurrentLazyDFA}), 每次查找只创建自己的游标,
+ * 因此一个查找器可以被所有线程共享。
+ * </pre>
+ *
+ * @author victorchu
+ */
+class DFASearcher
+        implements Searcher
+{
+    private final ForwardSearchDFA forward;
+    private final ConcurrentLazyDFAMatcher reverse;
+
+    /**
+     * @param nfa NFA
+     * @param reverse 反向 NFA({@link NFATable#reverse()})
+     * @param prefilter 前缀过滤器, 可以为 null
+     * @param minLength 最短匹配长度
+     * @param cacheBytes 前向和反向 DFA 各自的缓存预算
+     */
+    DFASearcher(NFATable nfa, NFATable reverse, Prefilter prefilter, int minLength, long cacheBytes)
+    {
+        this.forward = new ForwardSearchDFA(nfa, prefilter, minLength, cacheBytes);
+        this.reverse = new ConcurrentLazyDFAMatcher(reverse, cacheBytes);
+    }
+
+    @Override
+    public Optional<MatchSpan> find(CharSequence input, int from)
+    {
+        int end = forward.findEnd(input, from);
+        if (end < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(MatchSpan.of(findStart(input, from, end), end));
+    }
+
+    /**
+     * 反向 DFA 从 end 向左扫描到 from, 最远的接受位置就是最左匹配的开始位置
+     */
+    private int findStart(CharSequence input, int from, int end)
+    {
+        ConcurrentLazyDFA.Cursor cursor = reverse.cursor();
+        int start = cursor.isAccept() ? end : -1;
+        for (int i = end - 1; i >= from; i--) {
+            if (!cursor.next(input.charAt(i))) {
+                break;
+            }
+            if (cursor.isAccept()) {
+                start = i;
+            }
+        }
+        Preconditions.checkState(start >= 0, "no match start found for end %s", end);
+        return start;
+    }
+}
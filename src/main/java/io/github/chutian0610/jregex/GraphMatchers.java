@@ -0,0 +1,62 @@
+package io.github.chutian0610.jregex;
+
+import io.github.chutian0610.jregex.ast.RegexExp;
+import io.github.chutian0610.jregex.automata.GraphMatcher;
+import io.github.chutian0610.jregex.automata.dfa.ConcurrentLazyDFAMatcher;
+import io.github.chutian0610.jregex.automata.dfa.LazyDFAMatcher;
+import io.github.chutian0610.jregex.automata.glushkov.GlushkovAutomaton;
+import io.github.chutian0610.jregex.automata.glushkov.ShiftAndMatcher;
+import io.github.chutian0610.jregex.automata.glushkov.WideShiftAndMatcher;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraph;
+import io.github.chutian0610.jregex.automata.nfa.NFATable;
+
+import java.util.function.Supplier;
+
+/**
+ * 整串匹配器的选择.
+ *
+ * @author victorchu
+ */
+public final class GraphMatchers
+{
+    private GraphMatchers()
+    {
+    }
+
+    /**
+     * 根据表达式规模选择匹配器.
+     *
+     * <pre>
+     * 1. 位置数 &lt;= 63: 位并行(long) Glushkov 匹配器
+     * 2. 位置数 &lt;= 1023: 位并行(long[]) Glushkov 匹配器
+     * 3. 其他: 惰性 DFA 匹配器, 编译只需要构造 NFA, 缓存有内存预算, 不做完整的子集构造和最小化
+     * </pre>
+     *
+     * @param regexExp 正则表达式
+     * @return 匹配器
+     */
+    public static GraphMatcher of(RegexExp regexExp)
+    {
+        return of(regexExp, () -> NFAGraph.build(regexExp).toTable(), LazyDFAMatcher.DEFAULT_CACHE_BYTES);
+    }
+
+    /**
+     * 根据表达式规模选择匹配器, 需要惰性 DFA 时使用已经构造好的 NFA
+     *
+     * @param regexExp 正则表达式
+     * @param nfa 表达式的 NFA, 只在需要时获取
+     * @param cacheBytes 惰性 DFA 的缓存预算
+     * @return 匹配器
+     */
+    public static GraphMatcher of(RegexExp regexExp, Supplier<NFATable> nfa, long cacheBytes)
+    {
+        long positions = GlushkovAutomaton.countPositions(regexExp);
+        if (positions <= ShiftAndMatcher.MAX_POSITIONS) {
+            return new ShiftAndMatcher(GlushkovAutomaton.of(regexExp));
+        }
+        if (positions <= WideShiftAndMatcher.MAX_POSITIONS) {
+            return new WideShiftAndMatcher(GlushkovAutomaton.of(regexExp));
+        }
+        return new ConcurrentLazyDFAMatcher(nfa.get(), cacheBytes);
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.chutian0610.jregex;
+
+import io.github.chutian0610.jregex.literal.AhoCorasick;
+
+import java.util.Optional;
+
+/**
+ * 字面量或表达式的查找: Aho-Corasick 找到最左的开始位置, 再沿 trie 取最长的字面量.
+ *
+ * @author victorchu
+ */
+class LiteralSearcher
+        implements Searcher
+{
+    private final AhoCorasick ahoCorasick;
+
+    LiteralSearcher(AhoCorasick ahoCorasick)
+    {
+        this.ahoCorasick = ahoCorasick;
+    }
+
+    @Override
+    public Optional<MatchSpan> find(CharSequence input, int from)
+    {
+        int start = ahoCorasick.find(input, from);
+        if (start < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(MatchSpan.of(start, ahoCorasick.longestMatchAt(input, start)));
+    }
+}
@@ -0,0 +1,33 @@
+package io.github.chutian0610.jregex;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 匹配区间 [start, end)
+ *
+ * @author victorchu
+ */
+@Data
+@AllArgsConstructor(staticName = "of")
+public class MatchSpan
+{
+    private final int start;
+    private final int end;
+
+    public int length()
+    {
+        return end - start;
+    }
+
+    /**
+     * 匹配到的子串
+     *
+     * @param input 查找时使用的输入
+     * @return 子串
+     */
+    public String group(CharSequence input)
+    {
+        return input.subSequence(start, end).toString();
+    }
+}
@@ -0,0 +1,281 @@
+package io.github.chutian0610.jregex;
+
+import com.google.common.base.Preconditions;
+import io.github.chutian0610.jregex.ast.MatchLength;
+import io.github.chutian0610.jregex.ast.MatchLengthAnalyzer;
+import io.github.chutian0610.jregex.ast.RegexExp;
+import io.github.chutian0610.jregex.ast.RegexParser;
+import io.github.chutian0610.jregex.automata.BatchMatcher;
+import io.github.chutian0610.jregex.automata.GraphMatcher;
+import io.github.chutian0610.jregex.automata.dfa.ConcurrentLazyDFAMatcher;
+import io.github.chutian0610.jregex.automata.dfa.LazyDFAMatcher;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraph;
+import io.github.chutian0610.jregex.automata.nfa.NFATable;
+import io.github.chutian0610.jregex.literal.AhoCorasick;
+import io.github.chutian0610.jregex.literal.LiteralAlternationDetector;
+import io.github.chutian0610.jregex.literal.Prefilter;
+import io.github.chutian0610.jregex.literal.PrefixLiteralExtractor;
+import io.github.chutian0610.jregex.literal.RequiredLiteralExtractor;
+import io.github.chutian0610.jregex.literal.RequiredLiterals;
+import lombok.Getter;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 编译后的正则表达式.
+ *
+ * <pre>
+ * 1. 只由字面量组成的或表达式(如 foo|bar|baz): 编译为 {@link AhoCorasick}, 用于整串匹配和查找, 不构建 NFA。
+ * 2. 其他表达式:
+ *    matches: 整串匹配, 使用 {@link GraphMatchers#of(RegexExp)} 选择的匹配器;
+ *    find / findAll: 非锚定查找, 最左最长语义, 线性时间, 见 {@link DFASearcher}。
+ *    如果表达式的匹配都以有限个字面量开头, 前向 DFA 使用 {@link Prefilter} 跳过不可能开始匹配的输入;
+ *    如果每个匹配都必须包含某些子串或字符({@link RequiredLiterals}), 运行自动机之前先检查, 不满足时直接拒绝。
+ * 3. 编译时计算匹配长度范围({@link MatchLength}): 整串匹配时长度不在范围内的输入直接拒绝,
+ *    查找时剩余输入比最短匹配长度还短就停止扫描。
+ *
+ * 编译完成后不可变, 线程安全, 可以在多个线程之间共享:
+ * 编译结果只保存不可变的转换表, NFATable 和字面量过滤器, 不引用编译过程中使用的 StateManager 和状态对象;
+ * 查找使用的惰性 DFA 缓存只有一份, 由所有线程共享({@link io.github.chutian0610.jregex.automata.dfa.ConcurrentLazyDFA}),
+ * 缓存的内存上限与线程数无关, 每次查找的临时状态都在调用内部。
+ * 每个惰性 DFA 的缓存预算可以在编译时指定, {@link #getMemoryBytes()} 是编译结果和缓存占用内存的上限估计。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public final class Pattern
+{
+    /**
+     * 每个 NFA 状态占用内存的估计: 前向和反向 NFATable(边, ϵ 闭包, move 缓存)以及整串匹配器
+     */
+    private static final int NFA_STATE_BYTES = 256;
+
+    @Getter
+    private final String regex;
+    @Getter
+    private final MatchLength matchLength;
+    private final GraphMatcher matcher;
+    private final Prefilter prefilter;
+    private final RequiredLiterals required;
+    /**
+     * 所有线程共享的查找器
+     */
+    private final Searcher searcher;
+    /**
+     * 批量整串匹配, 共享 {@link #matches(CharSequence)}
+     */
+    private final BatchMatcher batchMatcher;
+    /**
+     * 编译结果和查找缓存占用内存的上限估计(字节), 用作缓存权重
+     */
+    @Getter
+    private final long memoryBytes;
+
+    private Pattern(String regex, long cacheBytes)
+    {
+        this.regex = regex;
+        RegexExp regexExp = RegexParser.parse(regex);
+        this.matchLength = MatchLengthAnalyzer.analyze(regexExp);
+        Optional<List<String>> literals = LiteralAlternationDetector.detect(regexExp);
+        if (literals.isPresent()) {
+            AhoCorasick ahoCorasick = AhoCorasick.of(literals.get());
+            this.matcher = ahoCorasick;
+            this.prefilter = ahoCorasick;
+            this.required = null;
+            this.searcher = new LiteralSearcher(ahoCorasick);
+            this.memoryBytes = (long) ahoCorasick.getStateCount() * (ahoCorasick.getClassCount() + 4) * Integer.BYTES;
+        }
+        else {
+            NFATable nfa = NFAGraph.build(regexExp).toTable();
+            this.matcher = GraphMatchers.of(regexExp, () -> nfa, cacheBytes);
+            this.prefilter = Prefilter.of(PrefixLiteralExtractor.extract(regexExp)).orElse(null);
+            RequiredLiterals requiredLiterals = RequiredLiteralExtractor.extract(regexExp);
+            this.required = requiredLiterals.isEmpty() ? null : requiredLiterals;
+            this.searcher = new DFASearcher(nfa, nfa.reverse(), prefilter, matchLength.getMin(), cacheBytes);
+            // 前向和反向两个惰性 DFA, 规模较大时整串匹配也使用惰性 DFA
+            int lazyCount = matcher instanceof ConcurrentLazyDFAMatcher ? 3 : 2;
+            this.memoryBytes = (long) nfa.getStateCount() * NFA_STATE_BYTES + lazyCount * cacheBytes;
+        }
+        this.batchMatcher = BatchMatcher.of(this::matches);
+    }
+
+    public static Pattern compile(String regex)
+    {
+        return compile(regex, LazyDFAMatcher.DEFAULT_CACHE_BYTES);
+    }
+
+    /**
+     * 编译表达式, 并指定查找使用的惰性 DFA 缓存预算
+     *
+     * @param regex 正则表达式
+     * @param cacheBytes 每个惰性 DFA 的缓存预算
+     * @return 已编译的表达式
+     */
+    public static Pattern compile(String regex, long cacheBytes)
+    {
+        Preconditions.checkArgument(cacheBytes > 0, "invalid cache budget: %s", cacheBytes);
+        return new Pattern(regex, cacheBytes);
+    }
+
+    /**
+     * 查找使用的前缀过滤器
+     *
+     * @return 过滤器, 表达式没有可用的前缀字面量时为空
+     */
+    public Optional<Prefilter> getPrefilter()
+    {
+        return Optional.ofNullable(prefilter);
+    }
+
+    /**
+     * 每个匹配都必须包含的子串和字符
+     *
+     * @return 必要条件, 没有时为空
+     */
+    public Optional<RequiredLiterals> getRequiredLiterals()
+    {
+        return Optional.ofNullable(required);
+    }
+
+    /**
+     * 整串匹配
+     *
+     * @param input 输入
+     * @return 是否匹配
+     */
+    public boolean matches(CharSequence input)
+    {
+        if (!matchLength.accepts(input.length())) {
+            return false;
+        }
+        if (required != null && !required.mayMatch(input, 0)) {
+            return false;
+        }
+        return matcher.matches(input);
+    }
+
+    /**
+     * 批量整串匹配, 输入较多时在公共 ForkJoinPool 上并行
+     *
+     * @param inputs 输入
+     * @return 第 i 位表示第 i 个输入是否匹配
+     * @see BatchMatcher
+     */
+    public BitSet matchAll(List<? extends CharSequence> inputs)
+    {
+        return batchMatcher.matchAll(inputs);
+    }
+
+    /**
+     * 批量整串匹配, 输入较多时在公共 ForkJoinPool 上并行
+     *
+     * @param inputs 输入
+     * @return 每个输入是否匹配
+     * @see BatchMatcher
+     */
+    public boolean[] matchAll(CharSequence[] inputs)
+    {
+        return batchMatcher.matchAll(inputs);
+    }
+
+    /**
+     * 查找第一个匹配
+     *
+     * @param input 输入
+     * @return 最左最长匹配
+     */
+    public Optional<MatchSpan> find(CharSequence input)
+    {
+        return find(input, 0);
+    }
+
+    /**
+     * 从 from 开始查找第一个匹配
+     *
+     * @param input 输入
+     * @param from 开始查找的位置
+     * @return 最左最长匹配
+     */
+    public Optional<MatchSpan> find(CharSequence input, int from)
+    {
+        Preconditions.checkPositionIndex(from, input.length());
+        if (input.length() - from < matchLength.getMin()) {
+            return Optional.empty();
+        }
+        if (required != null && !required.mayMatch(input, from)) {
+            return Optional.empty();
+        }
+        return searcher.find(input, from);
+    }
+
+    /**
+     * 查找所有不重叠的匹配, 空匹配之后向后移动一个字符继续查找
+     *
+     * @param input 输入
+     * @return 匹配列表
+     */
+    public List<MatchSpan> findAll(CharSequence input)
+    {
+        List<MatchSpan> result = new ArrayList<>();
+        if (required != null && !required.mayMatch(input, 0)) {
+            return result;
+        }
+        int from = 0;
+        while (input.length() - from >= matchLength.getMin()) {
+            Optional<MatchSpan> span = searcher.find(input, from);
+            if (!span.isPresent()) {
+                break;
+            }
+            result.add(span.get());
+            from = span.get().length() == 0 ? span.get().getEnd() + 1 : span.get().getEnd();
+        }
+        return result;
+    }
+
+    /**
+     * 整串匹配 array[offset, offset + length), 不复制数组
+     *
+     * @param array 字符数组
+     * @param offset 开始下标
+     * @param length 长度
+     * @return 是否匹配
+     */
+    public boolean matches(char[] array, int offset, int length)
+    {
+        Preconditions.checkPositionIndexes(offset, offset + length, array.length);
+        if (!matchLength.accepts(length)) {
+            return false;
+        }
+        CharBuffer input = CharBuffer.wrap(array, offset, length);
+        if (required != null && !required.mayMatch(input, 0)) {
+            return false;
+        }
+        return matcher.matches(array, offset, length);
+    }
+
+    /**
+     * 在 array[offset, offset + length) 中查找第一个匹配, 不复制数组
+     *
+     * @param array 字符数组
+     * @param offset 开始下标
+     * @param length 长度
+     * @return 最左最长匹配, 位置为数组下标
+     */
+    public Optional<MatchSpan> find(char[] array, int offset, int length)
+    {
+        Preconditions.checkPositionIndexes(offset, offset + length, array.length);
+        // CharBuffer.wrap 的下标相对于 offset
+        return find(CharBuffer.wrap(array, offset, length), 0)
+                .map(span -> MatchSpan.of(span.getStart() + offset, span.getEnd() + offset));
+    }
+
+    @Override
+    public String toString()
+    {
+        return regex;
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.chutian0610.jregex;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.github.chutian0610.jregex.automata.dfa.LazyDFAMatcher;
+
+/**
+ * 线程安全的已编译正则表达式缓存.
+ *
+ * <pre>
+ * 1. 以表达式字符串为 key(Pattern 没有编译选项);
+ * 2. 每个条目的权重为 {@link Pattern#getMemoryBytes()}(编译结果加上查找缓存预算的内存上限估计),
+ *    总字节数超过上限时按 LRU 淘汰; 每个表达式的查找缓存预算可以配置, 因此缓存的总内存是有界的;
+ * 3. 同一个 key 的并发请求只会编译一次, 其他线程等待编译结果;
+ * 4. 记录命中, 未命中, 淘汰次数。编译失败不会被缓存, 异常直接抛给调用方。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public final class PatternCache
+{
+    /**
+     * 默认内存上限 256MB
+     */
+    public static final long DEFAULT_MAX_BYTES = 256L << 20;
+
+    private final LoadingCache<String, Pattern> cache;
+
+    public PatternCache()
+    {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param maxBytes 内存上限(字节)
+     */
+    public PatternCache(long maxBytes)
+    {
+        this(maxBytes, LazyDFAMatcher.DEFAULT_CACHE_BYTES);
+    }
+
+    /**
+     * @param maxBytes 内存上限(字节)
+     * @param searchCacheBytes 每个表达式查找使用的惰性 DFA 缓存预算
+     */
+    public PatternCache(long maxBytes, long searchCacheBytes)
+    {
+        Preconditions.checkArgument(maxBytes >= 0, "negative max bytes: %s", maxBytes);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String regex, Pattern pattern) -> weightOf(pattern))
+                .recordStats()
+                .build(CacheLoader.from(regex -> Pattern.compile(regex, searchCacheBytes)));
+    }
+
+    static int weightOf(Pattern pattern)
+    {
+        return (int) Math.min(Integer.MAX_VALUE, pattern.getMemoryBytes() + pattern.getRegex().length());
+    }
+
+    /**
+     * 获取已编译的表达式, 没有缓存时编译
+     *
+     * @param regex 正则表达式
+     * @return 已编译的表达式
+     */
+    public Pattern get(String regex)
+    {
+        try {
+            return cache.getUnchecked(regex);
+        }
+        catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 命中, 未命中, 淘汰等统计信息
+     *
+     * @return 统计信息
+     */
+    public CacheStats stats()
+    {
+        return cache.stats();
+    }
+
+    /**
+     * 当前缓存的表达式个数
+     *
+     * @return 个数
+     */
+    public long size()
+    {
+        return cache.size();
+    }
+
+    public void invalidateAll()
+    {
+        cache.invalidateAll();
+    }
+}
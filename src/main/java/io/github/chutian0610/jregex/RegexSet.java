@@ -0,0 +1,81 @@
+package io.github.chutian0610.jregex;
+
+import com.google.common.base.Preconditions;
+import io.github.chutian0610.jregex.ast.RegexExp;
+import io.github.chutian0610.jregex.ast.RegexParser;
+import io.github.chutian0610.jregex.automata.dfa.DFATransitionTable;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraph;
+import io.github.chutian0610.jregex.automata.state.GenericStateManager;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 多模式正则表达式集合.
+ *
+ * <pre>
+ * 所有表达式合并为一个 NFA, 接受状态标记所属表达式的下标(模式ID);
+ * 子集构造时 DFA 接受状态携带模式ID集合, 最小化时按照模式ID集合划分初始分组,
+ * 因此一次扫描即可得到所有(整串)匹配的表达式。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public class RegexSet
+{
+    @Getter
+    private final List<String> regexes;
+    private final DFATransitionTable table;
+
+    private RegexSet(List<String> regexes)
+    {
+        Preconditions.checkArgument(!regexes.isEmpty(), "empty regex set");
+        this.regexes = Collections.unmodifiableList(new ArrayList<>(regexes));
+        List<RegexExp> regexExps = new ArrayList<>();
+        for (String regex : regexes) {
+            regexExps.add(RegexParser.parse(regex));
+        }
+        NFAGraph nfaGraph = NFAGraph.union(regexExps, new GenericStateManager());
+        this.table = DFATransitionTable.of(nfaGraph.toDFA().simplify());
+    }
+
+    public static RegexSet compile(List<String> regexes)
+    {
+        return new RegexSet(regexes);
+    }
+
+    public static RegexSet compile(String... regexes)
+    {
+        return new RegexSet(Arrays.asList(regexes));
+    }
+
+    public int size()
+    {
+        return regexes.size();
+    }
+
+    /**
+     * 所有整串匹配的表达式
+     *
+     * @param input 输入
+     * @return 模式ID(升序)
+     */
+    public int[] matchAll(CharSequence input)
+    {
+        return table.matchAll(input).clone();
+    }
+
+    /**
+     * 是否存在整串匹配的表达式
+     *
+     * @param input 输入
+     * @return 是否匹配
+     */
+    public boolean matchesAny(CharSequence input)
+    {
+        return table.matches(input);
+    }
+}
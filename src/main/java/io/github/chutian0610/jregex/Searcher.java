@@ -0,0 +1,20 @@
+package io.github.chutian0610.jregex;
+
+import java.util.Optional;
+
+/**
+ * 非锚定查找引擎(最左最长语义)
+ *
+ * @author victorchu
+ */
+interface Searcher
+{
+    /**
+     * 从 from 开始查找第一个匹配
+     *
+     * @param input 输入
+     * @param from 开始查找的位置
+     * @return 最左最长匹配
+     */
+    Optional<MatchSpan> find(CharSequence input, int from);
+}
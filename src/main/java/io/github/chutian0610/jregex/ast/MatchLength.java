@@ -0,0 +1,37 @@
+package io.github.chutian0610.jregex.ast;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 表达式匹配的字符串长度范围 [min, max].
+ * <p>
+ * 长度超过 int 范围时饱和为 {@link #UNBOUNDED}, max 为 UNBOUNDED 表示没有上限。
+ *
+ * @author victorchu
+ */
+@Data
+@AllArgsConstructor(staticName = "of")
+public class MatchLength
+{
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private final int min;
+    private final int max;
+
+    public boolean isBounded()
+    {
+        return max != UNBOUNDED;
+    }
+
+    /**
+     * 长度是否在范围内
+     *
+     * @param length 长度
+     * @return 是否可能匹配
+     */
+    public boolean accepts(int length)
+    {
+        return min <= length && length <= max;
+    }
+}
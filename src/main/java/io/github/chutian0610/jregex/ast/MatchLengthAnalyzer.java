@@ -0,0 +1,90 @@
+package io.github.chutian0610.jregex.ast;
+
+/**
+ * 从语法树计算匹配长度范围.
+ *
+ * <pre>
+ * 1. 字符, 字符类, 元字符: [1, 1]
+ * 2. 连接: 两侧相加
+ * 3. 或: 两侧的最小值和最大值
+ * 4. 重复 {n,m}: [n * min, m * max], 没有上限时 max 为 UNBOUNDED(内部最大长度为 0 时除外)
+ * </pre>
+ *
+ * @author victorchu
+ */
+public enum MatchLengthAnalyzer
+        implements RegexExpVisitor<MatchLength, Void>
+{
+    INSTANCE;
+
+    private static final MatchLength SINGLE = MatchLength.of(1, 1);
+
+    public static MatchLength analyze(RegexExp regexExp)
+    {
+        return INSTANCE.process(regexExp, null);
+    }
+
+    @Override
+    public MatchLength visitChar(CharExp node, Void context)
+    {
+        return SINGLE;
+    }
+
+    @Override
+    public MatchLength visitCharRange(CharRangeExp node, Void context)
+    {
+        return SINGLE;
+    }
+
+    @Override
+    public MatchLength visitCharClass(CharClassExp node, Void context)
+    {
+        return SINGLE;
+    }
+
+    @Override
+    public MatchLength visitMetaChar(MetaCharExp node, Void context)
+    {
+        return SINGLE;
+    }
+
+    @Override
+    public MatchLength visitConcat(ConcatExp node, Void context)
+    {
+        MatchLength left = process(node.getLeft(), context);
+        MatchLength right = process(node.getRight(), context);
+        return MatchLength.of(saturatedAdd(left.getMin(), right.getMin()), saturatedAdd(left.getMax(), right.getMax()));
+    }
+
+    @Override
+    public MatchLength visitOr(OrExp node, Void context)
+    {
+        MatchLength left = process(node.getLeft(), context);
+        MatchLength right = process(node.getRight(), context);
+        return MatchLength.of(Math.min(left.getMin(), right.getMin()), Math.max(left.getMax(), right.getMax()));
+    }
+
+    @Override
+    public MatchLength visitRepeat(RepeatExp node, Void context)
+    {
+        MatchLength inner = process(node.getInner(), context);
+        int min = saturatedMultiply(inner.getMin(), node.getMin());
+        if (inner.getMax() == 0) {
+            return MatchLength.of(min, 0);
+        }
+        int max = node.getMax() == null ? MatchLength.UNBOUNDED : saturatedMultiply(inner.getMax(), node.getMax());
+        return MatchLength.of(min, max);
+    }
+
+    private static int saturatedAdd(int left, int right)
+    {
+        long sum = (long) left + right;
+        return sum >= MatchLength.UNBOUNDED ? MatchLength.UNBOUNDED : (int) sum;
+    }
+
+    private static int saturatedMultiply(int left, int right)
+    {
+        long product = (long) left * right;
+        return product >= MatchLength.UNBOUNDED ? MatchLength.UNBOUNDED : (int) product;
+    }
+}
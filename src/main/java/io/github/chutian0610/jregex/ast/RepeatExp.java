@@ -26,6 +26,20 @@ public class RepeatExp
     private Integer min;
     private Integer max;
 
+    /**
+     * 任意字符串 .*, 用于在表达式前构造非锚定的查找自动机
+     *
+     * @return .*
+     */
+    public static RepeatExp anyString()
+    {
+        return RepeatExp.builder()
+                .nodeType(NodeType.REGEX_REPEAT_MANY)
+                .min(0)
+                .inner(new MetaCharExp("."))
+                .build();
+    }
+
     public String repeatStr(){
 
         switch (nodeType) {
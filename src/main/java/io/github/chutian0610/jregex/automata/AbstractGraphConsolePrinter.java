@@ -1,13 +1,16 @@
 package io.github.chutian0610.jregex.automata;
 
 import com.google.common.collect.Lists;
+import io.github.chutian0610.jregex.misc.Pair;
 import lombok.NonNull;
 
+import java.util.ArrayDeque;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * @author victorchu
@@ -29,22 +32,39 @@ public abstract class AbstractGraphConsolePrinter
         traverse(cursor, sb, markSet);
     }
 
+    /**
+     * 深度优先遍历(显式栈, 无递归), 输出顺序与递归先序遍历相同
+     */
     protected void traverse(State cursor, List<String> sb, Set<Integer> markSet)
     {
-        if (cursor != null && !markSet.contains(cursor.getStateId())) {
-            markSet.add(cursor.getStateId());
-            List<Transition> transitions = cursor.getTransitions()
-                    .stream()
-                    .sorted(Comparator.comparing(Transition::toString))
-                    .collect(Collectors.toList());
-            for (Transition transition : transitions) {
-                State state = transition.getState();
-                sb.add(handleTransition(cursor, transition));
-                traverse(state, sb, markSet);
+        if (cursor == null || !markSet.add(cursor.getStateId())) {
+            return;
+        }
+        Deque<Pair<State, Iterator<Transition>>> stack = new ArrayDeque<>();
+        stack.push(Pair.of(cursor, sortedTransitions(cursor)));
+        while (!stack.isEmpty()) {
+            Pair<State, Iterator<Transition>> top = stack.peek();
+            if (!top.getRight().hasNext()) {
+                stack.pop();
+                continue;
+            }
+            Transition transition = top.getRight().next();
+            State state = transition.getState();
+            sb.add(handleTransition(top.getLeft(), transition));
+            if (state != null && markSet.add(state.getStateId())) {
+                stack.push(Pair.of(state, sortedTransitions(state)));
             }
         }
     }
 
+    private static Iterator<Transition> sortedTransitions(State state)
+    {
+        return state.getTransitions()
+                .stream()
+                .sorted(Comparator.comparing(Transition::toString))
+                .iterator();
+    }
+
     protected String handleTransition(@NonNull State state, @NonNull Transition transition)
     {
         return state2Str(state) + "-->|" + edge2Str(transition.getEdge()) + "|" + state2Str(transition.getState());
@@ -0,0 +1,190 @@
+package io.github.chutian0610.jregex.automata;
+
+import com.google.common.base.Preconditions;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * 批量整串匹配: 一个表达式匹配大量字符串.
+ *
+ * <pre>
+ * 1. 批量大小不小于阈值时, 按下标区间切分到 ForkJoinPool 上并行匹配, 否则在当前线程顺序匹配;
+ * 2. 每个工作线程通过 factory 创建并复用自己的匹配器, 非线程安全的匹配器(惰性 DFA, Pike VM 等)的缓存和线程集合在同一线程的多个输入之间复用;
+ *    线程安全的匹配器使用 {@link #of(GraphMatcher)} 共享同一个实例, 不使用 ThreadLocal;
+ * 3. 结果写入 BitSet 时, 每个叶子任务负责 64 的整数倍的区间, 直接写入互不相交的 long 字, 不需要同步。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public final class BatchMatcher
+{
+    /**
+     * 默认并行阈值(输入个数)
+     */
+    public static final int DEFAULT_THRESHOLD = 4096;
+    /**
+     * 叶子任务的最小输入个数
+     */
+    private static final int MIN_CHUNK = 1024;
+
+    /**
+     * 每个工作线程的匹配器, 共享匹配器时为 null
+     */
+    private final ThreadLocal<GraphMatcher> matchers;
+    /**
+     * 所有线程共享的线程安全匹配器
+     */
+    private final GraphMatcher shared;
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /**
+     * @param factory 为每个工作线程创建匹配器
+     * @param pool 线程池
+     * @param threshold 并行阈值
+     */
+    public BatchMatcher(Supplier<? extends GraphMatcher> factory, ForkJoinPool pool, int threshold)
+    {
+        this(ThreadLocal.withInitial(factory), null, pool, threshold);
+    }
+
+    private BatchMatcher(ThreadLocal<GraphMatcher> matchers, GraphMatcher shared, ForkJoinPool pool, int threshold)
+    {
+        Preconditions.checkArgument(threshold >= 0, "negative threshold: %s", threshold);
+        this.matchers = matchers;
+        this.shared = shared;
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    public BatchMatcher(Supplier<? extends GraphMatcher> factory)
+    {
+        this(factory, ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * 共享线程安全的匹配器
+     *
+     * @param matcher 线程安全的匹配器
+     * @return 批量匹配器
+     */
+    public static BatchMatcher of(GraphMatcher matcher)
+    {
+        return new BatchMatcher(null, matcher, ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    private GraphMatcher matcher()
+    {
+        return shared != null ? shared : matchers.get();
+    }
+
+    /**
+     * 批量匹配
+     *
+     * @param inputs 输入
+     * @return 第 i 位表示第 i 个输入是否匹配
+     */
+    public BitSet matchAll(List<? extends CharSequence> inputs)
+    {
+        CharSequence[] array = inputs instanceof RandomAccess ? null : inputs.toArray(new CharSequence[0]);
+        long[] words = new long[(inputs.size() + 63) >>> 6];
+        run(new Task(inputs.size())
+        {
+            @Override
+            void match(GraphMatcher matcher, int from, int to)
+            {
+                for (int i = from; i < to; i++) {
+                    if (matcher.matches(array == null ? inputs.get(i) : array[i])) {
+                        words[i >>> 6] |= 1L << i;
+                    }
+                }
+            }
+        });
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * 批量匹配
+     *
+     * @param inputs 输入
+     * @return 每个输入是否匹配
+     */
+    public boolean[] matchAll(CharSequence[] inputs)
+    {
+        boolean[] result = new boolean[inputs.length];
+        run(new Task(inputs.length)
+        {
+            @Override
+            void match(GraphMatcher matcher, int from, int to)
+            {
+                for (int i = from; i < to; i++) {
+                    result[i] = matcher.matches(inputs[i]);
+                }
+            }
+        });
+        return result;
+    }
+
+    private void run(Task task)
+    {
+        if (task.size < threshold) {
+            task.match(matcher(), 0, task.size);
+            return;
+        }
+        // 叶子区间按 64 对齐, 保证不同任务写入不同的 long 字
+        int chunk = Math.max(MIN_CHUNK, task.size / (pool.getParallelism() * 4));
+        chunk = (chunk + 63) & ~63;
+        pool.invoke(new RangeAction(task, 0, task.size, chunk));
+    }
+
+    private abstract static class Task
+    {
+        private final int size;
+
+        Task(int size)
+        {
+            this.size = size;
+        }
+
+        abstract void match(GraphMatcher matcher, int from, int to);
+    }
+
+    private final class RangeAction
+            extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Task task;
+        private final int from;
+        private final int to;
+        private final int chunk;
+
+        private RangeAction(Task task, int from, int to, int chunk)
+        {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from <= chunk) {
+                task.match(matcher(), from, to);
+                return;
+            }
+            // 从区间开始按 chunk 对齐切分
+            int mid = from + ((to - from) / chunk / 2 + 1) * chunk;
+            if (mid >= to) {
+                mid = from + chunk;
+            }
+            invokeAll(new RangeAction(task, from, mid, chunk), new RangeAction(task, mid, to, chunk));
+        }
+    }
+}
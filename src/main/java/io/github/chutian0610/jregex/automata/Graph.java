@@ -3,7 +3,12 @@ package io.github.chutian0610.jregex.automata;
 import io.github.chutian0610.jregex.misc.GraphMermaidJSFormatter;
 import io.github.chutian0610.jregex.misc.MermaidJsChartGenerator;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * @author victorchu
@@ -12,6 +17,30 @@ public interface Graph extends MermaidJsChartGenerator
 {
     State getStart();
 
+    /**
+     * 从起始状态可达的全部状态(BFS 顺序).
+     *
+     * @return 状态列表
+     */
+    default List<State> getStates()
+    {
+        List<State> states = new ArrayList<>();
+        Set<Integer> marked = new HashSet<>();
+        Deque<State> queue = new ArrayDeque<>();
+        queue.add(getStart());
+        marked.add(getStart().getStateId());
+        while (!queue.isEmpty()) {
+            State state = queue.poll();
+            states.add(state);
+            for (Transition transition : state.getTransitions()) {
+                if (marked.add(transition.getTargetId())) {
+                    queue.add(transition.getState());
+                }
+            }
+        }
+        return states;
+    }
+
     /**
      * 打印NFA状态图(mermaid.js 流程图语法).
      *
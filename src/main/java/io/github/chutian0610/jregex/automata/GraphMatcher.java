@@ -1,9 +1,35 @@
 package io.github.chutian0610.jregex.automata;
 
+import java.nio.CharBuffer;
+
 /**
  * @author victorchu
  */
 public interface GraphMatcher
 {
-    boolean matches(String str);
+    /**
+     * 整串匹配
+     *
+     * @param str 输入
+     * @return 是否匹配
+     */
+    boolean matches(CharSequence str);
+
+    default boolean matches(String str)
+    {
+        return matches((CharSequence) str);
+    }
+
+    /**
+     * 整串匹配 array[offset, offset + length), 不复制数组
+     *
+     * @param array 字符数组
+     * @param offset 开始下标
+     * @param length 长度
+     * @return 是否匹配
+     */
+    default boolean matches(char[] array, int offset, int length)
+    {
+        return matches(CharBuffer.wrap(array, offset, length));
+    }
 }
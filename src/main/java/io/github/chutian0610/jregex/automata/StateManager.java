@@ -1,5 +1,6 @@
 package io.github.chutian0610.jregex.automata;
 
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -40,6 +41,20 @@ public interface StateManager
         }).anyMatch(State::isAccept);
     }
 
+    /**
+     * 判断 NFA状态集合 S 是否为接受状态。
+     */
+    default boolean isNFASetAccept(int[] nfaStates)
+    {
+        for (int id : nfaStates) {
+            Optional<State> state = getNFAState(id);
+            if (state.isPresent() && state.get().isAccept()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * 判断 DFA状态集合 S 是否为接受状态。
      */
@@ -63,6 +78,22 @@ public interface StateManager
 
     Optional<State> getDFAState(Set<Integer> nfaStates);
 
+    /**
+     * 根据 NFA 状态集合(升序状态ID数组)，创建或获取DFA 状态, 数组交给管理器后不能再修改
+     *
+     * @param nfaStates NFA 状态ID, 升序
+     * @return DFA 状态
+     */
+    default State createOrGetDFAState(int[] nfaStates)
+    {
+        return createOrGetDFAState(Arrays.stream(nfaStates).boxed().collect(Collectors.toSet()));
+    }
+
+    default Optional<State> getDFAState(int[] nfaStates)
+    {
+        return getDFAState(Arrays.stream(nfaStates).boxed().collect(Collectors.toSet()));
+    }
+
     Set<State> getDFAMappedNFAState(State dfaState);
 
     Set<State> getMinDFAMappedDFAState(State dfaState);
@@ -104,6 +135,22 @@ public interface StateManager
 
     Optional<State> getMinimizationDFAState(Set<Integer> dfaStates);
 
+    /**
+     * 根据 DFA 状态集合(升序状态ID数组)，创建或获取最小化 DFA 状态, 数组交给管理器后不能再修改
+     *
+     * @param dfaStates DFA 状态ID, 升序
+     * @return 最小化 DFA 状态
+     */
+    default State createOrGetMinimizationDFAState(int[] dfaStates)
+    {
+        return createOrGetMinimizationDFAState(Arrays.stream(dfaStates).boxed().collect(Collectors.toSet()));
+    }
+
+    default Optional<State> getMinimizationDFAState(int[] dfaStates)
+    {
+        return getMinimizationDFAState(Arrays.stream(dfaStates).boxed().collect(Collectors.toSet()));
+    }
+
     Optional<State> getMinimizationDFAState(Integer id);
 
     default State tryGetMinimizationDFAState(Integer id)
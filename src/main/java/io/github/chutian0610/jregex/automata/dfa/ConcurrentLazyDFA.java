@@ -0,0 +1,299 @@
+package io.github.chutian0610.jregex.automata.dfa;
+
+import com.google.common.base.Preconditions;
+import io.github.chutian0610.jregex.misc.CharClassMap;
+import io.github.chutian0610.jregex.misc.IntArrayInterner;
+
+import java.util.Arrays;
+
+/**
+ * 可以在多个线程之间共享的惰性 DFA 缓存.
+ *
+ * <pre>
+ * 状态的编码(int[])和下一个状态的计算由子类定义, 本类负责缓存、内存预算和并发:
+ * 1. 缓存分代(Generation): 每一代有自己的编码驻留表和转换表, 占用超过预算时创建新的一代并替换 current,
+ *    旧的一代不再修改, 仍在使用它的游标读完后由 GC 回收, 因此不会出现清空时其他线程读到失效编号的问题;
+ *    每一代的 0 号状态都是起始状态。预算按状态编码的实际长度在加入新状态时检查,
+ *    换代后新状态总是可以加入(即使单个状态就超过预算), 因此任意规模的 NFA 都可以使用。
+ * 2. 转换表按状态分行, rows[state] = [下一个状态 + 1 ..., 接受标记], 0 表示尚未计算, 只会从 0 写成非 0 的值;
+ *    读取不加锁, 读到 0 或者 null(其他线程的写入尚不可见)时进入加锁的慢路径, 在锁内重新读取或计算。
+ * 3. 每次调用使用自己的 {@link Cursor}(当前代和当前状态), 调用之间不保留可变状态。
+ *
+ * 慢路径持有锁时调用子类的 {@link #computeNext}, 子类可以在其中复用自己的临时缓冲区。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public abstract class ConcurrentLazyDFA
+{
+    /**
+     * 每个缓存状态的固定开销估计(哈希槽, hash, 数组头)
+     */
+    private static final int STATE_OVERHEAD_BYTES = 96;
+    private static final int START = 0;
+    private static final int UNKNOWN = 0;
+    private static final int ACCEPT = 1;
+    private static final int REJECT = -1;
+
+    private final CharClassMap alphabet;
+    private final int classCount;
+    private final long cacheBytes;
+    private final int[] buffer;
+    private final Object lock = new Object();
+
+    private volatile Generation current;
+    private volatile int flushCount;
+
+    /**
+     * @param alphabet 字符等价类
+     * @param cacheBytes 缓存预算
+     * @param maxStateLength 状态编码的最大长度, 用于分配计算缓冲区
+     */
+    protected ConcurrentLazyDFA(CharClassMap alphabet, long cacheBytes, int maxStateLength)
+    {
+        this.alphabet = alphabet;
+        this.classCount = alphabet.getClassCount();
+        Preconditions.checkArgument(cacheBytes > 0, "invalid cache budget: %s", cacheBytes);
+        this.cacheBytes = cacheBytes;
+        this.buffer = new int[maxStateLength];
+    }
+
+    /**
+     * 起始状态的编码, 只调用一次
+     *
+     * @return 状态编码
+     */
+    protected abstract int[] startState();
+
+    /**
+     * 计算下一个状态的编码, 持有锁时调用
+     *
+     * @param state 当前状态编码
+     * @param classId 输入等价类
+     * @param buffer 输出缓冲区
+     * @return 下一个状态编码的长度, 没有转换时返回 -1
+     */
+    protected abstract int computeNext(int[] state, int classId, int[] buffer);
+
+    /**
+     * 状态是否为接受状态
+     *
+     * @param state 状态编码
+     * @return 是否接受
+     */
+    protected abstract boolean isAccept(int[] state);
+
+    /**
+     * 从起始状态开始的游标, 每次调用各自创建
+     *
+     * @return 游标
+     */
+    public Cursor cursor()
+    {
+        Generation generation = current;
+        if (generation == null) {
+            synchronized (lock) {
+                generation = generation();
+            }
+        }
+        return new Cursor(generation);
+    }
+
+    /**
+     * 缓存被清空(换代)的次数
+     *
+     * @return 清空次数
+     */
+    public int getFlushCount()
+    {
+        return flushCount;
+    }
+
+    /**
+     * 当前一代缓存的状态数
+     *
+     * @return 状态数
+     */
+    public int getCachedStateCount()
+    {
+        synchronized (lock) {
+            return generation().states.size();
+        }
+    }
+
+    /**
+     * 当前一代, 第一次调用时创建, 持有锁时调用
+     */
+    private Generation generation()
+    {
+        Generation generation = current;
+        if (generation == null) {
+            generation = newGeneration(startState());
+        }
+        return generation;
+    }
+
+    private Generation newGeneration(int[] start)
+    {
+        Generation generation = new Generation();
+        add(generation, start, start.length);
+        current = generation;
+        return generation;
+    }
+
+    /**
+     * 慢路径: 在当前一代中找到游标的状态, 计算或读取转换, 移动游标
+     *
+     * @return 没有转换时返回 false, 游标不移动
+     */
+    private boolean step(Cursor cursor, int classId)
+    {
+        synchronized (lock) {
+            Generation generation = generation();
+            int state = cursor.state;
+            if (cursor.generation != generation) {
+                // 游标还在旧的一代, 按编码转移到当前一代
+                int[] encoding = cursor.generation.states.get(state);
+                state = intern(encoding, encoding.length);
+                generation = current;
+            }
+            int[] row = generation.rows[state];
+            int next = row[classId];
+            if (next == UNKNOWN) {
+                int length = computeNext(generation.states.get(state), classId, buffer);
+                if (length < 0) {
+                    next = DFATransitionTable.DEAD;
+                }
+                else {
+                    next = intern(buffer, length) + 1;
+                    if (current != generation) {
+                        // 换代后旧的转换不再记录
+                        cursor.moveTo(current, next - 1);
+                        return true;
+                    }
+                }
+                row[classId] = next;
+            }
+            if (next == DFATransitionTable.DEAD) {
+                cursor.moveTo(generation, state);
+                return false;
+            }
+            cursor.moveTo(generation, next - 1);
+            return true;
+        }
+    }
+
+    /**
+     * 在当前一代中查找或加入状态, 超出预算时换代, 持有锁时调用
+     */
+    private int intern(int[] encoding, int length)
+    {
+        Generation generation = current;
+        int state = generation.states.indexOf(encoding, length);
+        if (state >= 0) {
+            return state;
+        }
+        // 只有起始状态时换代没有意义
+        if (generation.states.size() > 1 && generation.usedBytes + stateBytes(length) > cacheBytes) {
+            generation = newGeneration(generation.states.get(START));
+            flushCount++;
+        }
+        return add(generation, encoding, length);
+    }
+
+    private int add(Generation generation, int[] encoding, int length)
+    {
+        int state = generation.states.intern(encoding, length);
+        int[] row = new int[classCount + 1];
+        row[classCount] = isAccept(generation.states.get(state)) ? ACCEPT : REJECT;
+        int[][] rows = generation.rows;
+        if (state == rows.length) {
+            rows = Arrays.copyOf(rows, rows.length * 2);
+            rows[state] = row;
+            generation.rows = rows;
+        }
+        else {
+            rows[state] = row;
+        }
+        generation.usedBytes += stateBytes(length);
+        return state;
+    }
+
+    private long stateBytes(int stateLength)
+    {
+        return (long) (classCount + 1) * Integer.BYTES + (long) stateLength * Integer.BYTES + STATE_OVERHEAD_BYTES;
+    }
+
+    /**
+     * 缓存的一代: 驻留表只在持有锁时访问, rows 可以不加锁读取
+     */
+    private static final class Generation
+    {
+        private final IntArrayInterner states = new IntArrayInterner();
+        private volatile int[][] rows = new int[16][];
+        private long usedBytes;
+    }
+
+    /**
+     * 单次调用的扫描位置, 非线程安全, 不能在调用之间共享
+     */
+    public final class Cursor
+    {
+        private Generation generation;
+        private int[][] rows;
+        private int state;
+        private int[] row;
+
+        private Cursor(Generation generation)
+        {
+            moveTo(generation, START);
+        }
+
+        /**
+         * 读入一个字符
+         *
+         * @param ch 输入字符
+         * @return 没有转换时返回 false, 游标不移动
+         */
+        public boolean next(char ch)
+        {
+            int classId = alphabet.classOf(ch);
+            int next = row[classId];
+            if (next > 0 && next <= rows.length) {
+                int[] nextRow = rows[next - 1];
+                if (nextRow != null && nextRow[classCount] != UNKNOWN) {
+                    state = next - 1;
+                    row = nextRow;
+                    return true;
+                }
+            }
+            else if (next == DFATransitionTable.DEAD) {
+                return false;
+            }
+            return step(this, classId);
+        }
+
+        public boolean isAccept()
+        {
+            return row[classCount] == ACCEPT;
+        }
+
+        /**
+         * 是否在起始状态(没有进行中的匹配)
+         *
+         * @return 是否为起始状态
+         */
+        public boolean isStart()
+        {
+            return state == START;
+        }
+
+        private void moveTo(Generation generation, int state)
+        {
+            this.generation = generation;
+            this.rows = generation.rows;
+            this.state = state;
+            this.row = rows[state];
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package io.github.chutian0610.jregex.automata.dfa;
+
+import io.github.chutian0610.jregex.automata.GraphMatcher;
+import io.github.chutian0610.jregex.automata.nfa.NFATable;
+import io.github.chutian0610.jregex.misc.SparseSet;
+
+/**
+ * 线程安全的惰性 DFA 匹配器: 状态编码和 {@link LazyDFAMatcher} 相同(升序的 NFA 状态集合),
+ * 缓存由 {@link ConcurrentLazyDFA} 管理, 一个实例可以在多个线程之间共享.
+ *
+ * @author victorchu
+ */
+public class ConcurrentLazyDFAMatcher
+        extends ConcurrentLazyDFA
+        implements GraphMatcher
+{
+    private final NFATable nfa;
+    /**
+     * 计算下一个状态时使用, 只在持有缓存的锁时访问
+     */
+    private final SparseSet moveSet;
+
+    public ConcurrentLazyDFAMatcher(NFATable nfa)
+    {
+        this(nfa, LazyDFAMatcher.DEFAULT_CACHE_BYTES);
+    }
+
+    public ConcurrentLazyDFAMatcher(NFATable nfa, long cacheBytes)
+    {
+        super(nfa.getAlphabet(), cacheBytes, nfa.getStateCount());
+        this.nfa = nfa;
+        this.moveSet = new SparseSet(nfa.getStateCount());
+    }
+
+    @Override
+    public boolean matches(CharSequence str)
+    {
+        Cursor cursor = cursor();
+        for (int i = 0, length = str.length(); i < length; i++) {
+            if (!cursor.next(str.charAt(i))) {
+                return false;
+            }
+        }
+        return cursor.isAccept();
+    }
+
+    @Override
+    protected int[] startState()
+    {
+        moveSet.clear();
+        nfa.addEpsilonClosure(nfa.getStart(), moveSet);
+        return moveSet.toSortedArray();
+    }
+
+    @Override
+    protected int computeNext(int[] state, int classId, int[] buffer)
+    {
+        nfa.move(state, classId, moveSet);
+        return moveSet.isEmpty() ? -1 : moveSet.toSortedArray(buffer);
+    }
+
+    @Override
+    protected boolean isAccept(int[] state)
+    {
+        return nfa.isAccept(state);
+    }
+}
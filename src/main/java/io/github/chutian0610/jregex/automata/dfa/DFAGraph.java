@@ -1,25 +1,23 @@
 package io.github.chutian0610.jregex.automata.dfa;
 
-import com.google.common.collect.Sets;
-import io.github.chutian0610.jregex.automata.Edge;
 import io.github.chutian0610.jregex.automata.Graph;
 import io.github.chutian0610.jregex.automata.State;
 import io.github.chutian0610.jregex.automata.StateManager;
-import io.github.chutian0610.jregex.misc.CharRanges;
-import io.github.chutian0610.jregex.misc.Pair;
+import io.github.chutian0610.jregex.misc.CharClassMap;
 import io.github.chutian0610.jregex.automata.Transition;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * @author victorchu
@@ -32,236 +30,405 @@ public class DFAGraph
     @NonNull private State start;
     @NonNull private StateManager stateManager;
     @NonNull private Boolean minimized;
+    /**
+     * 字符等价类(来自NFA)
+     */
+    @NonNull private CharClassMap alphabet;
+    /**
+     * 多模式 DFA: 接受状态ID -> 模式ID集合, 单模式 DFA 为 null
+     */
+    @Getter(AccessLevel.NONE)
+    private Map<Integer, Set<Integer>> acceptIds;
 
     /**
-     * DFA 化简 (Hopcroft)算法
+     * 创建多模式 DFA, 接受状态携带模式ID集合
      *
-     * @return
+     * @param acceptIds 接受状态ID -> 模式ID集合
+     * @return DFAGraph
      */
-    public DFAGraph simplify()
+    public static DFAGraph of(State start, StateManager stateManager, Boolean minimized, CharClassMap alphabet, Map<Integer, Set<Integer>> acceptIds)
     {
-        // DFA 状态和DFA状态所在集合
-        Map<Integer, Set<Integer>> dfaStateSetIndexMap = new HashMap<>();
-        // 将所有DFA 状态分为 终结状态集合和非终结状态集合
-        Set<Set<Integer>> sets = initSplitedSet(start.getStateId(), dfaStateSetIndexMap);
-        // 分割DFA状态集进行化简
-        trySplitSet(sets, dfaStateSetIndexMap);
-        Set<Integer> stateSet = searchDFAIndexMap(this.start.getStateId(), dfaStateSetIndexMap);
-        State start = createMinimizationDFAState(stateSet, dfaStateSetIndexMap);
-        return new DFAGraph(start, stateManager, true);
+        DFAGraph dfaGraph = new DFAGraph(start, stateManager, minimized, alphabet);
+        dfaGraph.acceptIds = acceptIds;
+        return dfaGraph;
     }
 
     /**
-     * 获取状态集合的所有有效输入
+     * 是否为多模式 DFA
      *
-     * @param dfaSet DFA 状态
-     * @return
+     * @return 接受状态是否带有模式ID
      */
-    private Set<Edge> getAllEdgesOfStateSet(Set<Integer> dfaSet)
+    public boolean isTagged()
     {
-        return CharRanges.fromEdges(stateManager.getDfAEdges(dfaSet))
-                .expand()
-                .stream()
-                .map(Edge::fromCharRange)
-                .collect(Collectors.toSet());
+        return acceptIds != null;
     }
 
-    private State createMinimizationDFAState(Set<Integer> stateSet, Map<Integer, Set<Integer>> dfaStateSetIndexMap)
+    /**
+     * 状态接受的模式ID集合, 单模式 DFA 的接受状态为 {0}
+     *
+     * @param stateId 状态ID
+     * @return 模式ID集合(升序), 非接受状态为空集合
+     */
+    public Set<Integer> acceptIdsOf(int stateId)
     {
-        // 防止循环递归
-        if (stateManager.getMinimizationDFAState(stateSet).isPresent()) {
-            return stateManager.getMinimizationDFAState(stateSet).get();
+        if (acceptIds != null) {
+            return acceptIds.getOrDefault(stateId, Collections.emptySet());
         }
-        State minState = stateManager.createOrGetMinimizationDFAState(stateSet);
-        getAllEdgesOfStateSet(stateSet).forEach(edge -> {
-            stateSet.forEach(item -> {
-                stateManager.tryGetDFAState(item).getTransitionsOfInputEdge(edge).forEach(transition -> {
-                    Set<Integer> toStateSet = searchDFAIndexMap(transition.getTargetId(), dfaStateSetIndexMap);
-                    if (toStateSet != stateSet) {
-                        State minToState = createMinimizationDFAState(toStateSet, dfaStateSetIndexMap);
-                        minState.addTransition(transition.getEdge(), minToState);
-                    }
-                    else {
-                        minState.addTransition(transition.getEdge(), minState);
-                    }
-                });
-            });
-        });
-        return minState;
+        State state = minimized ? stateManager.tryGetMinimizationDFAState(stateId) : stateManager.tryGetDFAState(stateId);
+        return state.isAccept() ? Collections.singleton(0) : Collections.emptySet();
     }
 
-    private void trySplitSet(Set<Set<Integer>> sets, Map<Integer, Set<Integer>> dfaStateSetIndexMap)
+    /**
+     * DFA 化简 (Hopcroft)算法, O(n·k·log n), n 为状态数, k 为等价类数.
+     *
+     * <pre>
+     * 1. 可达状态按ID升序编号为 [0, n), 缺失的转换指向额外的死状态 n(单独一组, 不会和任何状态合并),
+     *    转换在字符等价类上计算, 并构建 (等价类, 目标状态) -> 前驱状态 的逆转换表;
+     * 2. 初始划分: 接受的模式ID集合相同的状态为一组(单模式时即终结状态集合和非终结状态集合);
+     * 3. 工作表保存 (分组, 等价类) 分割器: 取出分割器, 标记其前驱状态, 被部分标记的分组一分为二;
+     *    分组拆分时, 如果 (分组, 等价类) 仍在工作表中则两部分都加入, 否则只加入较小的部分。
+     * </pre>
+     *
+     * @return 最小化 DFA
+     */
+    public DFAGraph simplify()
     {
-        sets = sets.stream().flatMap(x -> {
-            if (!canSplit(x)) {
-                // 不可以分割的集合
-                return Stream.empty();
-            }
-            else {
-                // 可以分割的集合需要继续尝试分割
-                return Stream.of(x);
-            }
-        }).collect(Collectors.toSet());
-        // 记录下尝试分割前的集合数
-        int before = sets.size();
-
-        sets = sets.stream().flatMap(x -> {
-            Collection<Set<Integer>> result = trySplit(x, dfaStateSetIndexMap);
-            if (!result.isEmpty()) {
-                // 分割成功
-                return result.stream();
+        int[] stateIds = getStates().stream()
+                .mapToInt(State::getStateId)
+                .sorted()
+                .toArray();
+        Partition partition = new Partition(stateIds);
+        partition.refine();
+        // 每个分组中的状态ID(升序), 最小化状态的ID为分组中最小的状态ID
+        int[][] blocks = partition.blocks();
+        State start = createMinimizationDFAStates(partition.blockOf(this.start.getStateId()), blocks, partition);
+        if (acceptIds == null) {
+            return new DFAGraph(start, stateManager, true, alphabet);
+        }
+        // 同一分组中的状态模式ID集合相同
+        Map<Integer, Set<Integer>> minAcceptIds = new HashMap<>();
+        for (int[] block : blocks) {
+            if (block == null) {
+                continue;
             }
-            else {
-                // 分割不成功
-                return Stream.of(x);
+            Set<Integer> ids = acceptIdsOf(block[0]);
+            if (!ids.isEmpty()) {
+                minAcceptIds.put(block[0], ids);
             }
-        }).collect(Collectors.toSet());
-        // 记录下尝试分割后的集合数
-        int after = sets.size();
-        if (before != after) {
-            // 如果成功分割，继续尝试分割
-            trySplitSet(sets, dfaStateSetIndexMap);
         }
+        return DFAGraph.of(start, stateManager, true, alphabet, minAcceptIds);
     }
 
-    public Set<Integer> searchDFAIndexMap(Integer state, Map<Integer, Set<Integer>> dfaStateSetIndexMap)
-    {
-        return dfaStateSetIndexMap.get(state);
-    }
-
-    public void refreshDFAIndexMap(Collection<Set<Integer>> dfaStateSets, Map<Integer, Set<Integer>> dfaStateSetIndexMap)
-    {
-        dfaStateSets.forEach(x -> x.forEach(y -> {
-            dfaStateSetIndexMap.put(y, x);
-        }));
-    }
-
-    private Collection<Set<Integer>> trySplit(Set<Integer> set, Map<Integer, Set<Integer>> dfaStateSetIndexMap)
+    /**
+     * 从起始分组开始 BFS 创建最小化 DFA 状态和转换
+     *
+     * @return 最小化 DFA 的起始状态
+     */
+    private State createMinimizationDFAStates(int startBlock, int[][] blocks, Partition partition)
     {
-        for (Edge item : getAllEdgesOfStateSet(set)) {
-            // 去向集合 <-> 状态分组
-            Map<Set<Integer>, Set<Integer>> mapping = new HashMap<>();
-            // 空集状态分组(死状态)
-            // 如果当前状态没有对应edge的转换状态，记录到emptyTransition中
-            Set<Integer> emptyTransition = new HashSet<>();
-            for (Integer state : set) {
-                State dfa = stateManager.tryGetDFAState(state);
-                Set<Transition> transitions = dfa.getTransitionsOfInputEdge(item);
-                if (!transitions.isEmpty()) {
-                    transitions.forEach(transition -> {
-                        // 在索引中搜索target所在的DFA集合
-                        Set<Integer> mappedSet = searchDFAIndexMap(transition.getTargetId(), dfaStateSetIndexMap);
-                        Set<Integer> subSetGroup = mapping.getOrDefault(mappedSet, new HashSet<>());
-                        // 在分组中记录下当前状态
-                        subSetGroup.add(state);
-                        mapping.put(mappedSet, subSetGroup);
-                    });
-                }
-                else {
-                    emptyTransition.add(state);
-                }
-            }
-
-            if ((mapping.keySet().size() + (emptyTransition.isEmpty() ? 0 : 1)) > 1) {
-                // 当前集合存在多个子分组
-                Set<Set<Integer>> stateSet = new HashSet<>(mapping.values());
-                if (!emptyTransition.isEmpty()) {
-                    stateSet.add(emptyTransition);
+        State[] minStates = new State[blocks.length];
+        int[] queue = new int[blocks.length];
+        int tail = 0;
+        if (createMinimizationDFAState(startBlock, blocks, minStates)) {
+            queue[tail++] = startBlock;
+        }
+        for (int head = 0; head < tail; head++) {
+            int block = queue[head];
+            State minState = minStates[block];
+            // 分组中的状态互相等价, 以编号最小的状态为代表复制转换
+            State representative = stateManager.tryGetDFAState(blocks[block][0]);
+            for (Transition transition : representative.getTransitions()) {
+                int toBlock = partition.blockOf(transition.getTargetId());
+                if (minStates[toBlock] == null && createMinimizationDFAState(toBlock, blocks, minStates)) {
+                    queue[tail++] = toBlock;
                 }
-                // 出现分组拆分，需要刷新索引
-                refreshDFAIndexMap(stateSet, dfaStateSetIndexMap);
-                return stateSet;
+                minState.addTransition(transition.getEdge(), minStates[toBlock]);
             }
         }
-        return Collections.emptySet();
+        return minStates[startBlock];
     }
 
     /**
-     * 判断DFAState是否可分
+     * 创建分组对应的最小化状态
      *
-     * @param dfaStates
-     * @return
+     * @return 是否为新创建的状态, StateManager 中已经存在的状态转换已经构建过, 不需要再复制
      */
-    private static boolean canSplit(Set<Integer> dfaStates)
+    private boolean createMinimizationDFAState(int block, int[][] blocks, State[] minStates)
     {
-        return dfaStates != null && !dfaStates.isEmpty() && dfaStates.size() > 1;
+        int[] stateSet = blocks[block];
+        Optional<State> existing = stateManager.getMinimizationDFAState(stateSet);
+        if (existing.isPresent()) {
+            minStates[block] = existing.get();
+            return false;
+        }
+        minStates[block] = stateManager.createOrGetMinimizationDFAState(stateSet);
+        return true;
     }
 
     /**
-     * 分割DFA状态为终结状态集合和非终结状态集合
-     *
-     * @param state
-     * @return
+     * Hopcroft 算法使用的状态划分.
+     * <p>
+     * 分组 b 的状态保存在 elements[first[b], end[b]) 中, 其中 [first[b], marked[b]) 为本轮被标记的状态,
+     * 标记和拆分都只交换数组元素, 不分配集合对象。
      */
-    private Set<Set<Integer>> initSplitedSet(Integer state, Map<Integer, Set<Integer>> dfaStateSetIndexMap)
+    private final class Partition
     {
-        Pair<Set<Integer>, Set<Integer>> pair = dfsSplitSet(state, new HashSet<>());
-        Set<Set<Integer>> result = Sets.newHashSet(pair.getLeft(), pair.getRight());
-        refreshDFAIndexMap(result, dfaStateSetIndexMap);
-        return result;
-    }
+        private final int[] stateIds;
+        private final int stateCount;
+        private final int classCount;
+        /**
+         * 逆转换表(CSR): (等价类 c, 目标状态 t) 的前驱为 predecessors[offsets[c * stateCount + t], offsets[c * stateCount + t + 1])
+         */
+        private final int[] offsets;
+        private final int[] predecessors;
 
-    private Pair<Set<Integer>, Set<Integer>> dfsSplitSet(Integer state, Set<Integer> marked)
-    {
-        if (marked.contains(state)) {
-            return Pair.of(Collections.emptySet(), Collections.emptySet());
+        private final int[] elements;
+        private final int[] location;
+        private final int[] blockOf;
+        private int[] first;
+        private int[] end;
+        private int[] marked;
+        private int blockCount;
+
+        private Partition(int[] stateIds)
+        {
+            this.stateIds = stateIds;
+            this.classCount = alphabet.getClassCount();
+            // 最后一个状态为死状态
+            int dead = stateIds.length;
+            this.stateCount = stateIds.length + 1;
+            int[] transitions = new int[stateCount * classCount];
+            Arrays.fill(transitions, dead);
+            for (int state = 0; state < dead; state++) {
+                for (Transition transition : stateManager.tryGetDFAState(stateIds[state]).getTransitions()) {
+                    int target = Arrays.binarySearch(stateIds, transition.getTargetId());
+                    for (int classId : alphabet.classesOf(CharClassMap.toCharRange(transition.getEdge()))) {
+                        transitions[state * classCount + classId] = target;
+                    }
+                }
+            }
+            this.offsets = new int[stateCount * classCount + 1];
+            for (int state = 0; state < stateCount; state++) {
+                for (int classId = 0; classId < classCount; classId++) {
+                    offsets[classId * stateCount + transitions[state * classCount + classId] + 1]++;
+                }
+            }
+            for (int i = 0; i < stateCount * classCount; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            this.predecessors = new int[stateCount * classCount];
+            int[] fill = Arrays.copyOf(offsets, stateCount * classCount);
+            for (int state = 0; state < stateCount; state++) {
+                for (int classId = 0; classId < classCount; classId++) {
+                    predecessors[fill[classId * stateCount + transitions[state * classCount + classId]]++] = state;
+                }
+            }
+
+            // 初始划分: 按接受的模式ID集合分组, 死状态单独一组
+            Map<Set<Integer>, Integer> groups = new HashMap<>();
+            int[] groupOf = new int[stateCount];
+            for (int state = 0; state < dead; state++) {
+                Set<Integer> ids = acceptIdsOf(stateIds[state]);
+                Integer group = groups.get(ids);
+                if (group == null) {
+                    group = groups.size();
+                    groups.put(ids, group);
+                }
+                groupOf[state] = group;
+            }
+            groupOf[dead] = groups.size();
+            int groupCount = groups.size() + 1;
+            this.first = new int[Math.max(groupCount, 4)];
+            this.end = new int[first.length];
+            this.marked = new int[first.length];
+            this.elements = new int[stateCount];
+            this.location = new int[stateCount];
+            this.blockOf = new int[stateCount];
+            int[] sizes = new int[groupCount];
+            for (int state = 0; state < stateCount; state++) {
+                sizes[groupOf[state]]++;
+            }
+            for (int group = 0, position = 0; group < groupCount; group++) {
+                first[group] = position;
+                end[group] = position;
+                marked[group] = position;
+                position += sizes[group];
+            }
+            for (int state = 0; state < stateCount; state++) {
+                int group = groupOf[state];
+                elements[end[group]] = state;
+                location[state] = end[group]++;
+                blockOf[state] = group;
+            }
+            this.blockCount = groupCount;
         }
-        marked.add(state);
-        Set<Integer> accept = Sets.newHashSet();
-        Set<Integer> unAccept = Sets.newHashSet();
-        State dfa = stateManager.tryGetDFAState(state);
-        if (dfa.isAccept()) {
-            accept.add(state);
+
+        private void refine()
+        {
+            // (分组, 等价类) 分割器工作表, 初始包含所有分组
+            IntStack worklist = new IntStack();
+            BitSet pending = new BitSet();
+            for (int block = 0; block < blockCount; block++) {
+                for (int classId = 0; classId < classCount; classId++) {
+                    worklist.push(block * classCount + classId);
+                    pending.set(block * classCount + classId);
+                }
+            }
+            int[] splitter = new int[stateCount];
+            IntStack touched = new IntStack();
+            while (!worklist.isEmpty()) {
+                int item = worklist.pop();
+                pending.clear(item);
+                int block = item / classCount;
+                int classId = item % classCount;
+                // 分割器的状态先拷贝出来, 标记时可能交换分组内的元素
+                int size = end[block] - first[block];
+                System.arraycopy(elements, first[block], splitter, 0, size);
+                for (int i = 0; i < size; i++) {
+                    int slot = classId * stateCount + splitter[i];
+                    for (int k = offsets[slot]; k < offsets[slot + 1]; k++) {
+                        mark(predecessors[k], touched);
+                    }
+                }
+                while (!touched.isEmpty()) {
+                    int split = touched.pop();
+                    if (marked[split] == end[split]) {
+                        // 全部被标记, 不需要拆分
+                        marked[split] = first[split];
+                        continue;
+                    }
+                    int created = split(split);
+                    boolean smaller = end[created] - first[created] <= end[split] - first[split];
+                    for (int c = 0; c < classCount; c++) {
+                        // 原分组仍在工作表中时新分组也要加入, 否则只加入较小的部分
+                        int target = pending.get(split * classCount + c) || smaller ? created : split;
+                        worklist.push(target * classCount + c);
+                        pending.set(target * classCount + c);
+                    }
+                }
+            }
         }
-        else {
-            unAccept.add(state);
+
+        /**
+         * 标记状态: 移动到所在分组的标记区域
+         */
+        private void mark(int state, IntStack touched)
+        {
+            int block = blockOf[state];
+            int position = location[state];
+            int boundary = marked[block];
+            if (position < boundary) {
+                return;
+            }
+            if (boundary == first[block]) {
+                touched.push(block);
+            }
+            int other = elements[boundary];
+            elements[boundary] = state;
+            location[state] = boundary;
+            elements[position] = other;
+            location[other] = position;
+            marked[block] = boundary + 1;
         }
-        dfa.getTransitions().stream().forEach(transition -> {
-            Pair<Set<Integer>, Set<Integer>> sub = dfsSplitSet(transition.getState().getStateId(), marked);
-            accept.addAll(sub.getLeft());
-            unAccept.addAll(sub.getRight());
-        });
-        return Pair.of(accept, unAccept);
-    }
 
-    public String printStateMapping()
-    {
-        StringBuilder sb = new StringBuilder();
-        Set<Integer> markSet = new HashSet<>();
-        if (this.getMinimized()) {
-            sb.append("\n<<<<<<<<<<<< Min DFA -> DFA >>>>>>>>>>>>>\n");
-            printDFA2DFAMapping(this.getStart(), sb, markSet);
+        /**
+         * 将分组的标记部分拆分为新的分组
+         *
+         * @return 新分组
+         */
+        private int split(int block)
+        {
+            if (blockCount == first.length) {
+                first = Arrays.copyOf(first, blockCount * 2);
+                end = Arrays.copyOf(end, blockCount * 2);
+                marked = Arrays.copyOf(marked, blockCount * 2);
+            }
+            int created = blockCount++;
+            first[created] = first[block];
+            end[created] = marked[block];
+            marked[created] = first[created];
+            for (int i = first[created]; i < end[created]; i++) {
+                blockOf[elements[i]] = created;
+            }
+            first[block] = marked[block];
+            return created;
         }
-        else {
-            sb.append("\n<<<<<<<<<<<< NFA -> DFA >>>>>>>>>>>>>\n");
-            printDFA2NFAMapping(this.getStart(), sb, markSet);
+
+        /**
+         * 状态ID所在的分组
+         */
+        private int blockOf(int stateId)
+        {
+            return blockOf[Arrays.binarySearch(stateIds, stateId)];
+        }
+
+        /**
+         * 每个分组包含的状态ID(升序), 死状态所在的分组为 null
+         */
+        private int[][] blocks()
+        {
+            int[][] result = new int[blockCount][];
+            int dead = stateIds.length;
+            for (int block = 0; block < blockCount; block++) {
+                if (blockOf[dead] == block) {
+                    continue;
+                }
+                int[] ids = new int[end[block] - first[block]];
+                for (int i = first[block]; i < end[block]; i++) {
+                    ids[i - first[block]] = stateIds[elements[i]];
+                }
+                Arrays.sort(ids);
+                result[block] = ids;
+            }
+            return result;
         }
-        return sb.toString();
     }
 
-    private void printDFA2NFAMapping(State cursor, StringBuilder sb, Set<Integer> markSet)
+    /**
+     * int 栈, 避免工作表装箱
+     */
+    private static final class IntStack
     {
-        if (cursor != null && !markSet.contains(cursor.getStateId())) {
-            String nfaStr = String.format("(%s)", stateManager.getDFAMappedNFAState(cursor).stream().map(x -> "s_" + x.getStateId()).collect(Collectors.joining(",")));
-            sb.append("s_").append(cursor.getStateId()).append("<==>").append(nfaStr).append("\n");
-            markSet.add(cursor.getStateId());
-            Set<Transition> transitions = cursor.getTransitions();
-            for (Transition transition : transitions) {
-                printDFA2NFAMapping(transition.getState(), sb, markSet);
+        private int[] values = new int[16];
+        private int size;
+
+        private void push(int value)
+        {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
             }
+            values[size++] = value;
+        }
+
+        private int pop()
+        {
+            return values[--size];
+        }
+
+        private boolean isEmpty()
+        {
+            return size == 0;
         }
     }
 
-    private void printDFA2DFAMapping(State cursor, StringBuilder sb, Set<Integer> markSet)
+    /**
+     * 打印状态映射(BFS 顺序)
+     *
+     * @return 最小化 DFA -> DFA 或 DFA -> NFA 的状态映射
+     */
+    public String printStateMapping()
     {
-        if (cursor != null && !markSet.contains(cursor.getStateId())) {
-            String nfaStr = String.format("(%s)", stateManager.getMinDFAMappedDFAState(cursor).stream().map(x -> "s_" + x.getStateId()).collect(Collectors.joining(",")));
+        StringBuilder sb = new StringBuilder();
+        sb.append(this.getMinimized()
+                ? "\n<<<<<<<<<<<< Min DFA -> DFA >>>>>>>>>>>>>\n"
+                : "\n<<<<<<<<<<<< NFA -> DFA >>>>>>>>>>>>>\n");
+        for (State cursor : getStates()) {
+            Set<State> mapped = this.getMinimized()
+                    ? stateManager.getMinDFAMappedDFAState(cursor)
+                    : stateManager.getDFAMappedNFAState(cursor);
+            String nfaStr = String.format("(%s)", mapped.stream().map(x -> "s_" + x.getStateId()).collect(Collectors.joining(",")));
             sb.append("s_").append(cursor.getStateId()).append("<==>").append(nfaStr).append("\n");
-            markSet.add(cursor.getStateId());
-            Set<Transition> transitions = cursor.getTransitions();
-            for (Transition transition : transitions) {
-                printDFA2DFAMapping(transition.getState(), sb, markSet);
-            }
         }
+        return sb.toString();
     }
 }
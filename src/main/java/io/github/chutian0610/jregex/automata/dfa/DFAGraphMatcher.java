@@ -1,39 +1,59 @@
 package io.github.chutian0610.jregex.automata.dfa;
 
-import io.github.chutian0610.jregex.automata.Edge;
 import io.github.chutian0610.jregex.automata.GraphMatcher;
-import io.github.chutian0610.jregex.automata.State;
-import io.github.chutian0610.jregex.automata.Transition;
-
-import java.util.Optional;
 
 /**
  * DFA 匹配器
+ * <p>
+ * 匹配前先将 DFA 冻结为 {@link DFATransitionTable}, 匹配过程只做查表。
  *
  * @author victorchu
  */
 public class DFAGraphMatcher
         implements GraphMatcher
 {
-    private final DFAGraph dfaGraph;
+    private final DFATransitionTable table;
 
     public DFAGraphMatcher(DFAGraph dfaGraph)
     {
-        this.dfaGraph = dfaGraph;
+        this.table = DFATransitionTable.of(dfaGraph);
+    }
+
+    /**
+     * 整串匹配模式的流式匹配器, 和当前匹配器共享转换表
+     *
+     * @return 新的流式匹配器
+     */
+    public StreamingMatcher stream()
+    {
+        return new StreamingMatcher(table);
+    }
+
+    /**
+     * 长输入分块并行匹配的匹配器, 和当前匹配器共享转换表
+     *
+     * @return 并行匹配器(默认阈值, 公共线程池)
+     */
+    public ParallelDFAMatcher parallel()
+    {
+        return new ParallelDFAMatcher(table);
+    }
+
+    @Override
+    public boolean matches(CharSequence str)
+    {
+        return table.matches(str);
     }
 
     @Override
     public boolean matches(String str)
     {
-        State state = dfaGraph.getStart();
-        for (int i = 0, length = str.length(); i < length; i++) {
-            char ch = str.charAt(i);
-            Optional<State> to = state.getTransitionsOfInputEdge(Edge.character(ch)).stream().findFirst().map(Transition::getState);
-            if (!to.isPresent()) {
-                return false;
-            }
-            state = to.get();
-        }
-        return state.isAccept();
+        return table.matches(str);
+    }
+
+    @Override
+    public boolean matches(char[] array, int offset, int length)
+    {
+        return table.matches(array, offset, length);
     }
 }
@@ -0,0 +1,342 @@
+package io.github.chutian0610.jregex.automata.dfa;
+
+import com.google.common.base.Preconditions;
+import io.github.chutian0610.jregex.automata.State;
+import io.github.chutian0610.jregex.automata.Transition;
+import io.github.chutian0610.jregex.misc.CharClassMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 表驱动的 DFA(构建完成后不可变).
+ *
+ * <pre>
+ * 状态编号为 [0, stateCount) 的稠密整数,
+ * 转换表 transitions[state * classCount + classId] 记录下一个状态, DEAD 表示没有转换;
+ * 接受状态使用 bitmap 记录。
+ * 多模式 DFA 额外记录每个接受状态的模式ID(升序数组)。
+ *
+ * 构建时在反向图上从所有接受状态出发做 BFS, 得到每个状态到接受状态至少还需要的字符数(distance)。
+ * 匹配时剩余输入比当前状态的 distance 短就直接失败, 无法到达接受状态的状态(UNREACHABLE)等同于 DEAD。
+ *
+ * 整串匹配分别为 String, CharSequence 和 char[] 提供独立的循环, 每个循环内的调用点都是单态的, 便于 JIT 内联和消除边界检查。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public final class DFATransitionTable
+{
+    /**
+     * 死状态(没有转换)
+     */
+    public static final int DEAD = -1;
+    /**
+     * 无法到达接受状态的距离
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int[] NO_PATTERN = new int[0];
+    private static final int[] SINGLE_PATTERN = new int[] {0};
+
+    private final CharClassMap alphabet;
+    private final int classCount;
+    private final int stateCount;
+    private final int start;
+    private final int[] transitions;
+    private final long[] accepts;
+    /**
+     * 状态 -> 到达接受状态最少需要的字符数
+     */
+    private final int[] distances;
+    /**
+     * 状态 -> 模式ID(升序), 单模式 DFA 为 null
+     */
+    private final int[][] acceptIds;
+
+    private DFATransitionTable(CharClassMap alphabet, int stateCount, int start, int[] transitions, long[] accepts, int[][] acceptIds)
+    {
+        this.alphabet = alphabet;
+        this.classCount = alphabet.getClassCount();
+        this.stateCount = stateCount;
+        this.start = start;
+        this.transitions = transitions;
+        this.accepts = accepts;
+        this.distances = computeDistances(stateCount, classCount, transitions, accepts);
+        this.acceptIds = acceptIds;
+    }
+
+    /**
+     * 将 DFA 冻结为转换表, 状态按照 BFS 顺序编号.
+     *
+     * @param dfaGraph DFA(最好是最小化后的DFA)
+     * @return 转换表
+     */
+    public static DFATransitionTable of(DFAGraph dfaGraph)
+    {
+        // BFS 为状态编号
+        List<State> states = new ArrayList<>();
+        Map<Integer, Integer> index = new HashMap<>();
+        Deque<State> queue = new ArrayDeque<>();
+        queue.add(dfaGraph.getStart());
+        index.put(dfaGraph.getStart().getStateId(), 0);
+        while (!queue.isEmpty()) {
+            State state = queue.poll();
+            states.add(state);
+            for (Transition transition : state.getTransitions()) {
+                if (!index.containsKey(transition.getTargetId())) {
+                    index.put(transition.getTargetId(), index.size());
+                    queue.add(transition.getState());
+                }
+            }
+        }
+        CharClassMap alphabet = dfaGraph.getAlphabet();
+        int classCount = alphabet.getClassCount();
+        int[] transitions = new int[states.size() * classCount];
+        Arrays.fill(transitions, DEAD);
+        long[] accepts = new long[(states.size() + 63) >>> 6];
+        int[][] acceptIds = dfaGraph.isTagged() ? new int[states.size()][] : null;
+        for (int i = 0; i < states.size(); i++) {
+            State state = states.get(i);
+            if (state.isAccept()) {
+                accepts[i >>> 6] |= 1L << i;
+            }
+            if (acceptIds != null) {
+                acceptIds[i] = dfaGraph.acceptIdsOf(state.getStateId()).stream().mapToInt(Integer::intValue).toArray();
+            }
+            for (Transition transition : state.getTransitions()) {
+                int target = index.get(transition.getTargetId());
+                for (int classId : alphabet.classesOf(CharClassMap.toCharRange(transition.getEdge()))) {
+                    transitions[i * classCount + classId] = target;
+                }
+            }
+        }
+        return new DFATransitionTable(alphabet, states.size(), 0, transitions, accepts, acceptIds);
+    }
+
+    /**
+     * 反向 BFS: 接受状态的距离为 0, 前驱状态的距离为后继距离 + 1
+     */
+    private static int[] computeDistances(int stateCount, int classCount, int[] transitions, long[] accepts)
+    {
+        // 反向边, CSR 格式(同一对状态之间的多条边会重复记录, 不影响结果)
+        int[] offsets = new int[stateCount + 1];
+        for (int target : transitions) {
+            if (target != DEAD) {
+                offsets[target + 1]++;
+            }
+        }
+        for (int i = 0; i < stateCount; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] predecessors = new int[offsets[stateCount]];
+        int[] fill = Arrays.copyOf(offsets, stateCount);
+        for (int i = 0; i < transitions.length; i++) {
+            if (transitions[i] != DEAD) {
+                predecessors[fill[transitions[i]]++] = i / classCount;
+            }
+        }
+        int[] distances = new int[stateCount];
+        Arrays.fill(distances, UNREACHABLE);
+        int[] queue = new int[stateCount];
+        int head = 0;
+        int tail = 0;
+        for (int state = 0; state < stateCount; state++) {
+            if ((accepts[state >>> 6] & (1L << state)) != 0) {
+                distances[state] = 0;
+                queue[tail++] = state;
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            for (int i = offsets[state]; i < offsets[state + 1]; i++) {
+                int predecessor = predecessors[i];
+                if (distances[predecessor] == UNREACHABLE) {
+                    distances[predecessor] = distances[state] + 1;
+                    queue[tail++] = predecessor;
+                }
+            }
+        }
+        return distances;
+    }
+
+    public int getStart()
+    {
+        return start;
+    }
+
+    public int getStateCount()
+    {
+        return stateCount;
+    }
+
+    public CharClassMap getAlphabet()
+    {
+        return alphabet;
+    }
+
+    public boolean isAccept(int state)
+    {
+        return (accepts[state >>> 6] & (1L << state)) != 0;
+    }
+
+    /**
+     * 从状态出发到达接受状态最少需要的字符数
+     *
+     * @param state 状态
+     * @return 字符数, 无法到达接受状态时为 UNREACHABLE
+     */
+    public int distanceToAccept(int state)
+    {
+        return distances[state];
+    }
+
+    /**
+     * 状态是否无法到达接受状态
+     *
+     * @param state 状态
+     * @return 是否无法接受
+     */
+    public boolean isDead(int state)
+    {
+        return distances[state] == UNREACHABLE;
+    }
+
+    /**
+     * 状态接受的模式ID
+     *
+     * @param state 状态
+     * @return 模式ID(升序), 调用方不能修改; 单模式 DFA 的接受状态为 {0}
+     */
+    public int[] acceptIdsOf(int state)
+    {
+        if (acceptIds != null) {
+            return acceptIds[state];
+        }
+        return isAccept(state) ? SINGLE_PATTERN : NO_PATTERN;
+    }
+
+    /**
+     * 状态转换
+     *
+     * @param state 当前状态
+     * @param ch 输入字符
+     * @return 下一个状态, 没有转换时返回 DEAD
+     */
+    public int next(int state, char ch)
+    {
+        return transitions[state * classCount + alphabet.classOf(ch)];
+    }
+
+    /**
+     * 整串匹配
+     *
+     * @param str 输入
+     * @return 是否匹配
+     */
+    public boolean matches(String str)
+    {
+        final int[] transitions = this.transitions;
+        final CharClassMap alphabet = this.alphabet;
+        final int classCount = this.classCount;
+        final int[] distances = this.distances;
+        int state = start;
+        int length = str.length();
+        if (length < distances[state]) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            state = transitions[state * classCount + alphabet.classOf(str.charAt(i))];
+            // 剩余输入不足以到达接受状态(包括 UNREACHABLE)
+            if (state == DEAD || length - i - 1 < distances[state]) {
+                return false;
+            }
+        }
+        return isAccept(state);
+    }
+
+    /**
+     * 整串匹配(CharSequence 版本, 不需要先转换为 String)
+     *
+     * @param str 输入
+     * @return 是否匹配
+     */
+    public boolean matches(CharSequence str)
+    {
+        final int[] transitions = this.transitions;
+        final CharClassMap alphabet = this.alphabet;
+        final int classCount = this.classCount;
+        final int[] distances = this.distances;
+        int state = start;
+        int length = str.length();
+        if (length < distances[state]) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            state = transitions[state * classCount + alphabet.classOf(str.charAt(i))];
+            if (state == DEAD || length - i - 1 < distances[state]) {
+                return false;
+            }
+        }
+        return isAccept(state);
+    }
+
+    /**
+     * 整串匹配 array[offset, offset + length), 不复制数组
+     *
+     * @param array 字符数组
+     * @param offset 开始下标
+     * @param length 长度
+     * @return 是否匹配
+     */
+    public boolean matches(char[] array, int offset, int length)
+    {
+        Preconditions.checkPositionIndexes(offset, offset + length, array.length);
+        final int[] transitions = this.transitions;
+        final CharClassMap alphabet = this.alphabet;
+        final int classCount = this.classCount;
+        final int[] distances = this.distances;
+        int state = start;
+        if (length < distances[state]) {
+            return false;
+        }
+        for (int i = offset, end = offset + length; i < end; i++) {
+            state = transitions[state * classCount + alphabet.classOf(array[i])];
+            if (state == DEAD || end - i - 1 < distances[state]) {
+                return false;
+            }
+        }
+        return isAccept(state);
+    }
+
+    /**
+     * 整串匹配, 一次扫描返回所有匹配的模式ID
+     *
+     * @param str 输入
+     * @return 模式ID(升序), 调用方不能修改
+     */
+    public int[] matchAll(CharSequence str)
+    {
+        final int[] transitions = this.transitions;
+        final CharClassMap alphabet = this.alphabet;
+        final int classCount = this.classCount;
+        final int[] distances = this.distances;
+        int state = start;
+        int length = str.length();
+        if (length < distances[state]) {
+            return NO_PATTERN;
+        }
+        for (int i = 0; i < length; i++) {
+            state = transitions[state * classCount + alphabet.classOf(str.charAt(i))];
+            // 剩余输入不足以到达接受状态(包括 UNREACHABLE)
+            if (state == DEAD || length - i - 1 < distances[state]) {
+                return NO_PATTERN;
+            }
+        }
+        return acceptIdsOf(state);
+    }
+}
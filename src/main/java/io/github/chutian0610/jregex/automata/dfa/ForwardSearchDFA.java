@@ -0,0 +1,199 @@
+package io.github.chutian0610.jregex.automata.dfa;
+
+import com.google.common.base.Preconditions;
+import io.github.chutian0610.jregex.automata.nfa.NFATable;
+import io.github.chutian0610.jregex.literal.Prefilter;
+import io.github.chutian0610.jregex.misc.SparseSet;
+
+import java.util.Arrays;
+
+/**
+ * 非锚定的前向搜索 DFA(惰性构造), 查找最左最长匹配的结束位置.
+ *
+ * <pre>
+ * DFA 状态是按开始位置排序的 NFA 状态组序列: 每个位置都会在末尾追加一个新的组(起始状态的 ϵ 闭包),
+ * 同一个 NFA 状态只保留在最早的组中(后开始的线程不可能得到更靠左的匹配)。
+ *
+ * 当某个组包含接受状态时, 删除它之后的组, 并且不再追加新的组;
+ * 之后只有更早的组或者该组本身还能产生匹配, 因此最后一次到达接受状态的位置就是最左最长匹配的结束位置。
+ * 所有组都消亡时停止扫描。
+ *
+ * 如果提供了前缀过滤器, 每当回到起始状态(没有进行中的线程)时, 使用过滤器跳到下一个候选位置。
+ * 回到起始状态时, 如果剩余输入比最短匹配长度还短, 不可能再开始新的匹配, 直接停止扫描。
+ *
+ * 状态编码为 int 数组: [是否已匹配, 组1..., -1, 组2..., -1, ...], 组内状态升序。
+ * 缓存由 {@link ConcurrentLazyDFA} 管理, 可以在多个线程之间共享; 每一代的起始状态编号相同,
+ * 过滤器和最短长度检查在缓存清空后继续生效。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public class ForwardSearchDFA
+        extends ConcurrentLazyDFA
+{
+    private static final int GROUP_END = -1;
+
+    private final NFATable nfa;
+    private final Prefilter prefilter;
+    private final int minLength;
+
+    /**
+     * 计算下一个状态时使用, 只在持有缓存的锁时访问
+     */
+    private final SparseSet seen;
+    private final int[] scratch;
+
+    public ForwardSearchDFA(NFATable nfa)
+    {
+        this(nfa, null, 0, LazyDFAMatcher.DEFAULT_CACHE_BYTES);
+    }
+
+    /**
+     * @param nfa NFA
+     * @param prefilter 前缀过滤器, 可以为 null
+     * @param minLength 最短匹配长度, 未知时为 0
+     * @param cacheBytes 缓存预算
+     */
+    public ForwardSearchDFA(NFATable nfa, Prefilter prefilter, int minLength, long cacheBytes)
+    {
+        // 状态编码最长为 1 + 2 * NFA 状态数, 只用于分配缓冲区, 缓存预算按实际编码长度检查
+        super(nfa.getAlphabet(), cacheBytes, 1 + 2 * nfa.getStateCount());
+        Preconditions.checkArgument(minLength >= 0, "negative min length: %s", minLength);
+        this.nfa = nfa;
+        this.prefilter = prefilter;
+        this.minLength = minLength;
+        this.seen = new SparseSet(nfa.getStateCount());
+        this.scratch = new int[1 + 2 * nfa.getStateCount()];
+    }
+
+    /**
+     * 从 from 开始查找最左最长匹配的结束位置
+     *
+     * @param text 输入
+     * @param from 开始查找的位置
+     * @return 结束位置(不包含), 没有匹配时返回 -1
+     */
+    public int findEnd(CharSequence text, int from)
+    {
+        Cursor cursor = cursor();
+        int end = cursor.isAccept() ? from : -1;
+        for (int i = from, length = text.length(); i < length; i++) {
+            if (cursor.isStart()) {
+                if (prefilter != null) {
+                    // 没有进行中的线程, 跳到下一个可能开始匹配的位置
+                    i = prefilter.find(text, i);
+                    if (i < 0) {
+                        break;
+                    }
+                }
+                if (length - i < minLength) {
+                    break;
+                }
+            }
+            if (!cursor.next(text.charAt(i))) {
+                break;
+            }
+            if (cursor.isAccept()) {
+                end = i + 1;
+            }
+        }
+        return end;
+    }
+
+    @Override
+    protected int[] startState()
+    {
+        seen.clear();
+        return Arrays.copyOf(scratch, finish(scratch, appendStartGroup(scratch, 1), false));
+    }
+
+    @Override
+    protected int computeNext(int[] current, int classId, int[] buffer)
+    {
+        boolean matched = current[0] == 1;
+        seen.clear();
+        int size = 1;
+        int groupStart = size;
+        for (int i = 1; i < current.length; i++) {
+            if (current[i] == GROUP_END) {
+                size = closeGroup(buffer, groupStart, size);
+                groupStart = size;
+                continue;
+            }
+            for (int next : nfa.moveOf(current[i], classId)) {
+                if (seen.add(next)) {
+                    buffer[size++] = next;
+                }
+            }
+        }
+        if (!matched) {
+            size = appendStartGroup(buffer, size);
+        }
+        if (size == 1) {
+            return -1;
+        }
+        return finish(buffer, size, matched);
+    }
+
+    /**
+     * 截断后只有最后一个组可能包含接受状态
+     */
+    @Override
+    protected boolean isAccept(int[] state)
+    {
+        for (int i = state.length - 2; i > 0 && state[i] != GROUP_END; i--) {
+            if (nfa.isAccept(state[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int appendStartGroup(int[] buffer, int size)
+    {
+        int groupStart = size;
+        for (int next : nfa.getClosure(nfa.getStart())) {
+            if (seen.add(next)) {
+                buffer[size++] = next;
+            }
+        }
+        return closeGroup(buffer, groupStart, size);
+    }
+
+    /**
+     * 结束一个组: 空组直接丢弃, 否则排序并追加结束标记
+     */
+    private static int closeGroup(int[] buffer, int groupStart, int size)
+    {
+        if (size == groupStart) {
+            return size;
+        }
+        Arrays.sort(buffer, groupStart, size);
+        buffer[size++] = GROUP_END;
+        return size;
+    }
+
+    /**
+     * 截断第一个包含接受状态的组之后的所有组, 在 buffer 中生成状态编码
+     *
+     * @return 状态编码的长度
+     */
+    private int finish(int[] buffer, int size, boolean matched)
+    {
+        boolean accept = false;
+        int end = size;
+        for (int i = 1; i < size; i++) {
+            if (buffer[i] == GROUP_END) {
+                if (accept) {
+                    end = i + 1;
+                    break;
+                }
+            }
+            else if (nfa.isAccept(buffer[i])) {
+                accept = true;
+            }
+        }
+        buffer[0] = matched || accept ? 1 : 0;
+        return end;
+    }
+}
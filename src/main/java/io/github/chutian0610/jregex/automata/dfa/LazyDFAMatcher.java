@@ -0,0 +1,213 @@
+package io.github.chutian0610.jregex.automata.dfa;
+
+import com.google.common.base.Preconditions;
+import io.github.chutian0610.jregex.automata.GraphMatcher;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraph;
+import io.github.chutian0610.jregex.automata.nfa.NFATable;
+import io.github.chutian0610.jregex.misc.CharClassMap;
+import io.github.chutian0610.jregex.misc.IntArrayInterner;
+import io.github.chutian0610.jregex.misc.SparseSet;
+
+import java.util.Arrays;
+
+/**
+ * 惰性 DFA 匹配器(on-the-fly 子集构造).
+ *
+ * <pre>
+ * 只有当输入到达某个 DFA 状态时, 才从 NFA 计算该状态和对应的转换, 并缓存在转换表中。
+ * 缓存占用的内存超过预算时清空整个缓存, 从当前状态重新开始构造,
+ * 因此内存占用可预测, 对于 (a|b)*a(a|b){20} 这类会让子集构造状态爆炸的表达式也能使用。
+ * 预算按 NFA 状态集合的实际大小在加入新状态时检查, 清空后下一个状态总是可以加入(即使它单独就超过预算),
+ * 因此规模很大的表达式也可以使用默认预算。
+ *
+ * 缓存是可变的, 匹配器非线程安全; 需要在多个线程之间共享时使用 {@link ConcurrentLazyDFAMatcher}。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public class LazyDFAMatcher
+        implements GraphMatcher
+{
+    /**
+     * 默认缓存预算 1MB
+     */
+    public static final long DEFAULT_CACHE_BYTES = 1 << 20;
+    /**
+     * 转换尚未计算
+     */
+    private static final int UNKNOWN = -2;
+    /**
+     * 每个缓存状态的固定开销估计(哈希槽, hash, 数组头)
+     */
+    private static final int STATE_OVERHEAD_BYTES = 96;
+
+    private final NFATable nfa;
+    private final CharClassMap alphabet;
+    private final int classCount;
+    private final long cacheBytes;
+    private final int[] startSet;
+
+    /**
+     * NFA 状态集合 <-> DFA 状态
+     */
+    private final IntArrayInterner stateSets = new IntArrayInterner();
+    private int[] transitions;
+    private boolean[] accepts;
+    private long usedBytes;
+    private int startState = UNKNOWN;
+    private int flushCount;
+
+    private final SparseSet moveSet;
+    private final int[] buffer;
+
+    public LazyDFAMatcher(NFAGraph nfaGraph)
+    {
+        this(nfaGraph, DEFAULT_CACHE_BYTES);
+    }
+
+    public LazyDFAMatcher(NFAGraph nfaGraph, long cacheBytes)
+    {
+        this(nfaGraph.toTable(), cacheBytes);
+    }
+
+    public LazyDFAMatcher(NFATable nfa, long cacheBytes)
+    {
+        this.nfa = nfa;
+        this.alphabet = nfa.getAlphabet();
+        this.classCount = alphabet.getClassCount();
+        Preconditions.checkArgument(cacheBytes > 0, "invalid cache budget: %s", cacheBytes);
+        this.cacheBytes = cacheBytes;
+        this.moveSet = new SparseSet(nfa.getStateCount());
+        this.buffer = new int[nfa.getStateCount()];
+        this.transitions = new int[16 * classCount];
+        this.accepts = new boolean[16];
+        moveSet.clear();
+        nfa.addEpsilonClosure(nfa.getStart(), moveSet);
+        this.startSet = moveSet.toSortedArray();
+    }
+
+    @Override
+    public boolean matches(CharSequence str)
+    {
+        int state = startState();
+        for (int i = 0, length = str.length(); i < length; i++) {
+            state = next(state, str.charAt(i));
+            if (state == DFATransitionTable.DEAD) {
+                return false;
+            }
+        }
+        return accepts[state];
+    }
+
+    /**
+     * 起始状态
+     *
+     * @return 状态编号
+     */
+    public int startState()
+    {
+        if (startState == UNKNOWN) {
+            startState = intern(startSet);
+        }
+        return startState;
+    }
+
+    /**
+     * 状态转换(按需构造). 缓存被清空后, 之前返回的状态编号全部失效, 只能继续使用本次返回的状态.
+     *
+     * @param state 当前状态
+     * @param ch 输入字符
+     * @return 下一个状态, 没有转换时返回 DEAD
+     */
+    public int next(int state, char ch)
+    {
+        int classId = alphabet.classOf(ch);
+        int next = transitions[state * classCount + classId];
+        if (next == UNKNOWN) {
+            next = computeNext(state, classId);
+        }
+        return next;
+    }
+
+    public boolean isAccept(int state)
+    {
+        return accepts[state];
+    }
+
+    /**
+     * 缓存被清空的次数
+     *
+     * @return 清空次数
+     */
+    public int getFlushCount()
+    {
+        return flushCount;
+    }
+
+    /**
+     * 当前缓存的 DFA 状态数
+     *
+     * @return 状态数
+     */
+    public int getCachedStateCount()
+    {
+        return stateSets.size();
+    }
+
+    /**
+     * 计算并缓存状态转换. 缓存不足时会清空缓存, 此时当前状态编号失效, 只返回新的下一个状态.
+     */
+    private int computeNext(int state, int classId)
+    {
+        nfa.move(stateSets.get(state), classId, moveSet);
+        if (moveSet.isEmpty()) {
+            transitions[state * classCount + classId] = DFATransitionTable.DEAD;
+            return DFATransitionTable.DEAD;
+        }
+        int length = moveSet.toSortedArray(buffer);
+        int cached = stateSets.indexOf(buffer, length);
+        if (cached >= 0) {
+            transitions[state * classCount + classId] = cached;
+            return cached;
+        }
+        // 缓存中只有当前状态时清空没有意义
+        if (stateSets.size() > 1 && usedBytes + stateBytes(length) > cacheBytes) {
+            flush();
+            return intern(Arrays.copyOf(buffer, length));
+        }
+        int next = intern(Arrays.copyOf(buffer, length));
+        transitions[state * classCount + classId] = next;
+        return next;
+    }
+
+    private int intern(int[] nfaSet)
+    {
+        int state = stateSets.indexOf(nfaSet);
+        if (state >= 0) {
+            return state;
+        }
+        state = stateSets.intern(nfaSet);
+        if ((state + 1) * classCount > transitions.length) {
+            int capacity = Math.max(accepts.length * 2, state + 1);
+            transitions = Arrays.copyOf(transitions, capacity * classCount);
+            accepts = Arrays.copyOf(accepts, capacity);
+        }
+        Arrays.fill(transitions, state * classCount, (state + 1) * classCount, UNKNOWN);
+        accepts[state] = nfa.isAccept(nfaSet);
+        usedBytes += stateBytes(nfaSet.length);
+        return state;
+    }
+
+    private void flush()
+    {
+        stateSets.clear();
+        usedBytes = 0;
+        startState = UNKNOWN;
+        flushCount++;
+    }
+
+    private long stateBytes(int nfaSetSize)
+    {
+        return (long) classCount * Integer.BYTES + (long) nfaSetSize * Integer.BYTES + STATE_OVERHEAD_BYTES;
+    }
+}
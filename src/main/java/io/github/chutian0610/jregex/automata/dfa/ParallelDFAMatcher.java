@@ -0,0 +1,221 @@
+package io.github.chutian0610.jregex.automata.dfa;
+
+import com.google.common.base.Preconditions;
+import io.github.chutian0610.jregex.automata.GraphMatcher;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 数据并行的 DFA 整串匹配器.
+ *
+ * <pre>
+ * 输入长度不小于阈值时, 把输入切分为多个块在 ForkJoinPool 上并行处理:
+ * 1. 每个块计算自己的转换函数 f: 起始状态 -> 结束状态(DEAD 表示中途死亡)。
+ *    所有起始状态同步推进, 到达同一个状态的起始状态合并为一个, 因此实际只模拟仍然不同的状态(通常很快收敛到 1 个);
+ * 2. 第一个块的起始状态已知, 只从 DFA 的起始状态开始模拟;
+ * 3. 左右两半的转换函数按顺序复合 (f ∘ g)(s) = g(f(s)), 类似转换函数上的并行前缀, 结果与顺序匹配完全一致。
+ *
+ * 输入短于阈值时直接使用顺序匹配。转换表不可变, 匹配器是线程安全的, 并行匹配期间输入不能被修改。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public final class ParallelDFAMatcher
+        implements GraphMatcher
+{
+    /**
+     * 默认并行阈值(字符数)
+     */
+    public static final int DEFAULT_THRESHOLD = 1 << 20;
+    /**
+     * 默认最小块大小(字符数)
+     */
+    public static final int DEFAULT_MIN_CHUNK = 1 << 16;
+
+    private final DFATransitionTable table;
+    private final ForkJoinPool pool;
+    private final int threshold;
+    private final int minChunk;
+
+    public ParallelDFAMatcher(DFATransitionTable table)
+    {
+        this(table, ForkJoinPool.commonPool(), DEFAULT_THRESHOLD, DEFAULT_MIN_CHUNK);
+    }
+
+    /**
+     * @param table 转换表
+     * @param pool 线程池
+     * @param threshold 并行阈值, 输入不短于阈值时并行匹配
+     * @param minChunk 最小块大小
+     */
+    public ParallelDFAMatcher(DFATransitionTable table, ForkJoinPool pool, int threshold, int minChunk)
+    {
+        Preconditions.checkArgument(threshold >= 0, "negative threshold: %s", threshold);
+        Preconditions.checkArgument(minChunk > 0, "invalid chunk size: %s", minChunk);
+        this.table = table;
+        this.pool = pool;
+        this.threshold = threshold;
+        this.minChunk = minChunk;
+    }
+
+    @Override
+    public boolean matches(CharSequence str)
+    {
+        int length = str.length();
+        if (length < threshold) {
+            return table.matches(str);
+        }
+        int chunk = Math.max(minChunk, length / (pool.getParallelism() * 4));
+        int[] function = pool.invoke(new ChunkTask(str, 0, length, chunk, true));
+        int state = function[table.getStart()];
+        return state != DFATransitionTable.DEAD && table.isAccept(state);
+    }
+
+    @Override
+    public boolean matches(String str)
+    {
+        return matches((CharSequence) str);
+    }
+
+    @Override
+    public boolean matches(char[] array, int offset, int length)
+    {
+        Preconditions.checkPositionIndexes(offset, offset + length, array.length);
+        if (length < threshold) {
+            return table.matches(array, offset, length);
+        }
+        return matches(CharBuffer.wrap(array, offset, length));
+    }
+
+    /**
+     * 计算 [from, to) 的转换函数
+     *
+     * @param text 输入
+     * @param from 开始下标
+     * @param to 结束下标(不包含)
+     * @param startOnly 是否只从 DFA 的起始状态开始
+     * @return 起始状态 -> 结束状态
+     */
+    int[] transitionFunction(CharSequence text, int from, int to, boolean startOnly)
+    {
+        final DFATransitionTable table = this.table;
+        int stateCount = table.getStateCount();
+        // owners[s]: 起始状态 s 当前对应的 active 下标, -1 表示已经死亡
+        int[] owners = new int[stateCount];
+        int[] active;
+        int activeCount;
+        if (startOnly) {
+            Arrays.fill(owners, -1);
+            owners[table.getStart()] = 0;
+            active = new int[] {table.getStart()};
+            activeCount = 1;
+        }
+        else {
+            active = new int[stateCount];
+            for (int s = 0; s < stateCount; s++) {
+                owners[s] = s;
+                active[s] = s;
+            }
+            activeCount = stateCount;
+        }
+        int[] next = new int[active.length];
+        int[] remap = new int[active.length];
+        int[] seen = new int[stateCount];
+        int[] seenIndex = new int[stateCount];
+        int generation = 0;
+        for (int i = from; i < to && activeCount > 0; i++) {
+            char ch = text.charAt(i);
+            if (activeCount == 1) {
+                int state = table.next(active[0], ch);
+                if (state == DFATransitionTable.DEAD) {
+                    activeCount = 0;
+                }
+                active[0] = state;
+                continue;
+            }
+            generation++;
+            int nextCount = 0;
+            for (int k = 0; k < activeCount; k++) {
+                int state = table.next(active[k], ch);
+                if (state == DFATransitionTable.DEAD) {
+                    remap[k] = -1;
+                }
+                else if (seen[state] == generation) {
+                    remap[k] = seenIndex[state];
+                }
+                else {
+                    seen[state] = generation;
+                    seenIndex[state] = nextCount;
+                    next[nextCount] = state;
+                    remap[k] = nextCount++;
+                }
+            }
+            if (nextCount != activeCount) {
+                // 有状态合并或者死亡, 更新起始状态的归属(最多发生 stateCount 次)
+                for (int s = 0; s < stateCount; s++) {
+                    if (owners[s] >= 0) {
+                        owners[s] = remap[owners[s]];
+                    }
+                }
+            }
+            int[] swap = active;
+            active = next;
+            next = swap;
+            activeCount = nextCount;
+        }
+        int[] function = new int[stateCount];
+        for (int s = 0; s < stateCount; s++) {
+            function[s] = owners[s] < 0 || activeCount == 0 ? DFATransitionTable.DEAD : active[owners[s]];
+        }
+        return function;
+    }
+
+    /**
+     * 转换函数复合: 先 first 后 second
+     */
+    private static int[] compose(int[] first, int[] second)
+    {
+        int[] function = new int[first.length];
+        for (int s = 0; s < first.length; s++) {
+            function[s] = first[s] == DFATransitionTable.DEAD ? DFATransitionTable.DEAD : second[first[s]];
+        }
+        return function;
+    }
+
+    private final class ChunkTask
+            extends RecursiveTask<int[]>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final CharSequence text;
+        private final int from;
+        private final int to;
+        private final int chunk;
+        private final boolean startOnly;
+
+        private ChunkTask(CharSequence text, int from, int to, int chunk, boolean startOnly)
+        {
+            this.text = text;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.startOnly = startOnly;
+        }
+
+        @Override
+        protected int[] compute()
+        {
+            if (to - from <= chunk) {
+                return transitionFunction(text, from, to, startOnly);
+            }
+            int mid = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(text, from, mid, chunk, startOnly);
+            left.fork();
+            int[] right = new ChunkTask(text, mid, to, chunk, false).compute();
+            return compose(left.join(), right);
+        }
+    }
+}
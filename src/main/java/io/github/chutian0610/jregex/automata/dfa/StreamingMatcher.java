@@ -0,0 +1,245 @@
+package io.github.chutian0610.jregex.automata.dfa;
+
+import com.google.common.base.Preconditions;
+import io.github.chutian0610.jregex.ast.ConcatExp;
+import io.github.chutian0610.jregex.ast.RegexExp;
+import io.github.chutian0610.jregex.ast.RepeatExp;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraph;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.function.LongConsumer;
+
+/**
+ * 流式匹配器: 输入按块(CharSequence/CharBuffer/char[]/Reader)依次喂入, 块之间只保留当前 DFA 状态和偏移量.
+ *
+ * <pre>
+ * 1. 整串匹配模式: 使用普通 DFA 转换表, 输入结束时 {@link #finish()} 返回整个流是否匹配;
+ *    到达 DEAD 状态或剩余状态无法接受时, 后续输入直接忽略。
+ * 2. 查找模式: 使用 {@link #searchTable(RegexExp)} 构造的 .*R 转换表,
+ *    每当有匹配在某个位置结束时(可跨越块边界), 回调该位置在整个流中的偏移量(不包含, 可能重叠)。
+ *    匹配的开始位置需要回看任意长度的输入, 流式场景下不保留, 因此只报告结束位置。
+ *    如果传入的是普通(锚定)转换表, 只报告从流的开始处开始的匹配, 到达 DEAD 状态后忽略后续输入。
+ *
+ * 转换表不可变, 可以被多个流共享; 匹配器本身记录单个流的状态, 非线程安全。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public final class StreamingMatcher
+{
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final DFATransitionTable table;
+    private final LongConsumer listener;
+    private int state;
+    private long offset;
+    private boolean finished;
+
+    /**
+     * 整串匹配模式
+     *
+     * @param table DFA 转换表
+     */
+    public StreamingMatcher(DFATransitionTable table)
+    {
+        this(table, null);
+    }
+
+    /**
+     * 查找模式
+     *
+     * @param table {@link #searchTable(RegexExp)} 构造的转换表(普通转换表只报告从流的开始处开始的匹配)
+     * @param listener 匹配结束位置回调, 为 null 时为整串匹配模式
+     */
+    public StreamingMatcher(DFATransitionTable table, LongConsumer listener)
+    {
+        this.table = table;
+        this.listener = listener;
+        reset();
+    }
+
+    /**
+     * 构造查找模式使用的转换表(表达式前加上 .*)
+     *
+     * @param regexExp 表达式
+     * @return 最小化 DFA 的转换表
+     */
+    public static DFATransitionTable searchTable(RegexExp regexExp)
+    {
+        return DFATransitionTable.of(NFAGraph.build(new ConcatExp(RepeatExp.anyString(), regexExp)).toDFA().simplify());
+    }
+
+    /**
+     * 回到流的开始, 可以复用匹配器处理下一个流
+     */
+    public void reset()
+    {
+        state = table.getStart();
+        offset = 0;
+        finished = false;
+        if (listener != null && table.isAccept(state)) {
+            // 空匹配在流的开始处结束
+            listener.accept(0);
+        }
+    }
+
+    public StreamingMatcher feed(CharSequence chunk)
+    {
+        checkNotFinished();
+        int length = chunk.length();
+        int current = state;
+        if (listener == null) {
+            for (int i = 0; i < length && current != DFATransitionTable.DEAD; i++) {
+                current = step(current, chunk.charAt(i));
+            }
+        }
+        else {
+            for (int i = 0; i < length && current != DFATransitionTable.DEAD; i++) {
+                current = search(current, chunk.charAt(i), offset + i + 1);
+            }
+        }
+        state = current;
+        offset += length;
+        return this;
+    }
+
+    public StreamingMatcher feed(char[] chunk)
+    {
+        return feed(chunk, 0, chunk.length);
+    }
+
+    /**
+     * 喂入 chunk[from, from + length)
+     *
+     * @param chunk 字符数组
+     * @param from 开始下标
+     * @param length 长度
+     * @return this
+     */
+    public StreamingMatcher feed(char[] chunk, int from, int length)
+    {
+        Preconditions.checkPositionIndexes(from, from + length, chunk.length);
+        checkNotFinished();
+        int current = state;
+        if (listener == null) {
+            for (int i = from, end = from + length; i < end && current != DFATransitionTable.DEAD; i++) {
+                current = step(current, chunk[i]);
+            }
+        }
+        else {
+            long base = offset - from + 1;
+            for (int i = from, end = from + length; i < end && current != DFATransitionTable.DEAD; i++) {
+                current = search(current, chunk[i], base + i);
+            }
+        }
+        state = current;
+        offset += length;
+        return this;
+    }
+
+    /**
+     * 喂入 buffer 中剩余的字符, 并将 position 移动到 limit
+     *
+     * @param buffer 字符缓冲区
+     * @return this
+     */
+    public StreamingMatcher feed(CharBuffer buffer)
+    {
+        int remaining = buffer.remaining();
+        if (buffer.hasArray()) {
+            feed(buffer.array(), buffer.arrayOffset() + buffer.position(), remaining);
+        }
+        else {
+            feed((CharSequence) buffer);
+        }
+        buffer.position(buffer.limit());
+        return this;
+    }
+
+    /**
+     * 读取 reader 直到结束(不关闭 reader)
+     *
+     * @param reader 输入
+     * @return this
+     * @throws IOException 读取失败
+     */
+    public StreamingMatcher feed(Reader reader)
+            throws IOException
+    {
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            feed(buffer, 0, read);
+        }
+        return this;
+    }
+
+    /**
+     * 结束输入
+     *
+     * @return 整个流是否匹配(查找模式下为最后一个位置是否是匹配的结束位置)
+     */
+    public boolean finish()
+    {
+        finished = true;
+        return isAccept();
+    }
+
+    /**
+     * 已经喂入的输入是否匹配
+     *
+     * @return 是否匹配
+     */
+    public boolean isAccept()
+    {
+        return state != DFATransitionTable.DEAD && table.isAccept(state);
+    }
+
+    /**
+     * 整串匹配模式下, 之后的任何输入都不可能再匹配
+     *
+     * @return 是否已经拒绝
+     */
+    public boolean isRejected()
+    {
+        return state == DFATransitionTable.DEAD;
+    }
+
+    /**
+     * 已经喂入的字符数
+     *
+     * @return 偏移量
+     */
+    public long getOffset()
+    {
+        return offset;
+    }
+
+    public int getState()
+    {
+        return state;
+    }
+
+    private int step(int current, char ch)
+    {
+        int next = table.next(current, ch);
+        return next == DFATransitionTable.DEAD || table.isDead(next) ? DFATransitionTable.DEAD : next;
+    }
+
+    private int search(int current, char ch, long end)
+    {
+        // .*R 转换表不会到达 DEAD 状态, 普通转换表到达 DEAD 状态后不会再有匹配
+        int next = step(current, ch);
+        if (next != DFATransitionTable.DEAD && table.isAccept(next)) {
+            listener.accept(end);
+        }
+        return next;
+    }
+
+    private void checkNotFinished()
+    {
+        Preconditions.checkState(!finished, "stream already finished");
+    }
+}
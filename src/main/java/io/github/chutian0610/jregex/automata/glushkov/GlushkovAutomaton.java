@@ -0,0 +1,312 @@
+package io.github.chutian0610.jregex.automata.glushkov;
+
+import io.github.chutian0610.jregex.ast.CharClassExp;
+import io.github.chutian0610.jregex.ast.CharExp;
+import io.github.chutian0610.jregex.ast.CharRangeExp;
+import io.github.chutian0610.jregex.ast.ConcatExp;
+import io.github.chutian0610.jregex.ast.MetaCharExp;
+import io.github.chutian0610.jregex.ast.OrExp;
+import io.github.chutian0610.jregex.ast.RegexExp;
+import io.github.chutian0610.jregex.ast.RegexExpVisitor;
+import io.github.chutian0610.jregex.ast.RepeatExp;
+import io.github.chutian0610.jregex.misc.CharClassMap;
+import io.github.chutian0610.jregex.misc.CharRange;
+import io.github.chutian0610.jregex.misc.CharRanges;
+import io.github.chutian0610.jregex.misc.MetaChars;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import static io.github.chutian0610.jregex.misc.CharRanges.fromRegexCharExprs;
+
+/**
+ * Glushkov(位置)自动机.
+ *
+ * <pre>
+ * 正则中的每个字符(字符类/元字符)是一个位置, 位置编号为 [1, positionCount], 0 为初始状态。
+ * 状态即位置, 进入位置 p 的转换都由位置 p 的字符区间触发, 因此没有 ϵ 边;
+ * follow(p) 记录位置 p 之后可以出现的位置, follow(0) 即 first 集合。
+ * 有界重复会像 Thompson 构造一样展开为多个副本。
+ * </pre>
+ *
+ * @author victorchu
+ */
+@Getter
+public class GlushkovAutomaton
+{
+    /**
+     * 位置数(不含初始状态)
+     */
+    private final int positionCount;
+    /**
+     * 位置 -> 字符区间, 下标 0 为空
+     */
+    private final List<List<CharRange>> positionRanges;
+    /**
+     * 位置 -> follow 集合
+     */
+    private final List<BitSet> follows;
+    /**
+     * 接受状态集合(last 集合, 可空时包含初始状态 0)
+     */
+    private final BitSet accepts;
+    private final CharClassMap alphabet;
+
+    private GlushkovAutomaton(List<List<CharRange>> positionRanges, List<BitSet> follows, BitSet accepts)
+    {
+        this.positionCount = positionRanges.size() - 1;
+        this.positionRanges = positionRanges;
+        this.follows = follows;
+        this.accepts = accepts;
+        List<CharRange> ranges = new ArrayList<>();
+        positionRanges.forEach(ranges::addAll);
+        this.alphabet = CharClassMap.of(ranges);
+    }
+
+    public static GlushkovAutomaton of(RegexExp regexExp)
+    {
+        Builder builder = new Builder();
+        Fragment root = builder.process(regexExp, null);
+        builder.follows.get(0).or(root.first);
+        BitSet accepts = (BitSet) root.last.clone();
+        if (root.nullable) {
+            accepts.set(0);
+        }
+        return new GlushkovAutomaton(builder.positionRanges, builder.follows, accepts);
+    }
+
+    /**
+     * 计算展开后的位置数, 不实际构建自动机.
+     *
+     * @param regexExp 正则表达式
+     * @return 位置数
+     */
+    public static long countPositions(RegexExp regexExp)
+    {
+        return PositionCounter.INSTANCE.process(regexExp, null);
+    }
+
+    /**
+     * 位置的字符区间覆盖的等价类
+     *
+     * @param position 位置
+     * @return 等价类集合
+     */
+    public BitSet classesOf(int position)
+    {
+        BitSet classes = new BitSet(alphabet.getClassCount());
+        for (CharRange range : positionRanges.get(position)) {
+            for (int classId : alphabet.classesOf(range)) {
+                classes.set(classId);
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * 子表达式的 first/last 集合
+     */
+    private static class Fragment
+    {
+        private final boolean nullable;
+        private final BitSet first;
+        private final BitSet last;
+
+        private Fragment(boolean nullable, BitSet first, BitSet last)
+        {
+            this.nullable = nullable;
+            this.first = first;
+            this.last = last;
+        }
+
+        private static Fragment empty()
+        {
+            return new Fragment(true, new BitSet(), new BitSet());
+        }
+
+        private Fragment optional()
+        {
+            return new Fragment(true, first, last);
+        }
+    }
+
+    private static class Builder
+            implements RegexExpVisitor<Fragment, Void>
+    {
+        private final List<List<CharRange>> positionRanges = new ArrayList<>();
+        private final List<BitSet> follows = new ArrayList<>();
+
+        private Builder()
+        {
+            positionRanges.add(Collections.emptyList());
+            follows.add(new BitSet());
+        }
+
+        private Fragment position(List<CharRange> ranges)
+        {
+            int position = positionRanges.size();
+            positionRanges.add(ranges);
+            follows.add(new BitSet());
+            BitSet set = new BitSet();
+            set.set(position);
+            return new Fragment(false, set, (BitSet) set.clone());
+        }
+
+        private Fragment concat(Fragment left, Fragment right)
+        {
+            for (int p = left.last.nextSetBit(0); p >= 0; p = left.last.nextSetBit(p + 1)) {
+                follows.get(p).or(right.first);
+            }
+            BitSet first = (BitSet) left.first.clone();
+            if (left.nullable) {
+                first.or(right.first);
+            }
+            BitSet last = (BitSet) right.last.clone();
+            if (right.nullable) {
+                last.or(left.last);
+            }
+            return new Fragment(left.nullable && right.nullable, first, last);
+        }
+
+        private void loop(Fragment fragment)
+        {
+            for (int p = fragment.last.nextSetBit(0); p >= 0; p = fragment.last.nextSetBit(p + 1)) {
+                follows.get(p).or(fragment.first);
+            }
+        }
+
+        @Override
+        public Fragment visitChar(CharExp node, Void context)
+        {
+            return position(Collections.singletonList(CharRange.of(node.getCharacter())));
+        }
+
+        @Override
+        public Fragment visitCharRange(CharRangeExp node, Void context)
+        {
+            // 这个节点不会进来，在CharClassExp中会被处理掉
+            return null;
+        }
+
+        @Override
+        public Fragment visitCharClass(CharClassExp node, Void context)
+        {
+            CharRanges charRanges = fromRegexCharExprs(node.getRegexCharExpList());
+            return position(node.getNegative() ? charRanges.negative() : charRanges.reduce());
+        }
+
+        @Override
+        public Fragment visitMetaChar(MetaCharExp node, Void context)
+        {
+            return position(MetaChars.getMeta(node.getMetaName()));
+        }
+
+        @Override
+        public Fragment visitConcat(ConcatExp node, Void context)
+        {
+            Fragment left = process(node.getLeft(), context);
+            Fragment right = process(node.getRight(), context);
+            return concat(left, right);
+        }
+
+        @Override
+        public Fragment visitOr(OrExp node, Void context)
+        {
+            Fragment left = process(node.getLeft(), context);
+            Fragment right = process(node.getRight(), context);
+            BitSet first = (BitSet) left.first.clone();
+            first.or(right.first);
+            BitSet last = (BitSet) left.last.clone();
+            last.or(right.last);
+            return new Fragment(left.nullable || right.nullable, first, last);
+        }
+
+        @Override
+        public Fragment visitRepeat(RepeatExp node, Void context)
+        {
+            int min = node.getMin();
+            if (node.getMax() == null) {
+                // X{n,} = X...X X+ , X* = (X+)?
+                Fragment result = Fragment.empty();
+                for (int i = 1; i < min; i++) {
+                    result = concat(result, process(node.getInner(), context));
+                }
+                Fragment tail = process(node.getInner(), context);
+                loop(tail);
+                return concat(result, min == 0 ? tail.optional() : tail);
+            }
+            // X{n,m} = X...X (X?)...(X?)
+            Fragment result = Fragment.empty();
+            for (int i = 0; i < node.getMax(); i++) {
+                Fragment copy = process(node.getInner(), context);
+                result = concat(result, i < min ? copy : copy.optional());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 计算展开后的位置数
+     */
+    private enum PositionCounter
+            implements RegexExpVisitor<Long, Void>
+    {
+        INSTANCE;
+
+        @Override
+        public Long visitChar(CharExp node, Void context)
+        {
+            return 1L;
+        }
+
+        @Override
+        public Long visitCharRange(CharRangeExp node, Void context)
+        {
+            return 1L;
+        }
+
+        @Override
+        public Long visitCharClass(CharClassExp node, Void context)
+        {
+            return 1L;
+        }
+
+        @Override
+        public Long visitConcat(ConcatExp node, Void context)
+        {
+            return saturatedAdd(process(node.getLeft(), context), process(node.getRight(), context));
+        }
+
+        @Override
+        public Long visitOr(OrExp node, Void context)
+        {
+            return saturatedAdd(process(node.getLeft(), context), process(node.getRight(), context));
+        }
+
+        @Override
+        public Long visitRepeat(RepeatExp node, Void context)
+        {
+            long copies = node.getMax() == null ? Math.max(node.getMin(), 1) : node.getMax();
+            long inner = process(node.getInner(), context);
+            if (copies != 0 && inner > Long.MAX_VALUE / copies) {
+                return Long.MAX_VALUE;
+            }
+            return inner * copies;
+        }
+
+        @Override
+        public Long visitMetaChar(MetaCharExp node, Void context)
+        {
+            return 1L;
+        }
+
+        private static long saturatedAdd(long left, long right)
+        {
+            long sum = left + right;
+            return sum < 0 ? Long.MAX_VALUE : sum;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.chutian0610.jregex.automata.glushkov;
+
+import com.google.common.base.Preconditions;
+import io.github.chutian0610.jregex.automata.GraphMatcher;
+import io.github.chutian0610.jregex.misc.CharClassMap;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 位并行 Glushkov 匹配器(Shift-And), 状态集合编码在一个 long 中.
+ *
+ * <pre>
+ * 位 i 表示 Glushkov 位置 i 是否活跃(位 0 为初始状态), 每个等价类预先计算位置掩码 B[c]。
+ * 大部分 follow 关系是 i -> i+1, 用移位一次完成:
+ *   D' = (((D &amp; shiftable) &lt;&lt; 1) | T(D)) &amp; B[c]
+ * 其余 follow 关系 T(D) 按字节分块查表。
+ * 不需要确定化, 构建代价只和位置数相关。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public class ShiftAndMatcher
+        implements GraphMatcher
+{
+    /**
+     * 可以容纳的最大位置数(位 0 留给初始状态)
+     */
+    public static final int MAX_POSITIONS = Long.SIZE - 1;
+
+    private static final int CHUNK_BITS = 8;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private final CharClassMap alphabet;
+    /**
+     * 等价类 -> 位置掩码
+     */
+    private final long[] classMasks;
+    /**
+     * 位置 i 的 follow 包含 i+1
+     */
+    private final long shiftable;
+    /**
+     * 存在非 i+1 的 follow 关系的分块
+     */
+    private final int[] exceptionChunks;
+    /**
+     * exceptionTable[chunk * 256 + byte]: 分块中活跃位置的非 i+1 follow 并集
+     */
+    private final long[] exceptionTable;
+    private final long accepts;
+
+    public ShiftAndMatcher(GlushkovAutomaton automaton)
+    {
+        int positions = automaton.getPositionCount();
+        Preconditions.checkArgument(positions <= MAX_POSITIONS, "too many positions: %s", positions);
+        this.alphabet = automaton.getAlphabet();
+        this.classMasks = new long[alphabet.getClassCount()];
+        for (int p = 1; p <= positions; p++) {
+            BitSet classes = automaton.classesOf(p);
+            for (int c = classes.nextSetBit(0); c >= 0; c = classes.nextSetBit(c + 1)) {
+                classMasks[c] |= 1L << p;
+            }
+        }
+        long shift = 0;
+        long[] extra = new long[positions + 1];
+        for (int p = 0; p <= positions; p++) {
+            BitSet follow = (BitSet) automaton.getFollows().get(p).clone();
+            if (follow.get(p + 1)) {
+                shift |= 1L << p;
+                follow.clear(p + 1);
+            }
+            extra[p] = follow.isEmpty() ? 0 : follow.toLongArray()[0];
+        }
+        this.shiftable = shift;
+        int chunkCount = (positions + CHUNK_BITS) / CHUNK_BITS;
+        int[] chunks = new int[chunkCount];
+        int used = 0;
+        long[] table = new long[chunkCount * CHUNK_SIZE];
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            boolean hasException = false;
+            for (int value = 0; value < CHUNK_SIZE; value++) {
+                long union = 0;
+                for (int bit = 0; bit < CHUNK_BITS; bit++) {
+                    int p = chunk * CHUNK_BITS + bit;
+                    if ((value & (1 << bit)) != 0 && p <= positions) {
+                        union |= extra[p];
+                    }
+                }
+                table[used * CHUNK_SIZE + value] = union;
+                hasException |= union != 0;
+            }
+            if (hasException) {
+                chunks[used++] = chunk;
+            }
+        }
+        this.exceptionChunks = Arrays.copyOf(chunks, used);
+        this.exceptionTable = Arrays.copyOf(table, used * CHUNK_SIZE);
+        this.accepts = automaton.getAccepts().isEmpty() ? 0 : automaton.getAccepts().toLongArray()[0];
+    }
+
+    @Override
+    public boolean matches(CharSequence str)
+    {
+        final long[] classMasks = this.classMasks;
+        final int[] exceptionChunks = this.exceptionChunks;
+        final long[] exceptionTable = this.exceptionTable;
+        long state = 1L;
+        for (int i = 0, length = str.length(); i < length; i++) {
+            long next = (state & shiftable) << 1;
+            for (int j = 0; j < exceptionChunks.length; j++) {
+                int value = (int) (state >>> (exceptionChunks[j] * CHUNK_BITS)) & (CHUNK_SIZE - 1);
+                next |= exceptionTable[j * CHUNK_SIZE + value];
+            }
+            state = next & classMasks[alphabet.classOf(str.charAt(i))];
+            if (state == 0) {
+                return false;
+            }
+        }
+        return (state & accepts) != 0;
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.chutian0610.jregex.automata.glushkov;
+
+import com.google.common.base.Preconditions;
+import io.github.chutian0610.jregex.automata.GraphMatcher;
+import io.github.chutian0610.jregex.misc.CharClassMap;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 位并行 Glushkov 匹配器(Shift-And), 状态集合编码在 long[] 中, 用于超过 63 个位置的表达式.
+ *
+ * <pre>
+ * 跨字移位时把上一个字的最高位进位到下一个字,
+ * 非 i+1 的 follow 关系只对活跃的例外位置逐个合并。
+ * </pre>
+ *
+ * @author victorchu
+ * @see ShiftAndMatcher
+ */
+public class WideShiftAndMatcher
+        implements GraphMatcher
+{
+    /**
+     * 可以容纳的最大位置数
+     */
+    public static final int MAX_POSITIONS = 1023;
+
+    private final CharClassMap alphabet;
+    private final int words;
+    /**
+     * classMasks[classId * words + word]
+     */
+    private final long[] classMasks;
+    private final long[] shiftable;
+    /**
+     * 存在非 i+1 的 follow 关系的位置
+     */
+    private final long[] exceptionMask;
+    /**
+     * 位置 -> 非 i+1 的 follow 集合
+     */
+    private final long[][] exceptions;
+    private final long[] accepts;
+
+    public WideShiftAndMatcher(GlushkovAutomaton automaton)
+    {
+        int positions = automaton.getPositionCount();
+        Preconditions.checkArgument(positions <= MAX_POSITIONS, "too many positions: %s", positions);
+        this.alphabet = automaton.getAlphabet();
+        this.words = (positions + Long.SIZE) / Long.SIZE;
+        this.classMasks = new long[alphabet.getClassCount() * words];
+        for (int p = 1; p <= positions; p++) {
+            BitSet classes = automaton.classesOf(p);
+            for (int c = classes.nextSetBit(0); c >= 0; c = classes.nextSetBit(c + 1)) {
+                classMasks[c * words + (p >>> 6)] |= 1L << p;
+            }
+        }
+        this.shiftable = new long[words];
+        this.exceptionMask = new long[words];
+        this.exceptions = new long[positions + 1][];
+        for (int p = 0; p <= positions; p++) {
+            BitSet follow = (BitSet) automaton.getFollows().get(p).clone();
+            if (follow.get(p + 1)) {
+                shiftable[p >>> 6] |= 1L << p;
+                follow.clear(p + 1);
+            }
+            if (!follow.isEmpty()) {
+                exceptionMask[p >>> 6] |= 1L << p;
+                exceptions[p] = Arrays.copyOf(follow.toLongArray(), words);
+            }
+        }
+        this.accepts = Arrays.copyOf(automaton.getAccepts().toLongArray(), words);
+    }
+
+    @Override
+    public boolean matches(CharSequence str)
+    {
+        final int words = this.words;
+        // 当前状态和下一个状态共用一个数组, 每次调用只分配一次, 两半交替使用
+        long[] states = new long[words * 2];
+        int state = 0;
+        int next = words;
+        states[0] = 1L;
+        for (int i = 0, length = str.length(); i < length; i++) {
+            long carry = 0;
+            for (int w = 0; w < words; w++) {
+                long shifted = states[state + w] & shiftable[w];
+                states[next + w] = (shifted << 1) | carry;
+                carry = shifted >>> (Long.SIZE - 1);
+            }
+            for (int w = 0; w < words; w++) {
+                long active = states[state + w] & exceptionMask[w];
+                while (active != 0) {
+                    long[] follow = exceptions[(w << 6) + Long.numberOfTrailingZeros(active)];
+                    for (int k = 0; k < words; k++) {
+                        states[next + k] |= follow[k];
+                    }
+                    active &= active - 1;
+                }
+            }
+            int offset = alphabet.classOf(str.charAt(i)) * words;
+            long any = 0;
+            for (int w = 0; w < words; w++) {
+                states[next + w] &= classMasks[offset + w];
+                any |= states[next + w];
+            }
+            if (any == 0) {
+                return false;
+            }
+            int swap = state;
+            state = next;
+            next = swap;
+        }
+        for (int w = 0; w < words; w++) {
+            if ((states[state + w] & accepts[w]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,28 +1,37 @@
 package io.github.chutian0610.jregex.automata.nfa;
 
-import com.google.common.collect.Sets;
 import io.github.chutian0610.jregex.ast.RegexExp;
 import io.github.chutian0610.jregex.automata.Edge;
 import io.github.chutian0610.jregex.automata.Graph;
 import io.github.chutian0610.jregex.automata.State;
 import io.github.chutian0610.jregex.automata.StateManager;
 import io.github.chutian0610.jregex.automata.dfa.DFAGraph;
-import io.github.chutian0610.jregex.automata.edge.EpsilonEdge;
 import io.github.chutian0610.jregex.automata.state.GenericStateManager;
 import io.github.chutian0610.jregex.automata.Transition;
+import io.github.chutian0610.jregex.misc.CharClassMap;
+import io.github.chutian0610.jregex.misc.CharRange;
 import io.github.chutian0610.jregex.misc.CharRanges;
+import io.github.chutian0610.jregex.misc.IntArrayInterner;
+import io.github.chutian0610.jregex.misc.Pair;
+import io.github.chutian0610.jregex.misc.SparseSet;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.TreeSet;
 
 /**
  * @author victorchu
@@ -37,6 +46,19 @@ public class NFAGraph
     private State start;
     @NonNull
     private StateManager stateManager;
+    /**
+     * 惰性计算的字符等价类和紧凑表示, volatile 保证多个线程读取时看到完整构建的对象
+     * (并发首次调用可能各自计算一次, 结果相同, 重复计算无害)
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile CharClassMap alphabet;
+    @Getter(AccessLevel.NONE)
+    private volatile NFATable table;
+    /**
+     * 多模式 NFA: 接受状态ID -> 模式ID, 单模式 NFA 为 null
+     */
+    @Getter(AccessLevel.NONE)
+    private Map<Integer, Integer> acceptIds;
 
     public static NFAGraph build(RegexExp regexExp)
     {
@@ -49,86 +71,258 @@ public class NFAGraph
         return NFAGraphBuilder.INSTANCE.apply(regexExp, stateManager);
     }
 
+    /**
+     * 将多个表达式合并为一个 NFA(新的起始状态通过 ϵ 边连接每个表达式的 NFA),
+     * 每个表达式的接受状态标记为它在列表中的下标.
+     *
+     * @param regexExps 表达式列表
+     * @param stateManager 状态管理器
+     * @return 多模式 NFA
+     */
+    public static NFAGraph union(List<RegexExp> regexExps, StateManager stateManager)
+    {
+        State start = stateManager.createNFAState();
+        Map<Integer, Integer> acceptIds = new HashMap<>();
+        for (int i = 0; i < regexExps.size(); i++) {
+            NFAGraph nfaGraph = build(regexExps.get(i), stateManager);
+            start.addTransition(Edge.epsilon(), nfaGraph.getStart());
+            for (State state : nfaGraph.getStates()) {
+                if (state.isAccept()) {
+                    acceptIds.put(state.getStateId(), i);
+                }
+            }
+        }
+        NFAGraph union = NFAGraph.of(start, stateManager);
+        union.acceptIds = acceptIds;
+        return union;
+    }
+
     /**
      * 子集构造法从NFA生成DFA.
+     * <p>
+     * NFA 状态集合使用 NFATable 稠密编号的升序 int[] 表示, 通过开放寻址的驻留表去重,
+     * 只有新的 DFA 状态才会转换为原始状态ID交给 StateManager。
+     * 使用工作队列(BFS)代替递归, 状态数不受调用栈深度限制, DFA 状态ID按 BFS 顺序分配。
      *
      * @return DFAGraph
      */
     public DFAGraph toDFA()
     {
-        // 计算 ϵ−closure(0)
-        Set<Integer> startSet = computeEpsilonClosure(this.start.getStateId());
-        // 基于NFA 状态集构建 DFA
-        State state = createDFAState(startSet);
+        NFATable table = toTable();
+        // 计算 ϵ−closure(0), 基于NFA 状态集构建 DFA
+        State state = new SubsetBuilder(table).build(table.getClosure(table.getStart()));
         // 构建DFA Graph
-        return DFAGraph.of(state, stateManager, false);
+        DFAGraph dfaGraph = DFAGraph.of(state, stateManager, false, getAlphabet());
+        if (acceptIds == null) {
+            return dfaGraph;
+        }
+        // 多模式: DFA 接受状态携带 NFA 状态集合中的全部模式ID
+        Map<Integer, Set<Integer>> dfaAcceptIds = new HashMap<>();
+        for (State dfaState : dfaGraph.getStates()) {
+            Set<Integer> ids = acceptIdsOf(stateManager.getDFAMappedNFAState(dfaState));
+            if (!ids.isEmpty()) {
+                dfaAcceptIds.put(dfaState.getStateId(), ids);
+            }
+        }
+        return DFAGraph.of(state, stateManager, false, getAlphabet(), dfaAcceptIds);
     }
 
-    public boolean isNFASetAccept(Set<Integer> nfaStates){
-        return stateManager.isNFASetAccept(nfaStates);
+    /**
+     * 是否为多模式 NFA
+     *
+     * @return 接受状态是否带有模式ID
+     */
+    public boolean isTagged()
+    {
+        return acceptIds != null;
+    }
+
+    private Set<Integer> acceptIdsOf(Set<State> nfaStates)
+    {
+        Set<Integer> ids = new TreeSet<>();
+        for (State state : nfaStates) {
+            Integer id = acceptIds.get(state.getStateId());
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return ids;
     }
 
     /**
-     * 递归创建DFA 状态
+     * NFA 的紧凑表示(只构建一次), 同时也是 ϵ 闭包和 move 集合的缓存,
+     * 子集构造, NFA 匹配器和惰性 DFA 共享同一份缓存.
      *
-     * @param nfaSet
-     * @return
+     * @return NFATable
      */
-    private State createDFAState(Set<Integer> nfaSet)
+    public NFATable toTable()
     {
-        // 防止循环递归
-        Optional<State> dfaOp = stateManager.getDFAState(nfaSet);
-        if (dfaOp.isPresent()) {
-            return dfaOp.get();
-        }
-        // 构建NFA集合 对应的DFA节点
-        State dfa = stateManager.createOrGetDFAState(nfaSet);
-        Map<Edge, Set<Integer>> map = findDFAMoveTable(nfaSet);
-        if (!map.isEmpty()) {
-            // 设置DFA跳转状态
-            map.entrySet().stream()
-                    .filter((x) -> dfa.getTransitionsOfInputEdge(x.getKey()).isEmpty())
-                    .forEach(x -> {
-                        // 给DFA设置转换
-                        State state = createDFAState(x.getValue());
-                        dfa.addTransition(x.getKey(), state);
-                    });
+        NFATable result = table;
+        if (result == null) {
+            result = NFATable.of(this);
+            table = result;
         }
-        return dfa;
+        return result;
+    }
+
+    public boolean isNFASetAccept(Set<Integer> nfaStates){
+        return stateManager.isNFASetAccept(nfaStates);
     }
 
     /**
-     * 查找NFA Set 和 edge 状态move 集合
-     *
-     * @param nfaSet NFA状态
-     * @return
+     * 子集构造的工作状态, 缓冲区在所有 DFA 状态之间复用.
      */
-    private Map<Edge, Set<Integer>> findDFAMoveTable(Set<Integer> nfaSet)
+    private final class SubsetBuilder
     {
-        Map<Edge, Set<Integer>> res = new LinkedHashMap<>();
-        for (Edge edge : getAllEdgesOfStateSet(nfaSet)) {
-            res.put(edge, findDFAMoveSet(nfaSet, edge));
+        private final NFATable table;
+        /**
+         * NFA 状态集合(稠密编号) -> DFA 状态
+         */
+        private final IntArrayInterner nfaSets = new IntArrayInterner();
+        private final List<State> dfaStates = new ArrayList<>();
+        /**
+         * StateManager 中已经存在的 DFA 状态
+         */
+        private final BitSet existing = new BitSet();
+        private final SparseSet moveSet;
+        private final SparseSet classSet;
+        private final int[] buffer;
+
+        private SubsetBuilder(NFATable table)
+        {
+            this.table = table;
+            this.moveSet = new SparseSet(table.getStateCount());
+            this.classSet = new SparseSet(table.getAlphabet().getClassCount());
+            this.buffer = new int[table.getStateCount()];
+        }
+
+        /**
+         * BFS 构建 DFA: 队列即 dfaStates, 下标与 nfaSets 中的编号一一对应
+         *
+         * @param startSet 起始 NFA 状态集合(稠密编号, 升序)
+         * @return DFA 起始状态
+         */
+        private State build(int[] startSet)
+        {
+            State start = createOrGetDFAState(startSet);
+            for (int head = 0; head < dfaStates.size(); head++) {
+                if (existing.get(head)) {
+                    // StateManager 中已经存在的 DFA 状态, 转换已经构建过
+                    continue;
+                }
+                State dfa = dfaStates.get(head);
+                for (Pair<Edge, int[]> move : findDFAMoveTable(nfaSets.get(head))) {
+                    if (dfa.getTransitionsOfInputEdge(move.getLeft()).isEmpty()) {
+                        // 给DFA设置转换, 新的状态加入队列尾部
+                        dfa.addTransition(move.getLeft(), createOrGetDFAState(move.getRight()));
+                    }
+                }
+            }
+            return start;
+        }
+
+        /**
+         * 创建DFA 状态(不构建转换)
+         *
+         * @param nfaSet NFA 状态集合(稠密编号, 升序)
+         * @return DFA 状态
+         */
+        private State createOrGetDFAState(int[] nfaSet)
+        {
+            int index = nfaSets.intern(nfaSet);
+            if (index < dfaStates.size()) {
+                return dfaStates.get(index);
+            }
+            int[] stateIds = new int[nfaSet.length];
+            for (int i = 0; i < nfaSet.length; i++) {
+                stateIds[i] = table.getStateId(nfaSet[i]);
+            }
+            Arrays.sort(stateIds);
+            Optional<State> dfaOp = stateManager.getDFAState(stateIds);
+            if (dfaOp.isPresent()) {
+                existing.set(index);
+                dfaStates.add(dfaOp.get());
+                return dfaOp.get();
+            }
+            // 构建NFA集合 对应的DFA节点
+            State dfa = stateManager.createOrGetDFAState(stateIds);
+            dfaStates.add(dfa);
+            return dfa;
+        }
+
+        /**
+         * 查找NFA Set 和 edge 状态move 集合.
+         * <p>
+         * 先在等价类上计算 move 集合, 再将去向相同的等价类合并为字符区间作为 DFA 的边。
+         *
+         * @param nfaSet NFA状态(稠密编号)
+         * @return 按起始字符排序的 (边, move 集合)
+         */
+        private List<Pair<Edge, int[]>> findDFAMoveTable(int[] nfaSet)
+        {
+            // 集合中状态覆盖的等价类
+            classSet.clear();
+            for (int state : nfaSet) {
+                for (int classId : table.getClasses(state)) {
+                    classSet.add(classId);
+                }
+            }
+            int[] classes = classSet.toSortedArray();
+            // 去向相同的等价类合并为字符区间
+            IntArrayInterner targets = new IntArrayInterner(classes.length);
+            List<CharRanges> targetRanges = new ArrayList<>();
+            for (int classId : classes) {
+                table.move(nfaSet, classId, moveSet);
+                if (moveSet.isEmpty()) {
+                    continue;
+                }
+                int target = targets.intern(buffer, moveSet.toSortedArray(buffer));
+                if (target == targetRanges.size()) {
+                    targetRanges.add(new CharRanges());
+                }
+                targetRanges.get(target).addRanges(getAlphabet().rangesOf(classId));
+            }
+            List<Pair<CharRange, int[]>> ranges = new ArrayList<>();
+            for (int target = 0; target < targetRanges.size(); target++) {
+                int[] targetSet = targets.get(target);
+                targetRanges.get(target).reduce().forEach(range -> ranges.add(Pair.of(range, targetSet)));
+            }
+            // 区间互不相交, 按起始字符排序
+            ranges.sort(Comparator.comparingInt(x -> x.getLeft().getFrom()));
+            List<Pair<Edge, int[]>> moves = new ArrayList<>(ranges.size());
+            for (Pair<CharRange, int[]> range : ranges) {
+                moves.add(Pair.of(Edge.fromCharRange(range.getLeft()), range.getRight()));
+            }
+            return moves;
         }
-        return res;
     }
 
     /**
-     * 获取NFA状态集合的所有有效输入
+     * NFA 的字符等价类划分, 由NFA的全部边计算一次.
      *
-     * @param nfaSet NFA 状态
-     * @return
+     * @return 字符等价类
      */
-    private List<Edge> getAllEdgesOfStateSet(Set<Integer> nfaSet)
+    public CharClassMap getAlphabet()
     {
-        // 获取对当前状态集有效的字符集(排除 epsilon)
-        return CharRanges.fromEdges(stateManager.getNfAEdges(nfaSet))
-                .expand()
-                .stream()
-                .map(Edge::fromCharRange)
-                .distinct()
-                .sorted(Comparator.comparing(Object::toString))
-                .collect(Collectors.toList());
-
+        CharClassMap result = alphabet;
+        if (result == null) {
+            List<Edge> edges = new ArrayList<>();
+            Set<Integer> marked = new HashSet<>();
+            Deque<State> queue = new ArrayDeque<>();
+            queue.add(start);
+            marked.add(start.getStateId());
+            while (!queue.isEmpty()) {
+                for (Transition transition : queue.poll().getTransitions()) {
+                    edges.add(transition.getEdge());
+                    if (marked.add(transition.getTargetId())) {
+                        queue.add(transition.getState());
+                    }
+                }
+            }
+            result = CharClassMap.fromEdges(edges);
+            alphabet = result;
+        }
+        return result;
     }
 
     /**
@@ -142,57 +336,73 @@ public class NFAGraph
     {
         Set<Integer> res = new HashSet<>();
         for (Integer s : nfaSet) {
-            Set<Transition> next = stateManager.tryGetNFAState(s).getTransitionsOfInputEdge(edge);
-            if (!next.isEmpty()) {
-                Set<Integer> marked = Sets.newHashSet();
-                next.forEach(x -> {
-                    res.addAll(computeEpsilonClosure(x.getState().getStateId(),marked));
-                });
+            for (Transition transition : stateManager.tryGetNFAState(s).getTransitionsOfInputEdge(edge)) {
+                res.addAll(computeEpsilonClosure(transition.getTargetId()));
             }
         }
         return res;
     }
 
     /**
-     * 找到 NFA 状态的 ϵ 闭包.
-     * 从 NFA 状态 s 出发，只通过 ϵ 边能到达的状态集合
+     * 查找NFA集合应用某个等价类输入的转换结果集
      *
-     * @param state 初始状态Id
-     * @return ϵ 闭包
+     * @param nfaSet NFA状态集合
+     * @param classId 输入字符的等价类
+     * @return
      */
-    public Set<Integer> computeEpsilonClosure(Integer state)
-    {
-        return dfsComputeEpsilonClosure(state, new HashSet<>());
-    }
-
-    private Set<Integer> computeEpsilonClosure(Integer state,Set<Integer> marked)
+    public Set<Integer> findDFAMoveSet(Set<Integer> nfaSet, int classId)
     {
-        return dfsComputeEpsilonClosure(state, Sets.newHashSet(marked));
+        NFATable table = toTable();
+        Set<Integer> res = new HashSet<>();
+        for (Integer s : nfaSet) {
+            int index = table.indexOf(s);
+            if (index >= 0) {
+                for (int next : table.moveOf(index, classId)) {
+                    res.add(table.getStateId(next));
+                }
+                continue;
+            }
+            // 从起始状态不可达的状态不在 NFATable 中, 直接按等价类的代表字符查找转换
+            char ch = getAlphabet().representativeOf(classId);
+            for (Transition transition : stateManager.tryGetNFAState(s).getTransitions()) {
+                CharRange range = CharClassMap.toCharRange(transition.getEdge());
+                if (range != null && range.getFrom() <= ch && ch <= range.getTo()) {
+                    res.addAll(computeEpsilonClosure(transition.getTargetId()));
+                }
+            }
+        }
+        return res;
     }
 
     /**
-     * 找到状态的 ϵ 闭包
+     * 找到 NFA 状态的 ϵ 闭包.
+     * 从 NFA 状态 s 出发，只通过 ϵ 边能到达的状态集合;
+     * 可达状态的结果来自预先计算的闭包表, 从起始状态不可达的状态直接沿 ϵ 边遍历计算
      *
-     * @param state 初始状态
-     * @param marked 已标记的状态
+     * @param state 初始状态Id
      * @return ϵ 闭包
      */
-    private Set<Integer> dfsComputeEpsilonClosure(Integer state, Set<Integer> marked)
+    public Set<Integer> computeEpsilonClosure(Integer state)
     {
-        State current = stateManager.tryGetNFAState(state);
+        NFATable table = toTable();
+        int index = table.indexOf(state);
         Set<Integer> result = new HashSet<>();
-        if (!marked.contains(state)) {
-            // 记录当前节点
-            result.add(state);
+        if (index >= 0) {
+            for (int next : table.getClosure(index)) {
+                result.add(table.getStateId(next));
+            }
+            return result;
+        }
+        Deque<State> stack = new ArrayDeque<>();
+        stack.push(stateManager.tryGetNFAState(state));
+        result.add(state);
+        while (!stack.isEmpty()) {
+            for (Transition transition : stack.pop().getTransitions()) {
+                if (CharClassMap.toCharRange(transition.getEdge()) == null && result.add(transition.getTargetId())) {
+                    stack.push(transition.getState());
+                }
+            }
         }
-        current.getTransitionsOfInputEdge(EpsilonEdge.INSTANCE).stream()
-                // 记录未标记节点
-                .filter(s -> !marked.contains(s.getState().getStateId())).map(s -> {
-                    result.add(s.getState().getStateId());
-                    marked.add(s.getState().getStateId());
-                    // 记录next节点的 ϵ 闭包
-                    return dfsComputeEpsilonClosure(s.getState().getStateId(), marked);
-                }).forEach(result::addAll);
         return result;
     }
 }
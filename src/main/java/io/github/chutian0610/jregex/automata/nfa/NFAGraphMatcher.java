@@ -1,31 +1,48 @@
 package io.github.chutian0610.jregex.automata.nfa;
 
-import io.github.chutian0610.jregex.automata.Edge;
 import io.github.chutian0610.jregex.automata.GraphMatcher;
-
-import java.util.Set;
+import io.github.chutian0610.jregex.misc.CharClassMap;
+import io.github.chutian0610.jregex.misc.SparseSet;
 
 /**
  * NFA 匹配器
+ * <p>
+ * 使用 NFATable 中预先计算的 ϵ 闭包和缓存的 move 集合模拟 NFA, 每次匹配只分配两个稀疏集合。
  *
  * @author victorchu
  */
 public class NFAGraphMatcher implements GraphMatcher
 {
-    private final NFAGraph nfaGraph;
+    private final NFATable table;
 
     public NFAGraphMatcher(NFAGraph nfaGraph) {
-        this.nfaGraph = nfaGraph;
+        this.table = nfaGraph.toTable();
     }
 
     @Override
-    public boolean matches(String str)
+    public boolean matches(CharSequence str)
     {
-      Set<Integer> set= nfaGraph.computeEpsilonClosure(nfaGraph.getStart().getStateId());
-      for (int i = 0, length = str.length(); i < length; i++) {
-          char ch = str.charAt(i);
-          set = nfaGraph.findDFAMoveSet(set,Edge.character(ch));
-      }
-        return nfaGraph.isNFASetAccept(set);
+        CharClassMap alphabet = table.getAlphabet();
+        SparseSet current = new SparseSet(table.getStateCount());
+        SparseSet next = new SparseSet(table.getStateCount());
+        table.addEpsilonClosure(table.getStart(), current);
+        for (int i = 0, length = str.length(); i < length && !current.isEmpty(); i++) {
+            int classId = alphabet.classOf(str.charAt(i));
+            next.clear();
+            for (int j = 0, size = current.size(); j < size; j++) {
+                for (int state : table.moveOf(current.get(j), classId)) {
+                    next.add(state);
+                }
+            }
+            SparseSet swap = current;
+            current = next;
+            next = swap;
+        }
+        for (int j = 0, size = current.size(); j < size; j++) {
+            if (table.isAccept(current.get(j))) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,453 @@
+package io.github.chutian0610.jregex.automata.nfa;
+
+import io.github.chutian0610.jregex.automata.State;
+import io.github.chutian0610.jregex.automata.Transition;
+import io.github.chutian0610.jregex.misc.CharClassMap;
+import io.github.chutian0610.jregex.misc.CharRange;
+import io.github.chutian0610.jregex.misc.SparseSet;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * NFA 的紧凑(int 数组)表示, 构建完成后不可变.
+ *
+ * <pre>
+ * 状态按照 BFS 顺序重新编号为 [0, stateCount) 的稠密整数, 起始状态为 0(反向 NFA 除外)。
+ * 每个状态的 ϵ 边保存在 epsilons[state] 中,
+ * 字符边保存为平行数组 edgeFrom[state][i], edgeTo[state][i], edgeTargets[state][i]。
+ *
+ * 构建时使用迭代的方式预先计算每个状态的 ϵ 闭包(closures[state], 升序);
+ * (状态, 等价类) 的 move 集合在第一次使用时计算并缓存, 只有状态字符边覆盖的等价类才占用缓存槽,
+ * 每个状态的缓存行在第一次使用时通过 CAS 创建;
+ * 缓存使用 AtomicReferenceArray, 可以在多个线程之间共享(并发计算的结果相同, 重复写入无害)。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public final class NFATable
+{
+    private static final int[] EMPTY = new int[0];
+
+    private final int stateCount;
+    private final int start;
+    private final boolean[] accepts;
+    private final int[][] epsilons;
+    private final char[][] edgeFrom;
+    private final char[][] edgeTo;
+    private final int[][] edgeTargets;
+    /**
+     * 稠密编号 -> 原始状态ID
+     */
+    private final int[] stateIds;
+    /**
+     * 原始状态ID -> 稠密编号
+     */
+    private final Map<Integer, Integer> index;
+    private final CharClassMap alphabet;
+    private final int classCount;
+    /**
+     * 每个状态的 ϵ 闭包(升序)
+     */
+    private final int[][] closures;
+    /**
+     * 每个状态字符边覆盖的等价类(升序)
+     */
+    private final int[][] stateClasses;
+    /**
+     * 状态 -> (stateClasses[state] 中的下标 -> move 集合(含 ϵ 闭包, 升序)), 行和值都惰性计算
+     */
+    private final AtomicReferenceArray<AtomicReferenceArray<int[]>> moves;
+
+    private NFATable(int start, boolean[] accepts, int[][] epsilons, char[][] edgeFrom, char[][] edgeTo, int[][] edgeTargets, int[] stateIds, Map<Integer, Integer> index, CharClassMap alphabet)
+    {
+        this.stateCount = accepts.length;
+        this.start = start;
+        this.accepts = accepts;
+        this.epsilons = epsilons;
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+        this.edgeTargets = edgeTargets;
+        this.stateIds = stateIds;
+        this.index = index;
+        this.alphabet = alphabet;
+        this.classCount = alphabet.getClassCount();
+        this.closures = computeClosures();
+        this.stateClasses = computeStateClasses();
+        this.moves = new AtomicReferenceArray<>(stateCount);
+    }
+
+    public static NFATable of(NFAGraph nfaGraph)
+    {
+        // BFS 为状态编号
+        List<State> states = new ArrayList<>();
+        Map<Integer, Integer> index = new HashMap<>();
+        Deque<State> queue = new ArrayDeque<>();
+        queue.add(nfaGraph.getStart());
+        index.put(nfaGraph.getStart().getStateId(), 0);
+        while (!queue.isEmpty()) {
+            State state = queue.poll();
+            states.add(state);
+            for (Transition transition : state.getTransitions()) {
+                if (!index.containsKey(transition.getTargetId())) {
+                    index.put(transition.getTargetId(), index.size());
+                    queue.add(transition.getState());
+                }
+            }
+        }
+        int size = states.size();
+        boolean[] accepts = new boolean[size];
+        int[][] epsilons = new int[size][];
+        char[][] edgeFrom = new char[size][];
+        char[][] edgeTo = new char[size][];
+        int[][] edgeTargets = new int[size][];
+        int[] stateIds = new int[size];
+        for (int i = 0; i < size; i++) {
+            State state = states.get(i);
+            stateIds[i] = state.getStateId();
+            accepts[i] = state.isAccept();
+            List<Integer> epsilon = new ArrayList<>();
+            List<Transition> chars = new ArrayList<>();
+            for (Transition transition : state.getTransitions()) {
+                if (CharClassMap.toCharRange(transition.getEdge()) == null) {
+                    epsilon.add(index.get(transition.getTargetId()));
+                }
+                else {
+                    chars.add(transition);
+                }
+            }
+            epsilons[i] = epsilon.stream().mapToInt(Integer::intValue).toArray();
+            edgeFrom[i] = new char[chars.size()];
+            edgeTo[i] = new char[chars.size()];
+            edgeTargets[i] = new int[chars.size()];
+            for (int j = 0; j < chars.size(); j++) {
+                CharRange range = CharClassMap.toCharRange(chars.get(j).getEdge());
+                edgeFrom[i][j] = range.getFrom();
+                edgeTo[i][j] = range.getTo();
+                edgeTargets[i][j] = index.get(chars.get(j).getTargetId());
+            }
+        }
+        return new NFATable(0, accepts, epsilons, edgeFrom, edgeTo, edgeTargets, stateIds, index, nfaGraph.getAlphabet());
+    }
+
+    /**
+     * 构建反向 NFA(所有边反向), 用于从匹配结束位置向左查找匹配的开始位置.
+     *
+     * <pre>
+     * 反向 NFA 增加一个虚拟起始状态(编号为 stateCount, 原始状态ID为 -1), 通过 ϵ 边连接原 NFA 的所有接受状态,
+     * 原 NFA 的起始状态是反向 NFA 唯一的接受状态。
+     * </pre>
+     *
+     * @return 反向 NFA
+     */
+    public NFATable reverse()
+    {
+        int size = stateCount + 1;
+        List<List<Integer>> reverseEpsilons = new ArrayList<>();
+        List<List<Integer>> reverseEdges = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            reverseEpsilons.add(new ArrayList<>());
+            reverseEdges.add(new ArrayList<>());
+        }
+        for (int state = 0; state < stateCount; state++) {
+            for (int next : epsilons[state]) {
+                reverseEpsilons.get(next).add(state);
+            }
+            for (int i = 0; i < edgeTargets[state].length; i++) {
+                // 记录 (原状态, 边下标)
+                reverseEdges.get(edgeTargets[state][i]).add(state);
+                reverseEdges.get(edgeTargets[state][i]).add(i);
+            }
+            if (accepts[state]) {
+                reverseEpsilons.get(stateCount).add(state);
+            }
+        }
+        boolean[] reverseAccepts = new boolean[size];
+        reverseAccepts[start] = true;
+        int[][] epsilonArray = new int[size][];
+        char[][] fromArray = new char[size][];
+        char[][] toArray = new char[size][];
+        int[][] targetArray = new int[size][];
+        for (int state = 0; state < size; state++) {
+            epsilonArray[state] = reverseEpsilons.get(state).stream().mapToInt(Integer::intValue).toArray();
+            List<Integer> edges = reverseEdges.get(state);
+            int count = edges.size() / 2;
+            fromArray[state] = new char[count];
+            toArray[state] = new char[count];
+            targetArray[state] = new int[count];
+            for (int i = 0; i < count; i++) {
+                int source = edges.get(2 * i);
+                int edge = edges.get(2 * i + 1);
+                fromArray[state][i] = edgeFrom[source][edge];
+                toArray[state][i] = edgeTo[source][edge];
+                targetArray[state][i] = source;
+            }
+        }
+        int[] reverseStateIds = Arrays.copyOf(stateIds, size);
+        reverseStateIds[stateCount] = -1;
+        return new NFATable(stateCount, reverseAccepts, epsilonArray, fromArray, toArray, targetArray, reverseStateIds, index, alphabet);
+    }
+
+    /**
+     * 迭代计算所有状态的 ϵ 闭包
+     */
+    private int[][] computeClosures()
+    {
+        int[][] result = new int[stateCount][];
+        SparseSet set = new SparseSet(stateCount);
+        int[] stack = new int[stateCount];
+        for (int state = 0; state < stateCount; state++) {
+            set.clear();
+            set.add(state);
+            int top = 0;
+            stack[top++] = state;
+            while (top > 0) {
+                int current = stack[--top];
+                for (int next : epsilons[current]) {
+                    if (set.add(next)) {
+                        stack[top++] = next;
+                    }
+                }
+            }
+            result[state] = set.toSortedArray();
+        }
+        return result;
+    }
+
+    private int[][] computeStateClasses()
+    {
+        int[][] result = new int[stateCount][];
+        boolean[] marked = new boolean[classCount];
+        for (int state = 0; state < stateCount; state++) {
+            Arrays.fill(marked, false);
+            int count = 0;
+            for (int i = 0; i < edgeFrom[state].length; i++) {
+                for (int classId : alphabet.classesOf(edgeFrom[state][i], edgeTo[state][i])) {
+                    if (!marked[classId]) {
+                        marked[classId] = true;
+                        count++;
+                    }
+                }
+            }
+            int[] classes = new int[count];
+            for (int classId = 0, j = 0; j < count; classId++) {
+                if (marked[classId]) {
+                    classes[j++] = classId;
+                }
+            }
+            result[state] = classes;
+        }
+        return result;
+    }
+
+    public int getStart()
+    {
+        return start;
+    }
+
+    public int getStateCount()
+    {
+        return stateCount;
+    }
+
+    public CharClassMap getAlphabet()
+    {
+        return alphabet;
+    }
+
+    public boolean isAccept(int state)
+    {
+        return accepts[state];
+    }
+
+    /**
+     * 状态集合中是否包含接受状态
+     *
+     * @param states 状态集合
+     * @return 是否接受
+     */
+    public boolean isAccept(int[] states)
+    {
+        for (int state : states) {
+            if (accepts[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 稠密编号对应的原始状态ID
+     *
+     * @param state 稠密编号
+     * @return 原始状态ID
+     */
+    public int getStateId(int state)
+    {
+        return stateIds[state];
+    }
+
+    /**
+     * 原始状态ID对应的稠密编号
+     *
+     * @param stateId 原始状态ID
+     * @return 稠密编号, 状态不可达时返回 -1
+     */
+    public int indexOf(int stateId)
+    {
+        Integer state = index.get(stateId);
+        return state == null ? -1 : state;
+    }
+
+    /**
+     * 状态的 ϵ 闭包(包含状态自身)
+     *
+     * @param state 状态
+     * @return 升序状态数组, 调用方不能修改
+     */
+    public int[] getClosure(int state)
+    {
+        return closures[state];
+    }
+
+    /**
+     * 状态字符边覆盖的等价类
+     *
+     * @param state 状态
+     * @return 升序等价类数组, 调用方不能修改
+     */
+    public int[] getClasses(int state)
+    {
+        return stateClasses[state];
+    }
+
+    /**
+     * 单个状态在等价类输入下的转换结果集(含 ϵ 闭包), 第一次调用时计算并缓存.
+     *
+     * @param state 状态
+     * @param classId 等价类
+     * @return 升序状态数组, 调用方不能修改
+     */
+    public int[] moveOf(int state, int classId)
+    {
+        int slot = Arrays.binarySearch(stateClasses[state], classId);
+        if (slot < 0) {
+            return EMPTY;
+        }
+        AtomicReferenceArray<int[]> row = moves.get(state);
+        if (row == null) {
+            moves.compareAndSet(state, null, new AtomicReferenceArray<>(stateClasses[state].length));
+            row = moves.get(state);
+        }
+        int[] result = row.get(slot);
+        if (result == null) {
+            result = computeMove(state, classId);
+            row.lazySet(slot, result);
+        }
+        return result;
+    }
+
+    private int[] computeMove(int state, int classId)
+    {
+        char ch = alphabet.representativeOf(classId);
+        char[] from = edgeFrom[state];
+        char[] to = edgeTo[state];
+        int[] targets = edgeTargets[state];
+        int[] result = null;
+        for (int i = 0; i < from.length; i++) {
+            if (from[i] <= ch && ch <= to[i]) {
+                // Thompson NFA 中每个状态最多一条字符边, 多条时合并
+                result = result == null ? closures[targets[i]] : union(result, closures[targets[i]]);
+            }
+        }
+        return result == null ? EMPTY : result;
+    }
+
+    private static int[] union(int[] left, int[] right)
+    {
+        int[] result = new int[left.length + right.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                result[k++] = left[i++];
+            }
+            else if (left[i] > right[j]) {
+                result[k++] = right[j++];
+            }
+            else {
+                result[k++] = left[i++];
+                j++;
+            }
+        }
+        while (i < left.length) {
+            result[k++] = left[i++];
+        }
+        while (j < right.length) {
+            result[k++] = right[j++];
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    public int[] getEpsilons(int state)
+    {
+        return epsilons[state];
+    }
+
+    public int getEdgeCount(int state)
+    {
+        return edgeTargets[state].length;
+    }
+
+    public char getEdgeFrom(int state, int edge)
+    {
+        return edgeFrom[state][edge];
+    }
+
+    public char getEdgeTo(int state, int edge)
+    {
+        return edgeTo[state][edge];
+    }
+
+    public int getEdgeTarget(int state, int edge)
+    {
+        return edgeTargets[state][edge];
+    }
+
+    /**
+     * 将状态的 ϵ 闭包加入集合
+     *
+     * @param state 状态
+     * @param set 结果集合
+     */
+    public void addEpsilonClosure(int state, SparseSet set)
+    {
+        for (int next : closures[state]) {
+            set.add(next);
+        }
+    }
+
+    /**
+     * 状态集合在等价类输入下的转换结果集(含 ϵ 闭包).
+     *
+     * @param states 状态集合
+     * @param classId 等价类
+     * @param result 结果集合(会被清空)
+     */
+    public void move(int[] states, int classId, SparseSet result)
+    {
+        result.clear();
+        for (int state : states) {
+            for (int next : moveOf(state, classId)) {
+                result.add(next);
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package io.github.chutian0610.jregex.automata.nfa;
+
+import java.util.Arrays;
+
+/**
+ * Pike VM 指令序列(扁平 int 数组, 构建完成后不可变).
+ *
+ * <pre>
+ * 指令格式(pc 为指令在数组中的下标):
+ * MATCH                        接受
+ * RANGE from to next           输入字符在 [from, to] 中时跳转到 next
+ * SPLIT n t1 ... tn            ϵ 分支
+ * JMP target                   ϵ 跳转
+ *
+ * 每个 NFA 状态编译为一条指令, 出边多于一条时编译为 SPLIT, 并在其后依次放置各分支的 RANGE/MATCH 指令,
+ * ϵ 边直接指向目标状态的指令。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public final class PikeProgram
+{
+    public static final int MATCH = 0;
+    public static final int RANGE = 1;
+    public static final int SPLIT = 2;
+    public static final int JMP = 3;
+
+    private final int[] code;
+    private final int start;
+
+    private PikeProgram(int[] code, int start)
+    {
+        this.code = code;
+        this.start = start;
+    }
+
+    public static PikeProgram compile(NFAGraph nfaGraph)
+    {
+        return compile(nfaGraph.toTable());
+    }
+
+    public static PikeProgram compile(NFATable nfa)
+    {
+        int stateCount = nfa.getStateCount();
+        // 第一遍: 计算每个状态的指令起始位置
+        int[] entries = new int[stateCount];
+        int size = 0;
+        for (int state = 0; state < stateCount; state++) {
+            entries[state] = size;
+            size += stateSize(nfa, state);
+        }
+        // 第二遍: 生成指令
+        int[] code = new int[size];
+        for (int state = 0; state < stateCount; state++) {
+            int pc = entries[state];
+            int branches = branchCount(nfa, state);
+            if (branches == 0) {
+                // 没有出边的非接受状态, 编译为空 SPLIT(线程消亡)
+                code[pc] = SPLIT;
+                code[pc + 1] = 0;
+                continue;
+            }
+            if (branches == 1) {
+                emitSingle(nfa, state, entries, code, pc);
+                continue;
+            }
+            code[pc] = SPLIT;
+            code[pc + 1] = branches;
+            int slot = pc + 2;
+            int next = pc + 2 + branches;
+            for (int target : nfa.getEpsilons(state)) {
+                code[slot++] = entries[target];
+            }
+            for (int edge = 0; edge < nfa.getEdgeCount(state); edge++) {
+                code[slot++] = next;
+                next = emitRange(nfa, state, edge, entries, code, next);
+            }
+            if (nfa.isAccept(state)) {
+                code[slot] = next;
+                code[next] = MATCH;
+            }
+        }
+        return new PikeProgram(code, entries[nfa.getStart()]);
+    }
+
+    private static int branchCount(NFATable nfa, int state)
+    {
+        return nfa.getEpsilons(state).length + nfa.getEdgeCount(state) + (nfa.isAccept(state) ? 1 : 0);
+    }
+
+    private static int stateSize(NFATable nfa, int state)
+    {
+        int branches = branchCount(nfa, state);
+        if (branches == 0) {
+            return 2;
+        }
+        if (branches == 1) {
+            if (nfa.isAccept(state)) {
+                return 1;
+            }
+            return nfa.getEdgeCount(state) == 1 ? 4 : 2;
+        }
+        return 2 + branches + nfa.getEdgeCount(state) * 4 + (nfa.isAccept(state) ? 1 : 0);
+    }
+
+    private static void emitSingle(NFATable nfa, int state, int[] entries, int[] code, int pc)
+    {
+        if (nfa.isAccept(state)) {
+            code[pc] = MATCH;
+        }
+        else if (nfa.getEdgeCount(state) == 1) {
+            emitRange(nfa, state, 0, entries, code, pc);
+        }
+        else {
+            code[pc] = JMP;
+            code[pc + 1] = entries[nfa.getEpsilons(state)[0]];
+        }
+    }
+
+    private static int emitRange(NFATable nfa, int state, int edge, int[] entries, int[] code, int pc)
+    {
+        code[pc] = RANGE;
+        code[pc + 1] = nfa.getEdgeFrom(state, edge);
+        code[pc + 2] = nfa.getEdgeTo(state, edge);
+        code[pc + 3] = entries[nfa.getEdgeTarget(state, edge)];
+        return pc + 4;
+    }
+
+    public int getStart()
+    {
+        return start;
+    }
+
+    public int size()
+    {
+        return code.length;
+    }
+
+    /**
+     * 读取指令数组中的值(操作码或参数)
+     *
+     * @param pc 下标
+     * @return 值
+     */
+    public int get(int pc)
+    {
+        return code[pc];
+    }
+
+    int[] code()
+    {
+        return code;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        int pc = 0;
+        while (pc < code.length) {
+            sb.append(pc).append(": ");
+            switch (code[pc]) {
+                case MATCH:
+                    sb.append("MATCH");
+                    pc += 1;
+                    break;
+                case RANGE:
+                    sb.append("RANGE ").append(code[pc + 1]).append(' ').append(code[pc + 2]).append(" -> ").append(code[pc + 3]);
+                    pc += 4;
+                    break;
+                case SPLIT:
+                    sb.append("SPLIT ").append(Arrays.toString(Arrays.copyOfRange(code, pc + 2, pc + 2 + code[pc + 1])));
+                    pc += 2 + code[pc + 1];
+                    break;
+                default:
+                    sb.append("JMP ").append(code[pc + 1]);
+                    pc += 2;
+                    break;
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.chutian0610.jregex.automata.nfa;
+
+import io.github.chutian0610.jregex.automata.GraphMatcher;
+import io.github.chutian0610.jregex.misc.SparseSet;
+
+/**
+ * Pike VM 匹配器.
+ *
+ * <pre>
+ * 在扁平指令序列上同时模拟所有线程, 当前线程集合和下一步线程集合使用两个稀疏集合, 每个字符后交换。
+ * 每个字符的开销为 O(活跃线程数), 匹配过程中不分配对象。
+ *
+ * 线程集合和栈是可变的, 匹配器非线程安全。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public class PikeVMMatcher
+        implements GraphMatcher
+{
+    private final PikeProgram program;
+    private final int[] code;
+    private SparseSet current;
+    private SparseSet next;
+    private final int[] stack;
+
+    public PikeVMMatcher(NFAGraph nfaGraph)
+    {
+        this(PikeProgram.compile(nfaGraph));
+    }
+
+    public PikeVMMatcher(PikeProgram program)
+    {
+        this.program = program;
+        this.code = program.code();
+        this.current = new SparseSet(code.length);
+        this.next = new SparseSet(code.length);
+        this.stack = new int[code.length];
+    }
+
+    public PikeProgram getProgram()
+    {
+        return program;
+    }
+
+    @Override
+    public boolean matches(CharSequence str)
+    {
+        final int[] code = this.code;
+        current.clear();
+        addThread(program.getStart(), current);
+        for (int i = 0, length = str.length(); i < length; i++) {
+            if (current.isEmpty()) {
+                return false;
+            }
+            char ch = str.charAt(i);
+            next.clear();
+            for (int j = 0, size = current.size(); j < size; j++) {
+                int pc = current.get(j);
+                if (code[pc] == PikeProgram.RANGE && code[pc + 1] <= ch && ch <= code[pc + 2]) {
+                    addThread(code[pc + 3], next);
+                }
+            }
+            SparseSet swap = current;
+            current = next;
+            next = swap;
+        }
+        for (int j = 0, size = current.size(); j < size; j++) {
+            if (code[current.get(j)] == PikeProgram.MATCH) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 加入线程并沿 ϵ 指令(SPLIT/JMP)展开(显式栈, 无递归).
+     */
+    private void addThread(int pc, SparseSet threads)
+    {
+        final int[] code = this.code;
+        if (!threads.add(pc)) {
+            return;
+        }
+        int top = 0;
+        stack[top++] = pc;
+        while (top > 0) {
+            int current = stack[--top];
+            switch (code[current]) {
+                case PikeProgram.SPLIT:
+                    for (int k = code[current + 1] + current + 1; k > current + 1; k--) {
+                        if (threads.add(code[k])) {
+                            stack[top++] = code[k];
+                        }
+                    }
+                    break;
+                case PikeProgram.JMP:
+                    if (threads.add(code[current + 1])) {
+                        stack[top++] = code[current + 1];
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
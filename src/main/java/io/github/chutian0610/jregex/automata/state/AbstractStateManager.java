@@ -0,0 +1,177 @@
+package io.github.chutian0610.jregex.automata.state;
+
+import io.github.chutian0610.jregex.automata.State;
+import io.github.chutian0610.jregex.automata.StateManager;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 状态管理器的公共部分: 状态ID的分配, ID -> 状态的映射, 以及 DFA 状态 -> 状态集合的反向映射.
+ *
+ * <pre>
+ * 映射使用的 Map 由 {@link MapFactory} 创建(如 HashMap::new 或 ConcurrentHashMap::new),
+ * 状态集合 -> 状态的驻留由子类实现, 子类在驻留表中没有找到时调用 {@link #newDFAState(int[])}
+ * 和 {@link #newMinimizationDFAState(int[])} 创建状态并登记到公共映射中。
+ * 状态集合统一保存为升序 int[], 交给管理器后不能再修改。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public abstract class AbstractStateManager
+        implements StateManager
+{
+    /**
+     * NFA state id generator
+     */
+    private final AtomicInteger nextNFAId = new AtomicInteger(0);
+    /**
+     * DFA state id generator
+     */
+    private final AtomicInteger nextDFAId = new AtomicInteger(0);
+
+    private final Map<Integer, State> nfaStateMap;
+    private final Map<Integer, State> dfaStateMap;
+    private final Map<Integer, State> minDfaStateMap;
+    private final Map<Integer, int[]> dfa2nfaStateMap;
+    private final Map<Integer, int[]> minDfa2dfaStateMap;
+
+    protected AbstractStateManager(MapFactory mapFactory)
+    {
+        this.nfaStateMap = mapFactory.create();
+        this.dfaStateMap = mapFactory.create();
+        this.minDfaStateMap = mapFactory.create();
+        this.dfa2nfaStateMap = mapFactory.create();
+        this.minDfa2dfaStateMap = mapFactory.create();
+    }
+
+    @Override
+    public Integer getNextNFAID()
+    {
+        return nextNFAId.getAndIncrement();
+    }
+
+    @Override
+    public Integer getNextDFAID()
+    {
+        return nextDFAId.getAndIncrement();
+    }
+
+    @Override
+    public State createNFAState()
+    {
+        State nfaState = new GenericState(getNextNFAID(), false);
+        nfaStateMap.put(nfaState.getStateId(), nfaState);
+        return nfaState;
+    }
+
+    @Override
+    public Optional<State> getNFAState(Integer id)
+    {
+        return Optional.ofNullable(nfaStateMap.get(id));
+    }
+
+    @Override
+    public Optional<State> getDFAState(Integer id)
+    {
+        return Optional.ofNullable(dfaStateMap.get(id));
+    }
+
+    @Override
+    public Optional<State> getMinimizationDFAState(Integer id)
+    {
+        return Optional.ofNullable(minDfaStateMap.get(id));
+    }
+
+    @Override
+    public Set<State> getDFAMappedNFAState(State dfaState)
+    {
+        Set<State> result = new HashSet<>();
+        for (int id : dfa2nfaStateMap.get(dfaState.getStateId())) {
+            getNFAState(id).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public Set<State> getMinDFAMappedDFAState(State dfaState)
+    {
+        Set<State> result = new HashSet<>();
+        for (int id : minDfa2dfaStateMap.get(dfaState.getStateId())) {
+            getDFAState(id).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    /**
+     * 为 NFA 状态集合创建新的 DFA 状态并登记, 驻留表中不存在该集合时调用
+     *
+     * @param nfaStates NFA 状态ID, 升序
+     * @return DFA 状态
+     */
+    protected State newDFAState(int[] nfaStates)
+    {
+        State dfaState = new GenericState(getNextDFAID(), true, isNFASetAccept(nfaStates));
+        dfa2nfaStateMap.put(dfaState.getStateId(), nfaStates);
+        dfaStateMap.put(dfaState.getStateId(), dfaState);
+        return dfaState;
+    }
+
+    /**
+     * 为 DFA 状态集合创建新的最小化 DFA 状态并登记, 驻留表中不存在该集合时调用
+     *
+     * @param dfaStates DFA 状态ID, 升序
+     * @return 最小化 DFA 状态
+     */
+    protected State newMinimizationDFAState(int[] dfaStates)
+    {
+        if (dfaStates.length == 0) {
+            throw new IllegalArgumentException("empty dfa states: []");
+        }
+        boolean accept = false;
+        for (int id : dfaStates) {
+            Optional<State> state = getDFAState(id);
+            accept |= state.isPresent() && state.get().isAccept();
+        }
+        // 升序数组的第一个元素即编号最小的状态
+        State minDfaState = new GenericState(dfaStates[0], true, accept);
+        minDfa2dfaStateMap.put(minDfaState.getStateId(), dfaStates);
+        minDfaStateMap.put(minDfaState.getStateId(), minDfaState);
+        return minDfaState;
+    }
+
+    /**
+     * 清空子类的驻留表, reset 时调用
+     */
+    protected abstract void clearInterned();
+
+    @Override
+    public void reset()
+    {
+        nextNFAId.set(0);
+        nextDFAId.set(0);
+        nfaStateMap.clear();
+        dfaStateMap.clear();
+        minDfaStateMap.clear();
+        dfa2nfaStateMap.clear();
+        minDfa2dfaStateMap.clear();
+        clearInterned();
+    }
+
+    protected static int[] toSortedArray(Set<Integer> states)
+    {
+        return states.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    /**
+     * 创建管理器内部使用的 Map
+     */
+    @FunctionalInterface
+    protected interface MapFactory
+    {
+        <K, V> Map<K, V> create();
+    }
+}
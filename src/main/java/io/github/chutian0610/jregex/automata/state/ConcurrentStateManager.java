@@ -0,0 +1,137 @@
+package io.github.chutian0610.jregex.automata.state;
+
+import io.github.chutian0610.jregex.automata.State;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 线程安全的状态管理器, 多个线程可以共享同一个管理器并行构建 NFA, 子集构造和最小化.
+ *
+ * <pre>
+ * 1. 状态ID由 AtomicInteger 分配, 不同线程创建的状态ID不会重复,
+ *    因此不同表达式的 NFA 状态集合(以及 DFA 状态集合)互不相交, 映射之间不会冲突;
+ * 2. 所有映射使用 ConcurrentHashMap, 状态集合 -> 状态的驻留(interning)通过 computeIfAbsent 原子完成,
+ *    并发请求同一个状态集合时只会创建一个状态;
+ * 3. 状态集合以升序 int[] 作为 key(包装为 {@link StateSetKey}, 预先计算 hash), 子集构造不需要装箱;
+ *    Set 参数的方法会先复制为升序数组, 调用方之后修改传入的集合不会影响映射。
+ *
+ * 状态对象本身(转换集合)不是线程安全的: 同一个图只能由一个线程构建, 不同的图可以并行构建。
+ * reset 不能和构建并发执行。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public class ConcurrentStateManager
+        extends AbstractStateManager
+{
+    private final Map<StateSetKey, State> nfa2dfaStateMap = new ConcurrentHashMap<>();
+    private final Map<StateSetKey, State> dfa2minDfaStateMap = new ConcurrentHashMap<>();
+
+    public ConcurrentStateManager()
+    {
+        super(ConcurrentHashMap::new);
+    }
+
+    @Override
+    public State createOrGetDFAState(Set<Integer> nfaStates)
+    {
+        return createOrGetDFAState(toSortedArray(nfaStates));
+    }
+
+    @Override
+    public State createOrGetDFAState(int[] nfaStates)
+    {
+        StateSetKey key = new StateSetKey(nfaStates);
+        State cached = nfa2dfaStateMap.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        return nfa2dfaStateMap.computeIfAbsent(key, x -> newDFAState(x.states));
+    }
+
+    @Override
+    public Optional<State> getDFAState(Set<Integer> nfaStates)
+    {
+        return getDFAState(toSortedArray(nfaStates));
+    }
+
+    @Override
+    public Optional<State> getDFAState(int[] nfaStates)
+    {
+        return Optional.ofNullable(nfa2dfaStateMap.get(new StateSetKey(nfaStates)));
+    }
+
+    @Override
+    public State createOrGetMinimizationDFAState(Set<Integer> dfaStates)
+    {
+        return createOrGetMinimizationDFAState(toSortedArray(dfaStates));
+    }
+
+    @Override
+    public State createOrGetMinimizationDFAState(int[] dfaStates)
+    {
+        StateSetKey key = new StateSetKey(dfaStates);
+        State cached = dfa2minDfaStateMap.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        return dfa2minDfaStateMap.computeIfAbsent(key, x -> newMinimizationDFAState(x.states));
+    }
+
+    @Override
+    public Optional<State> getMinimizationDFAState(Set<Integer> dfaStates)
+    {
+        return getMinimizationDFAState(toSortedArray(dfaStates));
+    }
+
+    @Override
+    public Optional<State> getMinimizationDFAState(int[] dfaStates)
+    {
+        return Optional.ofNullable(dfa2minDfaStateMap.get(new StateSetKey(dfaStates)));
+    }
+
+    @Override
+    protected void clearInterned()
+    {
+        nfa2dfaStateMap.clear();
+        dfa2minDfaStateMap.clear();
+    }
+
+    /**
+     * 升序状态ID数组作为 Map 的 key, 按内容比较
+     */
+    private static final class StateSetKey
+    {
+        private final int[] states;
+        private final int hash;
+
+        private StateSetKey(int[] states)
+        {
+            this.states = states;
+            this.hash = Arrays.hashCode(states);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StateSetKey)) {
+                return false;
+            }
+            StateSetKey that = (StateSetKey) o;
+            return hash == that.hash && Arrays.equals(states, that.states);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+    }
+}
@@ -1,150 +1,110 @@
 package io.github.chutian0610.jregex.automata.state;
 
 import io.github.chutian0610.jregex.automata.State;
-import io.github.chutian0610.jregex.automata.StateManager;
+import io.github.chutian0610.jregex.misc.IntArrayInterner;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
+ * 状态集合 -> 状态的映射使用升序 int[] 作为 key, 保存在开放寻址的驻留表中(预先计算 hash),
+ * 避免子集构造时装箱和整个 Set 的重复 hash. Set 参数的方法会先转换为升序数组.
+ *
  * @author victorchu
  */
-public class GenericStateManager implements StateManager {
+public class GenericStateManager extends AbstractStateManager {
 
     /**
-     * NFA state id generator
+     * NFA 状态集合 -> DFA 状态(下标为驻留表中的编号)
      */
-    private final AtomicInteger nextNFAId = new AtomicInteger(0);
+    private final IntArrayInterner nfa2dfaStateMap = new IntArrayInterner();
+    private final List<State> nfa2dfaStates = new ArrayList<>();
+
     /**
-     * DFA state id generator
+     * DFA 状态集合 -> 最小化 DFA 状态(下标为驻留表中的编号)
      */
-    private final AtomicInteger nextDFAId = new AtomicInteger(0);
-
-    private final Map<Integer, State> nfaStateMap = new HashMap<>();
-    private final Map<Integer, State> dfaStateMap = new HashMap<>();
-    private final Map<Integer, State> minDfaStateMap = new HashMap<>();
-    private final Map<Set<Integer>, Integer> nfa2dfaStateMap = new HashMap<>();
-    private final Map<Integer, Set<Integer>> dfa2nfaStateMap = new HashMap<>();
-
-    private final Map<Set<Integer>, Integer> dfa2minDfaStateMap = new HashMap<>();
-    private final Map<Integer, Set<Integer>> minDfa2dfaStateMap = new HashMap<>();
-
-
-    public Integer getNextNFAID()
-    {
-        return nextNFAId.getAndIncrement();
-    }
+    private final IntArrayInterner dfa2minDfaStateMap = new IntArrayInterner();
+    private final List<State> dfa2minDfaStates = new ArrayList<>();
 
-    public Integer getNextDFAID()
+    public GenericStateManager()
     {
-        return nextDFAId.getAndIncrement();
-    }
-
-    @Override
-    public State createNFAState() {
-        State nfaState= new GenericState(getNextNFAID(),false);
-        nfaStateMap.put(nfaState.getStateId(), nfaState);
-        return nfaState;
+        super(HashMap::new);
     }
 
     @Override
-    public Optional<State> getNFAState(Integer id)
+    public State createOrGetDFAState(Set<Integer> nfaStates)
     {
-        return Optional.ofNullable(nfaStateMap.get(id));
+        return createOrGetDFAState(toSortedArray(nfaStates));
     }
 
     @Override
-    public State createOrGetDFAState(Set<Integer> nfaStates)
+    public State createOrGetDFAState(int[] nfaStates)
     {
-        if (nfa2dfaStateMap.containsKey(nfaStates)) {
-            return tryGetDFAState(nfa2dfaStateMap.get(nfaStates));
-        }
-        else {
-            State dfaState = new GenericState(getNextDFAID(), true, isNFASetAccept(nfaStates));
-            nfa2dfaStateMap.put(nfaStates, dfaState.getStateId());
-            dfa2nfaStateMap.put(dfaState.getStateId(), nfaStates);
-            dfaStateMap.put(dfaState.getStateId(), dfaState);
-            return dfaState;
+        int index = nfa2dfaStateMap.intern(nfaStates);
+        if (index < nfa2dfaStates.size()) {
+            return nfa2dfaStates.get(index);
         }
+        State dfaState = newDFAState(nfaStates);
+        nfa2dfaStates.add(dfaState);
+        return dfaState;
     }
 
     @Override
     public Optional<State> getDFAState(Set<Integer> nfaStates)
     {
-        return Optional.ofNullable(nfa2dfaStateMap.get(nfaStates)).flatMap(this::getDFAState);
-    }
-
-    @Override
-    public Set<State> getDFAMappedNFAState(State dfaState)
-    {
-        return dfa2nfaStateMap.get(dfaState.getStateId())
-                .stream()
-                .flatMap(x -> getNFAState(x).<Stream<? extends State>>map(Stream::of).orElseGet(Stream::empty))
-                .collect(Collectors.toSet());
+        return getDFAState(toSortedArray(nfaStates));
     }
 
     @Override
-    public Set<State> getMinDFAMappedDFAState(State dfaState)
+    public Optional<State> getDFAState(int[] nfaStates)
     {
-        return minDfa2dfaStateMap.get(dfaState.getStateId())
-                .stream()
-                .flatMap(x -> getDFAState(x).<Stream<? extends State>>map(Stream::of).orElseGet(Stream::empty))
-                .collect(Collectors.toSet());
+        int index = nfa2dfaStateMap.indexOf(nfaStates);
+        return index < 0 ? Optional.empty() : Optional.of(nfa2dfaStates.get(index));
     }
 
     @Override
-    public Optional<State> getDFAState(Integer id)
+    public State createOrGetMinimizationDFAState(Set<Integer> dfaStates)
     {
-        return Optional.ofNullable(dfaStateMap.get(id));
+        return createOrGetMinimizationDFAState(toSortedArray(dfaStates));
     }
 
     @Override
-    public State createOrGetMinimizationDFAState(Set<Integer> dfaStates)
+    public State createOrGetMinimizationDFAState(int[] dfaStates)
     {
-        if (dfa2minDfaStateMap.containsKey(dfaStates)) {
-            return tryGetMinimizationDFAState(dfa2minDfaStateMap.get(dfaStates));
+        if (dfaStates.length == 0) {
+            throw new IllegalArgumentException("empty dfa states: []");
         }
-        else {
-            State minDfaState = new GenericState(
-                    dfaStates.stream()
-                            .sorted()
-                            .findFirst()
-                            .orElseThrow(() -> new IllegalArgumentException("empty dfa states:" + dfaStates)),
-                    true, isDFASetAccept(dfaStates));
-            dfa2minDfaStateMap.put(dfaStates, minDfaState.getStateId());
-            minDfa2dfaStateMap.put(minDfaState.getStateId(), dfaStates);
-            minDfaStateMap.put(minDfaState.getStateId(), minDfaState);
-            return minDfaState;
+        int index = dfa2minDfaStateMap.intern(dfaStates);
+        if (index < dfa2minDfaStates.size()) {
+            return dfa2minDfaStates.get(index);
         }
+        State minDfaState = newMinimizationDFAState(dfaStates);
+        dfa2minDfaStates.add(minDfaState);
+        return minDfaState;
     }
 
     @Override
     public Optional<State> getMinimizationDFAState(Set<Integer> dfaStates)
     {
-        return Optional.ofNullable(dfa2minDfaStateMap.get(dfaStates)).flatMap(this::getMinimizationDFAState);
+        return getMinimizationDFAState(toSortedArray(dfaStates));
     }
 
     @Override
-    public Optional<State> getMinimizationDFAState(Integer id)
+    public Optional<State> getMinimizationDFAState(int[] dfaStates)
     {
-        return Optional.ofNullable(minDfaStateMap.get(id));
+        int index = dfa2minDfaStateMap.indexOf(dfaStates);
+        return index < 0 ? Optional.empty() : Optional.of(dfa2minDfaStates.get(index));
     }
 
     @Override
-    public void reset() {
-        nextNFAId.getAndSet(0);
-        nextDFAId.getAndSet(0);
-        nfaStateMap.clear();
-        dfaStateMap.clear();
-        minDfaStateMap.clear();
+    protected void clearInterned()
+    {
         nfa2dfaStateMap.clear();
-        dfa2nfaStateMap.clear();
+        nfa2dfaStates.clear();
         dfa2minDfaStateMap.clear();
-        minDfa2dfaStateMap.clear();
+        dfa2minDfaStates.clear();
     }
 }
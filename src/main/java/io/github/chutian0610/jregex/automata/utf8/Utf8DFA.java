@@ -0,0 +1,409 @@
+package io.github.chutian0610.jregex.automata.utf8;
+
+import com.google.common.base.Preconditions;
+import io.github.chutian0610.jregex.ast.ConcatExp;
+import io.github.chutian0610.jregex.ast.RegexExp;
+import io.github.chutian0610.jregex.ast.RepeatExp;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraph;
+import io.github.chutian0610.jregex.automata.nfa.NFATable;
+import io.github.chutian0610.jregex.misc.IntArrayInterner;
+import io.github.chutian0610.jregex.misc.SparseSet;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * UTF-8 字节级 DFA(构建完成后不可变), 直接在 byte[] / ByteBuffer 上匹配, 不需要解码.
+ *
+ * <pre>
+ * 编译过程:
+ * 1. 将 NFA 的每条字符区间边改写为 UTF-8 字节区间序列({@link Utf8Sequences}), 序列中间插入新的 NFA 状态;
+ * 2. 256 个字节按照所有字节区间的边界划分为等价类;
+ * 3. 在字节等价类上做子集构造(BFS 编号), 再用 Moore 算法最小化。
+ *
+ * 字符边是 UTF-16 编码单元, 代理项(U+D800-U+DFFF)不是合法的标量值, 按下面的规则改写为辅助平面字符:
+ * 1. 同时覆盖全部高代理项和低代理项的字符区间(如 . 和取反的字符类)按码点理解, 额外匹配 U+10000-U+10FFFF 的 4 字节序列,
+ *    因此 .* 查找前缀可以跳过任意码点;
+ * 2. 其他包含高代理项的边, 与目标状态 ϵ 闭包中包含低代理项的边组成代理对, 改写为对应码点的 4 字节序列(如字面量 😀)。
+ * 单独的代理项和非法的 UTF-8 输入不会匹配。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public final class Utf8DFA
+{
+    /**
+     * 死状态(没有转换)
+     */
+    public static final int DEAD = -1;
+
+    private final int[] byteClasses;
+    private final int classCount;
+    private final int stateCount;
+    private final int start;
+    private final int[] transitions;
+    private final boolean[] accepts;
+
+    private Utf8DFA(int[] byteClasses, int classCount, int start, int[] transitions, boolean[] accepts)
+    {
+        this.byteClasses = byteClasses;
+        this.classCount = classCount;
+        this.stateCount = accepts.length;
+        this.start = start;
+        this.transitions = transitions;
+        this.accepts = accepts;
+    }
+
+    public static Utf8DFA compile(RegexExp regexExp)
+    {
+        return compile(NFAGraph.build(regexExp).toTable());
+    }
+
+    /**
+     * 编译查找使用的字节 DFA(表达式前加上 .*), 接受状态表示有匹配在当前字节结束
+     *
+     * @param regexExp 表达式
+     * @return 字节 DFA
+     */
+    public static Utf8DFA compileSearch(RegexExp regexExp)
+    {
+        return compile(new ConcatExp(RepeatExp.anyString(), regexExp));
+    }
+
+    public static Utf8DFA compile(NFATable nfa)
+    {
+        ByteNFA byteNFA = ByteNFA.of(nfa);
+        return minimize(byteNFA.determinize());
+    }
+
+    public int getStart()
+    {
+        return start;
+    }
+
+    public int getStateCount()
+    {
+        return stateCount;
+    }
+
+    /**
+     * 字节等价类数量(转换表每个状态的宽度)
+     *
+     * @return 等价类数量
+     */
+    public int getClassCount()
+    {
+        return classCount;
+    }
+
+    public boolean isAccept(int state)
+    {
+        return accepts[state];
+    }
+
+    /**
+     * 状态转换
+     *
+     * @param state 当前状态
+     * @param b 输入字节
+     * @return 下一个状态, 没有转换时返回 DEAD
+     */
+    public int next(int state, byte b)
+    {
+        return transitions[state * classCount + byteClasses[b & 0xFF]];
+    }
+
+    public boolean matches(byte[] bytes)
+    {
+        return matches(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 整串匹配 bytes[from, to)
+     *
+     * @param bytes UTF-8 字节
+     * @param from 开始下标
+     * @param to 结束下标(不包含)
+     * @return 是否匹配
+     */
+    public boolean matches(byte[] bytes, int from, int to)
+    {
+        Preconditions.checkPositionIndexes(from, to, bytes.length);
+        final int[] transitions = this.transitions;
+        final int[] byteClasses = this.byteClasses;
+        final int classCount = this.classCount;
+        int state = start;
+        for (int i = from; i < to; i++) {
+            state = transitions[state * classCount + byteClasses[bytes[i] & 0xFF]];
+            if (state == DEAD) {
+                return false;
+            }
+        }
+        return accepts[state];
+    }
+
+    /**
+     * 整串匹配 buffer 的 [position, limit), 不修改 position
+     *
+     * @param buffer UTF-8 字节(堆内, 直接内存或者文件映射)
+     * @return 是否匹配
+     */
+    public boolean matches(ByteBuffer buffer)
+    {
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            return matches(buffer.array(), offset + buffer.position(), offset + buffer.limit());
+        }
+        final int[] transitions = this.transitions;
+        final int[] byteClasses = this.byteClasses;
+        final int classCount = this.classCount;
+        int state = start;
+        for (int i = buffer.position(), to = buffer.limit(); i < to; i++) {
+            state = transitions[state * classCount + byteClasses[buffer.get(i) & 0xFF]];
+            if (state == DEAD) {
+                return false;
+            }
+        }
+        return accepts[state];
+    }
+
+    /**
+     * Moore 算法最小化: 初始按是否接受划分, 按(当前块, 每个等价类的目标块)反复细分直到块数不再变化
+     */
+    private static Utf8DFA minimize(Utf8DFA dfa)
+    {
+        int stateCount = dfa.stateCount;
+        int classCount = dfa.classCount;
+        int[] blocks = new int[stateCount];
+        boolean hasAccept = false;
+        boolean hasReject = false;
+        for (int state = 0; state < stateCount; state++) {
+            blocks[state] = dfa.accepts[state] ? 1 : 0;
+            hasAccept |= dfa.accepts[state];
+            hasReject |= !dfa.accepts[state];
+        }
+        int blockCount = (hasAccept ? 1 : 0) + (hasReject ? 1 : 0);
+        while (true) {
+            IntArrayInterner signatures = new IntArrayInterner(blockCount);
+            int[] signature = new int[classCount + 1];
+            int[] refined = new int[stateCount];
+            for (int state = 0; state < stateCount; state++) {
+                signature[0] = blocks[state];
+                for (int c = 0; c < classCount; c++) {
+                    int target = dfa.transitions[state * classCount + c];
+                    signature[c + 1] = target == DEAD ? DEAD : blocks[target];
+                }
+                refined[state] = signatures.intern(signature, signature.length);
+            }
+            blocks = refined;
+            if (signatures.size() == blockCount) {
+                break;
+            }
+            blockCount = signatures.size();
+        }
+        // 按 BFS 顺序重新编号
+        int[] number = new int[blockCount];
+        Arrays.fill(number, DEAD);
+        int[] representatives = new int[blockCount];
+        int count = 0;
+        number[blocks[dfa.start]] = count;
+        representatives[count++] = dfa.start;
+        for (int head = 0; head < count; head++) {
+            int state = representatives[head];
+            for (int c = 0; c < classCount; c++) {
+                int target = dfa.transitions[state * classCount + c];
+                if (target != DEAD && number[blocks[target]] == DEAD) {
+                    number[blocks[target]] = count;
+                    representatives[count++] = target;
+                }
+            }
+        }
+        int[] transitions = new int[count * classCount];
+        boolean[] accepts = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            int state = representatives[i];
+            accepts[i] = dfa.accepts[state];
+            for (int c = 0; c < classCount; c++) {
+                int target = dfa.transitions[state * classCount + c];
+                transitions[i * classCount + c] = target == DEAD ? DEAD : number[blocks[target]];
+            }
+        }
+        return new Utf8DFA(dfa.byteClasses, classCount, 0, transitions, accepts);
+    }
+
+    /**
+     * 字节级 NFA: 原 NFA 的状态保留原来的编号, 字节序列的中间状态追加在后面
+     */
+    private static final class ByteNFA
+    {
+        private final NFATable nfa;
+        private final List<int[]> edges = new ArrayList<>();
+        private final List<List<int[]>> stateEdges = new ArrayList<>();
+
+        private ByteNFA(NFATable nfa)
+        {
+            this.nfa = nfa;
+        }
+
+        static ByteNFA of(NFATable nfa)
+        {
+            ByteNFA byteNFA = new ByteNFA(nfa);
+            for (int state = 0; state < nfa.getStateCount(); state++) {
+                byteNFA.stateEdges.add(new ArrayList<>());
+            }
+            for (int state = 0; state < nfa.getStateCount(); state++) {
+                for (int edge = 0; edge < nfa.getEdgeCount(state); edge++) {
+                    int from = nfa.getEdgeFrom(state, edge);
+                    int to = nfa.getEdgeTo(state, edge);
+                    int target = nfa.getEdgeTarget(state, edge);
+                    byteNFA.addRange(state, from, to, target);
+                    if (from <= Character.MIN_HIGH_SURROGATE && Character.MAX_LOW_SURROGATE <= to) {
+                        byteNFA.addRange(state, Character.MIN_SUPPLEMENTARY_CODE_POINT, Character.MAX_CODE_POINT, target);
+                    }
+                    else if (from <= Character.MAX_HIGH_SURROGATE && Character.MIN_HIGH_SURROGATE <= to) {
+                        byteNFA.addSurrogatePairs(state, Math.max(from, Character.MIN_HIGH_SURROGATE), Math.min(to, Character.MAX_HIGH_SURROGATE), target);
+                    }
+                }
+            }
+            return byteNFA;
+        }
+
+        private void addRange(int state, int from, int to, int target)
+        {
+            for (int[] sequence : Utf8Sequences.of(from, to)) {
+                addSequence(state, sequence, target);
+            }
+        }
+
+        /**
+         * 高代理项 [highFrom, highTo] 的边到达 target, 与 target 的 ϵ 闭包中所有低代理项的边组成代理对
+         */
+        private void addSurrogatePairs(int state, int highFrom, int highTo, int target)
+        {
+            for (int next : nfa.getClosure(target)) {
+                for (int edge = 0; edge < nfa.getEdgeCount(next); edge++) {
+                    int lowFrom = Math.max(nfa.getEdgeFrom(next, edge), Character.MIN_LOW_SURROGATE);
+                    int lowTo = Math.min(nfa.getEdgeTo(next, edge), Character.MAX_LOW_SURROGATE);
+                    if (lowFrom > lowTo) {
+                        continue;
+                    }
+                    int pairTarget = nfa.getEdgeTarget(next, edge);
+                    if (lowFrom == Character.MIN_LOW_SURROGATE && lowTo == Character.MAX_LOW_SURROGATE) {
+                        // 低代理项完整时码点连续
+                        addRange(state, Character.toCodePoint((char) highFrom, (char) lowFrom), Character.toCodePoint((char) highTo, (char) lowTo), pairTarget);
+                        continue;
+                    }
+                    for (int high = highFrom; high <= highTo; high++) {
+                        addRange(state, Character.toCodePoint((char) high, (char) lowFrom), Character.toCodePoint((char) high, (char) lowTo), pairTarget);
+                    }
+                }
+            }
+        }
+
+        private void addSequence(int state, int[] sequence, int target)
+        {
+            int current = state;
+            for (int i = 0; i < sequence.length; i += 2) {
+                int next;
+                if (i + 2 == sequence.length) {
+                    next = target;
+                }
+                else {
+                    next = stateEdges.size();
+                    stateEdges.add(new ArrayList<>());
+                }
+                int[] edge = new int[] {sequence[i], sequence[i + 1], next};
+                stateEdges.get(current).add(edge);
+                edges.add(edge);
+                current = next;
+            }
+        }
+
+        private int stateCount()
+        {
+            return stateEdges.size();
+        }
+
+        private void addClosure(int state, SparseSet set)
+        {
+            if (state < nfa.getStateCount()) {
+                for (int s : nfa.getClosure(state)) {
+                    set.add(s);
+                }
+            }
+            else {
+                set.add(state);
+            }
+        }
+
+        private boolean isAccept(int[] states)
+        {
+            for (int state : states) {
+                if (state < nfa.getStateCount() && nfa.isAccept(state)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 子集构造(工作队列, BFS 编号)
+         */
+        Utf8DFA determinize()
+        {
+            // 字节等价类
+            boolean[] boundaries = new boolean[257];
+            for (int[] edge : edges) {
+                boundaries[edge[0]] = true;
+                boundaries[edge[1] + 1] = true;
+            }
+            int[] byteClasses = new int[256];
+            int classCount = 0;
+            List<Integer> representatives = new ArrayList<>();
+            for (int b = 0; b < 256; b++) {
+                if (b == 0 || boundaries[b]) {
+                    representatives.add(b);
+                    classCount++;
+                }
+                byteClasses[b] = classCount - 1;
+            }
+
+            SparseSet set = new SparseSet(stateCount());
+            IntArrayInterner states = new IntArrayInterner();
+            int[] buffer = new int[stateCount()];
+            set.clear();
+            addClosure(nfa.getStart(), set);
+            states.intern(set.toSortedArray());
+            int[] transitions = new int[16 * classCount];
+            for (int head = 0; head < states.size(); head++) {
+                int[] current = states.get(head);
+                if ((head + 1) * classCount > transitions.length) {
+                    transitions = Arrays.copyOf(transitions, transitions.length * 2);
+                }
+                for (int c = 0; c < classCount; c++) {
+                    int b = representatives.get(c);
+                    set.clear();
+                    for (int state : current) {
+                        for (int[] edge : stateEdges.get(state)) {
+                            if (edge[0] <= b && b <= edge[1]) {
+                                addClosure(edge[2], set);
+                            }
+                        }
+                    }
+                    if (set.isEmpty()) {
+                        transitions[head * classCount + c] = DEAD;
+                        continue;
+                    }
+                    transitions[head * classCount + c] = states.intern(buffer, set.toSortedArray(buffer));
+                }
+            }
+            boolean[] accepts = new boolean[states.size()];
+            for (int i = 0; i < states.size(); i++) {
+                accepts[i] = isAccept(states.get(i));
+            }
+            return new Utf8DFA(byteClasses, classCount, 0, Arrays.copyOf(transitions, states.size() * classCount), accepts);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package io.github.chutian0610.jregex.automata.utf8;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 将码点区间拆分为等价的 UTF-8 字节区间序列(RE2 / Rust regex 的做法).
+ *
+ * <pre>
+ * 例如 [U+0000, U+FFFF] 拆分为:
+ * [00-7F]
+ * [C2-DF][80-BF]
+ * [E0][A0-BF][80-BF]
+ * [E1-EC][80-BF][80-BF]
+ * [ED][80-9F][80-BF]
+ * [EE-EF][80-BF][80-BF]
+ *
+ * 每个序列的每个字节位置是一个独立的区间, 序列之间互不相交。
+ * 代理项(U+D800-U+DFFF)不是合法的 Unicode 标量值, 拆分时跳过。
+ * </pre>
+ *
+ * @author victorchu
+ */
+final class Utf8Sequences
+{
+    private static final int SURROGATE_FROM = 0xD800;
+    private static final int SURROGATE_TO = 0xDFFF;
+    private static final int[] MAX_BY_LENGTH = {0x7F, 0x7FF, 0xFFFF, 0x10FFFF};
+
+    private Utf8Sequences()
+    {
+    }
+
+    /**
+     * 拆分码点区间
+     *
+     * @param from 开始码点
+     * @param to 结束码点(包含)
+     * @return 字节区间序列, 每个序列为 [lo1, hi1, lo2, hi2, ...]
+     */
+    static List<int[]> of(int from, int to)
+    {
+        Preconditions.checkArgument(0 <= from && from <= to && to <= MAX_BY_LENGTH[3], "invalid range [%s, %s]", from, to);
+        List<int[]> sequences = new ArrayList<>();
+        List<int[]> stack = new ArrayList<>();
+        stack.add(new int[] {from, to});
+        while (!stack.isEmpty()) {
+            int[] range = stack.remove(stack.size() - 1);
+            split(range[0], range[1], stack, sequences);
+        }
+        return sequences;
+    }
+
+    private static void split(int from, int to, List<int[]> stack, List<int[]> sequences)
+    {
+        while (true) {
+            // 跳过代理项
+            if (from <= SURROGATE_TO && to >= SURROGATE_FROM) {
+                if (to > SURROGATE_TO) {
+                    stack.add(new int[] {SURROGATE_TO + 1, to});
+                }
+                if (from >= SURROGATE_FROM) {
+                    return;
+                }
+                to = SURROGATE_FROM - 1;
+            }
+            // 按编码长度拆分
+            boolean splitted = false;
+            for (int i = 0; i < MAX_BY_LENGTH.length - 1; i++) {
+                int max = MAX_BY_LENGTH[i];
+                if (from <= max && max < to) {
+                    stack.add(new int[] {max + 1, to});
+                    to = max;
+                    splitted = true;
+                    break;
+                }
+            }
+            if (splitted) {
+                continue;
+            }
+            if (to <= MAX_BY_LENGTH[0]) {
+                sequences.add(new int[] {from, to});
+                return;
+            }
+            // 按后续字节拆分, 使每个字节位置都是完整的区间
+            for (int i = 1; i < 4; i++) {
+                int mask = (1 << (6 * i)) - 1;
+                if ((from & ~mask) != (to & ~mask)) {
+                    if ((from & mask) != 0) {
+                        stack.add(new int[] {(from | mask) + 1, to});
+                        to = from | mask;
+                        splitted = true;
+                        break;
+                    }
+                    if ((to & mask) != mask) {
+                        stack.add(new int[] {to & ~mask, to});
+                        to = (to & ~mask) - 1;
+                        splitted = true;
+                        break;
+                    }
+                }
+            }
+            if (splitted) {
+                continue;
+            }
+            byte[] lo = encode(from);
+            byte[] hi = encode(to);
+            int[] sequence = new int[lo.length * 2];
+            for (int i = 0; i < lo.length; i++) {
+                sequence[2 * i] = lo[i] & 0xFF;
+                sequence[2 * i + 1] = hi[i] & 0xFF;
+            }
+            sequences.add(sequence);
+            return;
+        }
+    }
+
+    private static byte[] encode(int codePoint)
+    {
+        if (codePoint <= MAX_BY_LENGTH[0]) {
+            return new byte[] {(byte) codePoint};
+        }
+        if (codePoint <= MAX_BY_LENGTH[1]) {
+            return new byte[] {(byte) (0xC0 | codePoint >> 6), (byte) (0x80 | codePoint & 0x3F)};
+        }
+        if (codePoint <= MAX_BY_LENGTH[2]) {
+            return new byte[] {(byte) (0xE0 | codePoint >> 12), (byte) (0x80 | codePoint >> 6 & 0x3F), (byte) (0x80 | codePoint & 0x3F)};
+        }
+        return new byte[] {(byte) (0xF0 | codePoint >> 18), (byte) (0x80 | codePoint >> 12 & 0x3F),
+                (byte) (0x80 | codePoint >> 6 & 0x3F), (byte) (0x80 | codePoint & 0x3F)};
+    }
+}
@@ -0,0 +1,213 @@
+package io.github.chutian0610.jregex.literal;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import io.github.chutian0610.jregex.automata.GraphMatcher;
+import io.github.chutian0610.jregex.misc.CharClassMap;
+import io.github.chutian0610.jregex.misc.CharRange;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aho-Corasick 多字面量自动机(构建完成后不可变, 线程安全).
+ *
+ * <pre>
+ * 状态是字面量的 trie 节点, goto 表是稠密的 transitions[state * classCount + classId],
+ * 构建时已经沿失败链补全了所有转换, 扫描时每个字符只查一次表。
+ * longestOutput[state] 记录以该状态结尾的最长字面量长度(沿失败链取最大值), 没有时为 -1。
+ *
+ * find: 最左匹配的开始位置(可以作为 {@link Prefilter} 使用);
+ * longestMatchAt: 从指定位置开始的最长字面量(只沿 trie 边);
+ * matches: 整串是否为某个字面量。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public final class AhoCorasick
+        implements Prefilter, GraphMatcher
+{
+    private static final int ROOT = 0;
+
+    @Getter
+    private final List<String> literals;
+    private final CharClassMap alphabet;
+    private final int classCount;
+    private final int[] transitions;
+    private final int[] depth;
+    private final int[] longestOutput;
+    private final boolean[] terminal;
+    private final int maxLength;
+
+    private AhoCorasick(List<String> literals, CharClassMap alphabet, int[] transitions, int[] depth, int[] longestOutput, boolean[] terminal)
+    {
+        this.literals = literals;
+        this.alphabet = alphabet;
+        this.classCount = alphabet.getClassCount();
+        this.transitions = transitions;
+        this.depth = depth;
+        this.longestOutput = longestOutput;
+        this.terminal = terminal;
+        this.maxLength = literals.stream().mapToInt(String::length).max().orElse(0);
+    }
+
+    public static AhoCorasick of(List<String> literals)
+    {
+        Preconditions.checkArgument(!literals.isEmpty(), "empty literals");
+        List<CharRange> ranges = new ArrayList<>();
+        for (String literal : literals) {
+            for (int i = 0; i < literal.length(); i++) {
+                ranges.add(CharRange.of(literal.charAt(i)));
+            }
+        }
+        CharClassMap alphabet = CharClassMap.of(ranges);
+        int classCount = alphabet.getClassCount();
+        // 1. 构建 trie, -1 表示没有 trie 边
+        int capacity = 1 + literals.stream().mapToInt(String::length).sum();
+        int[] trie = new int[capacity * classCount];
+        Arrays.fill(trie, -1);
+        int[] depth = new int[capacity];
+        boolean[] terminal = new boolean[capacity];
+        int stateCount = 1;
+        for (String literal : literals) {
+            int state = ROOT;
+            for (int i = 0; i < literal.length(); i++) {
+                int slot = state * classCount + alphabet.classOf(literal.charAt(i));
+                if (trie[slot] < 0) {
+                    depth[stateCount] = depth[state] + 1;
+                    trie[slot] = stateCount++;
+                }
+                state = trie[slot];
+            }
+            terminal[state] = true;
+        }
+        // 2. BFS 计算失败链, 补全 goto 表
+        int[] transitions = Arrays.copyOf(trie, stateCount * classCount);
+        int[] fail = new int[stateCount];
+        int[] longestOutput = new int[stateCount];
+        Arrays.fill(longestOutput, -1);
+        if (terminal[ROOT]) {
+            longestOutput[ROOT] = 0;
+        }
+        int[] queue = new int[stateCount];
+        int head = 0;
+        int tail = 0;
+        for (int classId = 0; classId < classCount; classId++) {
+            int next = transitions[classId];
+            if (next < 0) {
+                transitions[classId] = ROOT;
+            }
+            else {
+                fail[next] = ROOT;
+                queue[tail++] = next;
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            longestOutput[state] = terminal[state] ? depth[state] : longestOutput[fail[state]];
+            for (int classId = 0; classId < classCount; classId++) {
+                int slot = state * classCount + classId;
+                int next = transitions[slot];
+                if (next < 0) {
+                    transitions[slot] = transitions[fail[state] * classCount + classId];
+                }
+                else {
+                    fail[next] = transitions[fail[state] * classCount + classId];
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return new AhoCorasick(ImmutableList.copyOf(literals), alphabet, transitions,
+                Arrays.copyOf(depth, stateCount), longestOutput, Arrays.copyOf(terminal, stateCount));
+    }
+
+    public int getStateCount()
+    {
+        return depth.length;
+    }
+
+    /**
+     * 字符等价类数量(goto 表每个状态的宽度)
+     *
+     * @return 等价类数量
+     */
+    public int getClassCount()
+    {
+        return classCount;
+    }
+
+    /**
+     * 查找最左匹配的开始位置
+     *
+     * @param text 输入
+     * @param from 开始查找的位置
+     * @return 开始位置, 没有匹配时返回 -1
+     */
+    @Override
+    public int find(CharSequence text, int from)
+    {
+        if (longestOutput[ROOT] >= 0) {
+            // 包含空串
+            return from;
+        }
+        final int[] transitions = this.transitions;
+        final int[] longestOutput = this.longestOutput;
+        final CharClassMap alphabet = this.alphabet;
+        final int classCount = this.classCount;
+        int best = -1;
+        int state = ROOT;
+        for (int i = from, length = text.length(); i < length; i++) {
+            state = transitions[state * classCount + alphabet.classOf(text.charAt(i))];
+            if (longestOutput[state] >= 0) {
+                int start = i + 1 - longestOutput[state];
+                if (best < 0 || start < best) {
+                    best = start;
+                }
+            }
+            // 之后结束的匹配开始位置不小于 i + 2 - maxLength
+            if (best >= 0 && i + 2 - maxLength > best) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 从 start 开始的最长字面量
+     *
+     * @param text 输入
+     * @param start 开始位置
+     * @return 结束位置(不包含), 没有匹配时返回 -1
+     */
+    public int longestMatchAt(CharSequence text, int start)
+    {
+        int end = terminal[ROOT] ? start : -1;
+        int state = ROOT;
+        for (int i = start, length = Math.min(text.length(), start + maxLength); i < length; i++) {
+            int next = transitions[state * classCount + alphabet.classOf(text.charAt(i))];
+            if (depth[next] != depth[state] + 1) {
+                // 沿失败链的转换, 不是 trie 边
+                break;
+            }
+            state = next;
+            if (terminal[state]) {
+                end = i + 1;
+            }
+        }
+        return end;
+    }
+
+    @Override
+    public boolean matches(CharSequence str)
+    {
+        return str.length() <= maxLength && longestMatchAt(str, 0) == str.length();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "AhoCorasick" + literals;
+    }
+}
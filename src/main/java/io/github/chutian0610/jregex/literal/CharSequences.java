@@ -0,0 +1,46 @@
+package io.github.chutian0610.jregex.literal;
+
+/**
+ * CharSequence 上的字面量查找, 输入为 String 时使用 String 自带的实现.
+ *
+ * @author victorchu
+ */
+final class CharSequences
+{
+    private CharSequences()
+    {
+    }
+
+    static int indexOf(CharSequence text, String literal, int from)
+    {
+        if (text instanceof String) {
+            return ((String) text).indexOf(literal, from);
+        }
+        if (literal.isEmpty()) {
+            return Math.min(Math.max(from, 0), text.length());
+        }
+        char first = literal.charAt(0);
+        for (int i = Math.max(from, 0), last = text.length() - literal.length(); i <= last; i++) {
+            if (text.charAt(i) == first && startsWith(text, literal, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static boolean startsWith(CharSequence text, String literal, int offset)
+    {
+        if (text instanceof String) {
+            return ((String) text).startsWith(literal, offset);
+        }
+        if (offset < 0 || offset > text.length() - literal.length()) {
+            return false;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (text.charAt(offset + i) != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,209 @@
+package io.github.chutian0610.jregex.literal;
+
+import io.github.chutian0610.jregex.ast.CharClassExp;
+import io.github.chutian0610.jregex.ast.CharExp;
+import io.github.chutian0610.jregex.ast.CharRangeExp;
+import io.github.chutian0610.jregex.ast.ConcatExp;
+import io.github.chutian0610.jregex.ast.MetaCharExp;
+import io.github.chutian0610.jregex.ast.OrExp;
+import io.github.chutian0610.jregex.ast.RegexExp;
+import io.github.chutian0610.jregex.ast.RegexExpVisitor;
+import io.github.chutian0610.jregex.ast.RepeatExp;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 识别只由字面量组成的或表达式(如 foo|bar|baz).
+ *
+ * <pre>
+ * 每个分支必须是字符的连接, 访问结果为 false 表示表达式中出现了其他节点。
+ * 所有分支的字面量追加到同一个 {@link Collector} 中, 嵌套的或表达式不复制中间结果。
+ *
+ * {@link #findRequired(RegexExp)} 在整个表达式树中查找每个匹配都必须经过的字面量或表达式
+ * (如 foo(alpha|beta|gamma)bar 中的 alpha|beta|gamma), 用作必要条件的过滤器。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public enum LiteralAlternationDetector
+        implements RegexExpVisitor<Boolean, LiteralAlternationDetector.Collector>
+{
+    INSTANCE;
+
+    /**
+     * 提取字面量分支
+     *
+     * @param regexExp 表达式
+     * @return 去重后的字面量(保持出现顺序), 不是字面量的或表达式时为空
+     */
+    public static Optional<List<String>> detect(RegexExp regexExp)
+    {
+        Collector collector = new Collector();
+        if (!INSTANCE.branch(regexExp, collector)) {
+            return Optional.empty();
+        }
+        return Optional.of(new ArrayList<>(new LinkedHashSet<>(collector.literals)));
+    }
+
+    /**
+     * 查找每个匹配都必须包含其中一个字面量的或表达式子树
+     *
+     * @param regexExp 表达式
+     * @return 去重后的字面量, 有多个候选时选择最短字面量最长的一个; 没有时为空
+     */
+    public static Optional<List<String>> findRequired(RegexExp regexExp)
+    {
+        return Optional.ofNullable(RequiredAlternationFinder.INSTANCE.process(regexExp, null));
+    }
+
+    /**
+     * 处理或表达式的一个分支: 嵌套的或表达式继续展开, 其他节点必须是字面量
+     */
+    private boolean branch(RegexExp node, Collector collector)
+    {
+        if (node instanceof OrExp) {
+            return process(node, collector);
+        }
+        collector.current.setLength(0);
+        collector.inBranch = true;
+        boolean literal = process(node, collector);
+        collector.inBranch = false;
+        if (literal) {
+            collector.literals.add(collector.current.toString());
+        }
+        return literal;
+    }
+
+    @Override
+    public Boolean visitChar(CharExp node, Collector collector)
+    {
+        collector.current.append(node.getCharacter());
+        return true;
+    }
+
+    @Override
+    public Boolean visitCharRange(CharRangeExp node, Collector collector)
+    {
+        return false;
+    }
+
+    @Override
+    public Boolean visitCharClass(CharClassExp node, Collector collector)
+    {
+        return false;
+    }
+
+    @Override
+    public Boolean visitMetaChar(MetaCharExp node, Collector collector)
+    {
+        return false;
+    }
+
+    @Override
+    public Boolean visitConcat(ConcatExp node, Collector collector)
+    {
+        return process(node.getLeft(), collector) && process(node.getRight(), collector);
+    }
+
+    @Override
+    public Boolean visitOr(OrExp node, Collector collector)
+    {
+        // 字面量内部的或表达式(如 a(b|c))不是字面量分支
+        if (collector.inBranch) {
+            return false;
+        }
+        return branch(node.getLeft(), collector) && branch(node.getRight(), collector);
+    }
+
+    @Override
+    public Boolean visitRepeat(RepeatExp node, Collector collector)
+    {
+        return false;
+    }
+
+    /**
+     * 所有分支共享的字面量列表和当前分支的缓冲区
+     */
+    static final class Collector
+    {
+        private final List<String> literals = new ArrayList<>();
+        private final StringBuilder current = new StringBuilder();
+        private boolean inBranch;
+    }
+
+    /**
+     * 查找必需的字面量或表达式: 连接的两侧都是必需的, 最少重复 0 次的子树和非字面量或表达式的分支不是必需的.
+     * 只在或表达式链的最外层调用 {@link #detect(RegexExp)}, 每个节点最多访问常数次。
+     */
+    private enum RequiredAlternationFinder
+            implements RegexExpVisitor<List<String>, Void>
+    {
+        INSTANCE;
+
+        @Override
+        public List<String> visitChar(CharExp node, Void context)
+        {
+            return null;
+        }
+
+        @Override
+        public List<String> visitCharRange(CharRangeExp node, Void context)
+        {
+            return null;
+        }
+
+        @Override
+        public List<String> visitCharClass(CharClassExp node, Void context)
+        {
+            return null;
+        }
+
+        @Override
+        public List<String> visitMetaChar(MetaCharExp node, Void context)
+        {
+            return null;
+        }
+
+        @Override
+        public List<String> visitConcat(ConcatExp node, Void context)
+        {
+            return better(process(node.getLeft(), context), process(node.getRight(), context));
+        }
+
+        @Override
+        public List<String> visitOr(OrExp node, Void context)
+        {
+            return detect(node).orElse(null);
+        }
+
+        @Override
+        public List<String> visitRepeat(RepeatExp node, Void context)
+        {
+            return node.getMin() == 0 ? null : process(node.getInner(), context);
+        }
+
+        /**
+         * 最短字面量越长, 过滤效果越好; 相同时选择字面量较少的一个
+         */
+        private static List<String> better(List<String> left, List<String> right)
+        {
+            if (left == null || right == null) {
+                return left == null ? right : left;
+            }
+            int leftMin = minLength(left);
+            int rightMin = minLength(right);
+            if (leftMin != rightMin) {
+                return leftMin > rightMin ? left : right;
+            }
+            return left.size() <= right.size() ? left : right;
+        }
+
+        private static int minLength(List<String> literals)
+        {
+            return literals.stream().mapToInt(String::length).min().orElse(0);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package io.github.chutian0610.jregex.literal;
+
+import com.google.common.collect.ImmutableList;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 有限的字面量集合.
+ *
+ * <pre>
+ * 表达式的每个匹配都以集合中的某个字面量开头; exact 表示集合恰好是表达式能匹配的全部字符串。
+ * 集合大小和字面量长度有上限, 超出上限时退化为非精确集合, 包含空串的集合不能用于过滤。
+ * </pre>
+ *
+ * @author victorchu
+ */
+@Getter
+public final class LiteralSet
+{
+    /**
+     * 字面量个数上限
+     */
+    public static final int MAX_LITERALS = 32;
+    /**
+     * 字面量长度上限
+     */
+    public static final int MAX_LENGTH = 64;
+
+    private static final LiteralSet ANY = new LiteralSet(ImmutableList.of(""), false);
+
+    /**
+     * 升序, 无重复
+     */
+    private final List<String> literals;
+    private final boolean exact;
+
+    private LiteralSet(Collection<String> literals, boolean exact)
+    {
+        this.literals = ImmutableList.copyOf(new TreeSet<>(literals));
+        this.exact = exact;
+    }
+
+    public static LiteralSet of(Collection<String> literals, boolean exact)
+    {
+        if (literals.size() > MAX_LITERALS) {
+            return ANY;
+        }
+        return new LiteralSet(literals, exact);
+    }
+
+    /**
+     * 没有任何信息的集合(匹配可能从任意位置开始)
+     *
+     * @return {""}, 非精确
+     */
+    public static LiteralSet any()
+    {
+        return ANY;
+    }
+
+    /**
+     * 只匹配空串
+     *
+     * @return {""}, 精确
+     */
+    public static LiteralSet empty()
+    {
+        return new LiteralSet(ImmutableList.of(""), true);
+    }
+
+    /**
+     * 集合是否可以用于过滤: 非空且不包含空串
+     *
+     * @return 是否可用
+     */
+    public boolean isUseful()
+    {
+        return !literals.isEmpty() && !literals.contains("");
+    }
+
+    /**
+     * 所有字面量的最长公共前缀
+     *
+     * @return 公共前缀
+     */
+    public String longestCommonPrefix()
+    {
+        if (literals.isEmpty()) {
+            return "";
+        }
+        // 有序集合中首尾两个字符串的公共前缀就是全体的公共前缀
+        String first = literals.get(0);
+        String last = literals.get(literals.size() - 1);
+        int length = 0;
+        while (length < first.length() && length < last.length() && first.charAt(length) == last.charAt(length)) {
+            length++;
+        }
+        return first.substring(0, length);
+    }
+
+    /**
+     * 连接: 本集合精确时, 每个字面量拼接右侧集合的每个字面量
+     *
+     * @param right 右侧集合
+     * @return 连接后的集合
+     */
+    public LiteralSet concat(LiteralSet right)
+    {
+        if (!exact) {
+            return this;
+        }
+        if ((long) literals.size() * right.literals.size() > MAX_LITERALS) {
+            // 笛卡尔积过大, 只保留左侧
+            return new LiteralSet(literals, false);
+        }
+        boolean resultExact = right.exact;
+        TreeSet<String> result = new TreeSet<>();
+        for (String left : literals) {
+            for (String suffix : right.literals) {
+                String literal = left + suffix;
+                if (literal.length() > MAX_LENGTH) {
+                    literal = literal.substring(0, MAX_LENGTH);
+                    resultExact = false;
+                }
+                result.add(literal);
+            }
+        }
+        return new LiteralSet(result, resultExact);
+    }
+
+    /**
+     * 并集
+     *
+     * @param other 另一个集合
+     * @return 并集, 超过上限时退化为 any
+     */
+    public LiteralSet union(LiteralSet other)
+    {
+        TreeSet<String> result = new TreeSet<>(literals);
+        result.addAll(other.literals);
+        if (result.size() > MAX_LITERALS) {
+            return ANY;
+        }
+        return new LiteralSet(result, exact && other.exact);
+    }
+
+    /**
+     * 转换为非精确集合
+     *
+     * @return 非精确集合
+     */
+    public LiteralSet inexact()
+    {
+        return exact ? new LiteralSet(literals, false) : this;
+    }
+
+    @Override
+    public String toString()
+    {
+        return (exact ? "exact" : "inexact") + literals;
+    }
+}
@@ -0,0 +1,64 @@
+package io.github.chutian0610.jregex.literal;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 多字面量过滤器.
+ *
+ * <pre>
+ * 用 65536 位的 bitmap 记录字面量的首字符, 扫描时只有首字符命中的位置才逐个比较字面量。
+ * </pre>
+ *
+ * @author victorchu
+ */
+@Getter
+public final class MultiLiteralPrefilter
+        implements Prefilter
+{
+    private final List<String> literals;
+    private final long[] firstChars = new long[(Character.MAX_VALUE + 1) >>> 6];
+
+    public MultiLiteralPrefilter(List<String> literals)
+    {
+        Preconditions.checkArgument(!literals.isEmpty(), "empty literals");
+        this.literals = ImmutableList.copyOf(literals);
+        for (String literal : literals) {
+            Preconditions.checkArgument(!literal.isEmpty(), "empty literal");
+            char first = literal.charAt(0);
+            firstChars[first >>> 6] |= 1L << first;
+        }
+    }
+
+    @Override
+    public int find(CharSequence text, int from)
+    {
+        final long[] firstChars = this.firstChars;
+        for (int i = from, length = text.length(); i < length; i++) {
+            char ch = text.charAt(i);
+            if ((firstChars[ch >>> 6] & (1L << ch)) != 0 && startsWithAny(text, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean startsWithAny(CharSequence text, int offset)
+    {
+        for (String literal : literals) {
+            if (CharSequences.startsWith(text, literal, offset)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MultiLiteralPrefilter" + literals;
+    }
+}
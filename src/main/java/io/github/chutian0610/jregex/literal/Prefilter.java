@@ -0,0 +1,53 @@
+package io.github.chutian0610.jregex.literal;
+
+import java.util.Optional;
+
+/**
+ * 查找前的字面量过滤器: 快速跳过不可能开始匹配的位置.
+ *
+ * @author victorchu
+ */
+public interface Prefilter
+{
+    /**
+     * 首字符命中后逐个比较的字面量个数上限, 超过时使用 Aho-Corasick
+     */
+    int MULTI_LITERAL_LIMIT = 4;
+
+    /**
+     * 查找第一个可能开始匹配的位置
+     *
+     * @param text 输入
+     * @param from 开始查找的位置
+     * @return 候选位置, 没有候选时返回 -1
+     */
+    int find(CharSequence text, int from);
+
+    /**
+     * 根据前缀字面量集合选择过滤器.
+     *
+     * <pre>
+     * 1. 集合包含空串: 无法过滤
+     * 2. 公共前缀非空: indexOf(公共前缀)
+     * 3. 字面量较少: 首字符 bitmap 扫描
+     * 4. 其他: Aho-Corasick
+     * </pre>
+     *
+     * @param prefixes 前缀字面量集合
+     * @return 过滤器
+     */
+    static Optional<Prefilter> of(LiteralSet prefixes)
+    {
+        if (!prefixes.isUseful()) {
+            return Optional.empty();
+        }
+        String prefix = prefixes.longestCommonPrefix();
+        if (!prefix.isEmpty()) {
+            return Optional.of(new SingleLiteralPrefilter(prefix));
+        }
+        if (prefixes.getLiterals().size() <= MULTI_LITERAL_LIMIT) {
+            return Optional.of(new MultiLiteralPrefilter(prefixes.getLiterals()));
+        }
+        return Optional.of(AhoCorasick.of(prefixes.getLiterals()));
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.chutian0610.jregex.literal;
+
+import io.github.chutian0610.jregex.ast.CharClassExp;
+import io.github.chutian0610.jregex.ast.CharExp;
+import io.github.chutian0610.jregex.ast.CharRangeExp;
+import io.github.chutian0610.jregex.ast.ConcatExp;
+import io.github.chutian0610.jregex.ast.MetaCharExp;
+import io.github.chutian0610.jregex.ast.OrExp;
+import io.github.chutian0610.jregex.ast.RegexExp;
+import io.github.chutian0610.jregex.ast.RegexExpVisitor;
+import io.github.chutian0610.jregex.ast.RepeatExp;
+import io.github.chutian0610.jregex.misc.CharRange;
+import io.github.chutian0610.jregex.misc.CharRanges;
+import io.github.chutian0610.jregex.misc.MetaChars;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 提取表达式的前缀字面量集合.
+ *
+ * <pre>
+ * 1. 字符: {c}, 精确
+ * 2. 字符类: 字符数不超过上限时展开为单字符集合, 精确; 否则为 any
+ * 3. 连接: 左侧精确时与右侧做笛卡尔积, 否则只保留左侧
+ * 4. 或: 并集
+ * 5. 重复: min 个内部集合的连接(min = 0 时包含空串), 只有 min == max 时保持精确
+ * </pre>
+ *
+ * @author victorchu
+ */
+public enum PrefixLiteralExtractor
+        implements RegexExpVisitor<LiteralSet, Void>
+{
+    INSTANCE;
+
+    public static LiteralSet extract(RegexExp regexExp)
+    {
+        return INSTANCE.process(regexExp, null);
+    }
+
+    @Override
+    public LiteralSet visitChar(CharExp node, Void context)
+    {
+        return LiteralSet.of(Collections.singletonList(String.valueOf(node.getCharacter())), true);
+    }
+
+    @Override
+    public LiteralSet visitCharRange(CharRangeExp node, Void context)
+    {
+        return ofRanges(Collections.singletonList(CharRange.of(node.getFrom(), node.getTo())));
+    }
+
+    @Override
+    public LiteralSet visitCharClass(CharClassExp node, Void context)
+    {
+        CharRanges charRanges = CharRanges.fromRegexCharExprs(node.getRegexCharExpList());
+        return ofRanges(node.getNegative() ? charRanges.negative() : charRanges.reduce());
+    }
+
+    @Override
+    public LiteralSet visitMetaChar(MetaCharExp node, Void context)
+    {
+        return ofRanges(MetaChars.getMeta(node.getMetaName()));
+    }
+
+    @Override
+    public LiteralSet visitConcat(ConcatExp node, Void context)
+    {
+        LiteralSet left = process(node.getLeft(), context);
+        if (!left.isExact()) {
+            return left;
+        }
+        return left.concat(process(node.getRight(), context));
+    }
+
+    @Override
+    public LiteralSet visitOr(OrExp node, Void context)
+    {
+        return process(node.getLeft(), context).union(process(node.getRight(), context));
+    }
+
+    @Override
+    public LiteralSet visitRepeat(RepeatExp node, Void context)
+    {
+        LiteralSet inner = process(node.getInner(), context);
+        int min = node.getMin();
+        LiteralSet result = LiteralSet.empty();
+        for (int i = 0; i < min && result.isExact(); i++) {
+            result = result.concat(inner);
+        }
+        if (min == 0) {
+            // 可以匹配空串, 也可以以内部集合开头
+            return node.getMax() != null && node.getMax() == 1 ? result.union(inner) : result.union(inner.inexact()).inexact();
+        }
+        if (node.getMax() == null || node.getMax() != min) {
+            return result.inexact();
+        }
+        return result;
+    }
+
+    private static LiteralSet ofRanges(List<CharRange> ranges)
+    {
+        long count = 0;
+        for (CharRange range : ranges) {
+            count += range.getTo() - range.getFrom() + 1;
+        }
+        if (count > LiteralSet.MAX_LITERALS) {
+            return LiteralSet.any();
+        }
+        List<String> literals = new ArrayList<>();
+        for (CharRange range : ranges) {
+            for (int c = range.getFrom(); c <= range.getTo(); c++) {
+                literals.add(String.valueOf((char) c));
+            }
+        }
+        return LiteralSet.of(literals, true);
+    }
+}
@@ -0,0 +1,280 @@
+package io.github.chutian0610.jregex.literal;
+
+import io.github.chutian0610.jregex.ast.CharClassExp;
+import io.github.chutian0610.jregex.ast.CharExp;
+import io.github.chutian0610.jregex.ast.CharRangeExp;
+import io.github.chutian0610.jregex.ast.ConcatExp;
+import io.github.chutian0610.jregex.ast.MetaCharExp;
+import io.github.chutian0610.jregex.ast.OrExp;
+import io.github.chutian0610.jregex.ast.RegexExp;
+import io.github.chutian0610.jregex.ast.RegexExpVisitor;
+import io.github.chutian0610.jregex.ast.RepeatExp;
+import io.github.chutian0610.jregex.misc.CharRange;
+import io.github.chutian0610.jregex.misc.CharRanges;
+import io.github.chutian0610.jregex.misc.MetaChars;
+import lombok.AllArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 提取每个匹配都必须包含的子串和字符.
+ *
+ * <pre>
+ * 对每个节点计算:
+ * exact: 节点只能匹配的唯一字符串(没有时为 null)
+ * prefix / suffix: 每个匹配都以它开头 / 结尾
+ * required: 每个匹配都包含的子串集合
+ * chars: 每个匹配都包含的字符集合
+ *
+ * 连接时左侧的 suffix 和右侧的 prefix 拼接后也是必须包含的子串;
+ * 或表达式取两侧的交集(以及两侧最长必需子串的最长公共子串);
+ * 最少重复 0 次的重复表达式没有任何必要条件。
+ * 字符串长度上限为 {@link LiteralSet#MAX_LENGTH}, 超出时截断(必需子串的子串仍然是必需的)。
+ * 另外使用 {@link LiteralAlternationDetector#findRequired(RegexExp)} 查找必需的字面量或表达式。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public enum RequiredLiteralExtractor
+        implements RegexExpVisitor<RequiredLiteralExtractor.Factor, Void>
+{
+    INSTANCE;
+
+    /**
+     * 最多保留的必需子串个数
+     */
+    public static final int MAX_SUBSTRINGS = 4;
+    private static final int MAX_CHARS = 64;
+    private static final int MAX_LENGTH = LiteralSet.MAX_LENGTH;
+
+    public static RequiredLiterals extract(RegexExp regexExp)
+    {
+        Factor factor = INSTANCE.process(regexExp, null);
+        Set<String> candidates = new HashSet<>(factor.required);
+        candidates.add(factor.prefix);
+        candidates.add(factor.suffix);
+        // 去掉空串和被其他子串包含的子串, 保留最长的几个
+        List<String> sorted = new ArrayList<>(candidates);
+        sorted.sort(Comparator.comparingInt(String::length).reversed().thenComparing(Comparator.naturalOrder()));
+        List<String> substrings = new ArrayList<>();
+        for (String candidate : sorted) {
+            if (candidate.isEmpty() || substrings.size() >= MAX_SUBSTRINGS) {
+                continue;
+            }
+            if (substrings.stream().noneMatch(x -> x.contains(candidate))) {
+                substrings.add(candidate);
+            }
+        }
+        StringBuilder chars = new StringBuilder();
+        for (char ch : factor.chars) {
+            if (chars.length() < MAX_CHARS && substrings.stream().noneMatch(x -> x.indexOf(ch) >= 0)) {
+                chars.append(ch);
+            }
+        }
+        // 必需的字面量或表达式只有一个分支时已经包含在必需子串中
+        List<String> alternatives = LiteralAlternationDetector.findRequired(regexExp)
+                .filter(literals -> literals.size() > 1)
+                .orElse(Collections.emptyList());
+        return new RequiredLiterals(substrings, chars.toString().toCharArray(), alternatives);
+    }
+
+    @Override
+    public Factor visitChar(CharExp node, Void context)
+    {
+        return Factor.exact(String.valueOf(node.getCharacter()));
+    }
+
+    @Override
+    public Factor visitCharRange(CharRangeExp node, Void context)
+    {
+        return ofRanges(Collections.singletonList(CharRange.of(node.getFrom(), node.getTo())));
+    }
+
+    @Override
+    public Factor visitCharClass(CharClassExp node, Void context)
+    {
+        CharRanges charRanges = CharRanges.fromRegexCharExprs(node.getRegexCharExpList());
+        return ofRanges(node.getNegative() ? charRanges.negative() : charRanges.reduce());
+    }
+
+    @Override
+    public Factor visitMetaChar(MetaCharExp node, Void context)
+    {
+        return ofRanges(MetaChars.getMeta(node.getMetaName()));
+    }
+
+    @Override
+    public Factor visitConcat(ConcatExp node, Void context)
+    {
+        Factor left = process(node.getLeft(), context);
+        Factor right = process(node.getRight(), context);
+        if (left.exact != null && right.exact != null) {
+            return Factor.exact(left.exact + right.exact);
+        }
+        String prefix = left.exact != null ? left.exact + right.prefix : left.prefix;
+        String suffix = right.exact != null ? left.suffix + right.exact : right.suffix;
+        Set<String> required = new HashSet<>(left.required);
+        required.addAll(right.required);
+        required.add(truncate(left.suffix + right.prefix));
+        Set<Character> chars = new TreeSet<>(left.chars);
+        chars.addAll(right.chars);
+        return new Factor(null, truncate(prefix), truncateSuffix(suffix), required, chars);
+    }
+
+    @Override
+    public Factor visitOr(OrExp node, Void context)
+    {
+        Factor left = process(node.getLeft(), context);
+        Factor right = process(node.getRight(), context);
+        if (left.exact != null && left.exact.equals(right.exact)) {
+            return left;
+        }
+        Set<String> required = new HashSet<>(left.required);
+        required.retainAll(right.required);
+        required.add(longestCommonSubstring(longest(left.required), longest(right.required)));
+        Set<Character> chars = new TreeSet<>(left.chars);
+        chars.retainAll(right.chars);
+        return new Factor(null, commonPrefix(left.prefix, right.prefix), commonSuffix(left.suffix, right.suffix), required, chars);
+    }
+
+    @Override
+    public Factor visitRepeat(RepeatExp node, Void context)
+    {
+        int min = node.getMin();
+        if (min == 0) {
+            return node.getMax() != null && node.getMax() == 0 ? Factor.exact("") : Factor.none();
+        }
+        Factor inner = process(node.getInner(), context);
+        if (inner.exact != null) {
+            String repeated = repeat(inner.exact, min);
+            if (node.getMax() != null && node.getMax() == min) {
+                return Factor.exact(repeated);
+            }
+            Factor atLeast = Factor.exact(repeated);
+            return new Factor(null, atLeast.prefix, atLeast.suffix, atLeast.required, atLeast.chars);
+        }
+        Set<String> required = new HashSet<>(inner.required);
+        if (min >= 2) {
+            required.add(truncate(inner.suffix + inner.prefix));
+        }
+        return new Factor(null, inner.prefix, inner.suffix, required, inner.chars);
+    }
+
+    private static Factor ofRanges(List<CharRange> ranges)
+    {
+        if (ranges.size() == 1 && ranges.get(0).isSingle()) {
+            return Factor.exact(String.valueOf(ranges.get(0).getFrom()));
+        }
+        return Factor.none();
+    }
+
+    private static String repeat(String value, int count)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count && sb.length() <= MAX_LENGTH; i++) {
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+
+    private static String truncate(String value)
+    {
+        return value.length() > MAX_LENGTH ? value.substring(0, MAX_LENGTH) : value;
+    }
+
+    private static String truncateSuffix(String value)
+    {
+        return value.length() > MAX_LENGTH ? value.substring(value.length() - MAX_LENGTH) : value;
+    }
+
+    private static String longest(Set<String> values)
+    {
+        return values.stream().max(Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder())).orElse("");
+    }
+
+    private static String commonPrefix(String left, String right)
+    {
+        int length = 0;
+        while (length < left.length() && length < right.length() && left.charAt(length) == right.charAt(length)) {
+            length++;
+        }
+        return left.substring(0, length);
+    }
+
+    private static String commonSuffix(String left, String right)
+    {
+        int length = 0;
+        while (length < left.length() && length < right.length()
+                && left.charAt(left.length() - 1 - length) == right.charAt(right.length() - 1 - length)) {
+            length++;
+        }
+        return left.substring(left.length() - length);
+    }
+
+    /**
+     * 最长公共子串(动态规划, 字符串长度不超过 MAX_LENGTH)
+     */
+    private static String longestCommonSubstring(String left, String right)
+    {
+        int[][] lengths = new int[left.length() + 1][right.length() + 1];
+        int best = 0;
+        int bestEnd = 0;
+        for (int i = 1; i <= left.length(); i++) {
+            for (int j = 1; j <= right.length(); j++) {
+                if (left.charAt(i - 1) == right.charAt(j - 1)) {
+                    lengths[i][j] = lengths[i - 1][j - 1] + 1;
+                    if (lengths[i][j] > best) {
+                        best = lengths[i][j];
+                        bestEnd = i;
+                    }
+                }
+            }
+        }
+        return left.substring(bestEnd - best, bestEnd);
+    }
+
+    /**
+     * 节点的必要条件
+     */
+    @AllArgsConstructor
+    static final class Factor
+    {
+        private final String exact;
+        private final String prefix;
+        private final String suffix;
+        private final Set<String> required;
+        private final Set<Character> chars;
+
+        private static Factor exact(String value)
+        {
+            if (value.length() > MAX_LENGTH) {
+                Set<String> required = new HashSet<>();
+                required.add(truncate(value));
+                return new Factor(null, truncate(value), truncateSuffix(value), required, charsOf(value));
+            }
+            Set<String> required = new HashSet<>();
+            required.add(value);
+            return new Factor(value, value, value, required, charsOf(value));
+        }
+
+        private static Factor none()
+        {
+            return new Factor(null, "", "", new HashSet<>(), new TreeSet<>());
+        }
+
+        private static Set<Character> charsOf(String value)
+        {
+            Set<Character> chars = new TreeSet<>();
+            for (int i = 0; i < value.length(); i++) {
+                chars.add(value.charAt(i));
+            }
+            return chars;
+        }
+    }
+}
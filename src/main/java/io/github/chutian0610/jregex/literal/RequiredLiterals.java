@@ -0,0 +1,104 @@
+package io.github.chutian0610.jregex.literal;
+
+import com.google.common.collect.ImmutableList;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 每个匹配都必须包含的子串和字符(必要条件), 用于在运行自动机之前快速拒绝输入.
+ *
+ * <pre>
+ * substrings 中的子串互不包含; chars 中只保留没有出现在任何子串中的字符(最多 64 个)。
+ * alternatives 是必需的字面量或表达式(如 foo(alpha|beta)bar 中的 alpha|beta), 每个匹配至少包含其中一个。
+ * 检查顺序: 每个子串一次 indexOf(最多 {@link RequiredLiteralExtractor#MAX_SUBSTRINGS} 次), alternatives 一次 {@link AhoCorasick} 扫描,
+ * 所有字符一起在一次扫描中检查: 先用覆盖 [最小字符, 最大字符] 的位图判断是否为必需字符,
+ * 命中时才二分查找它在 missing 位掩码中的位置, 每个输入字符的代价与必需字符个数无关。
+ * </pre>
+ *
+ * @author victorchu
+ */
+@Getter
+public final class RequiredLiterals
+{
+    private final List<String> substrings;
+    private final char[] chars;
+    private final List<String> alternatives;
+    @Getter(AccessLevel.NONE)
+    private final AhoCorasick alternation;
+    /**
+     * 升序的必需字符, 下标即 missing 位掩码中的位置
+     */
+    @Getter(AccessLevel.NONE)
+    private final char[] sortedChars;
+    /**
+     * 必需字符的位图, 第 i 位表示字符 low + i
+     */
+    @Getter(AccessLevel.NONE)
+    private final long[] bitmap;
+    @Getter(AccessLevel.NONE)
+    private final int low;
+
+    RequiredLiterals(List<String> substrings, char[] chars, List<String> alternatives)
+    {
+        this.substrings = ImmutableList.copyOf(substrings);
+        this.chars = chars.clone();
+        this.alternatives = ImmutableList.copyOf(alternatives);
+        this.alternation = alternatives.isEmpty() ? null : AhoCorasick.of(this.alternatives);
+        this.sortedChars = chars.clone();
+        Arrays.sort(sortedChars);
+        this.low = sortedChars.length == 0 ? 0 : sortedChars[0];
+        this.bitmap = new long[sortedChars.length == 0 ? 0 : ((sortedChars[sortedChars.length - 1] - low) >>> 6) + 1];
+        for (char ch : sortedChars) {
+            bitmap[(ch - low) >>> 6] |= 1L << (ch - low);
+        }
+    }
+
+    /**
+     * 是否没有任何必要条件
+     *
+     * @return 是否为空
+     */
+    public boolean isEmpty()
+    {
+        return substrings.isEmpty() && chars.length == 0 && alternatives.isEmpty();
+    }
+
+    /**
+     * 输入是否满足必要条件(返回 false 时一定不匹配)
+     *
+     * @param input 输入
+     * @param from 匹配可能开始的最小位置
+     * @return 是否可能匹配
+     */
+    public boolean mayMatch(CharSequence input, int from)
+    {
+        for (String substring : substrings) {
+            if (CharSequences.indexOf(input, substring, from) < 0) {
+                return false;
+            }
+        }
+        if (alternation != null && alternation.find(input, from) < 0) {
+            return false;
+        }
+        if (chars.length == 0) {
+            return true;
+        }
+        long missing = chars.length == 64 ? -1L : (1L << chars.length) - 1;
+        for (int i = from, length = input.length(); i < length && missing != 0; i++) {
+            int offset = input.charAt(i) - low;
+            if (offset >= 0 && (offset >>> 6) < bitmap.length && (bitmap[offset >>> 6] & (1L << offset)) != 0) {
+                missing &= ~(1L << Arrays.binarySearch(sortedChars, (char) (offset + low)));
+            }
+        }
+        return missing == 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RequiredLiterals" + substrings + new String(chars) + alternatives;
+    }
+}
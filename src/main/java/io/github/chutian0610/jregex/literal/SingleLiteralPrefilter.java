@@ -0,0 +1,32 @@
+package io.github.chutian0610.jregex.literal;
+
+import lombok.Getter;
+
+/**
+ * 单个字面量过滤器(输入为 String 时使用 String.indexOf).
+ *
+ * @author victorchu
+ */
+@Getter
+public final class SingleLiteralPrefilter
+        implements Prefilter
+{
+    private final String literal;
+
+    public SingleLiteralPrefilter(String literal)
+    {
+        this.literal = literal;
+    }
+
+    @Override
+    public int find(CharSequence text, int from)
+    {
+        return CharSequences.indexOf(text, literal, from);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SingleLiteralPrefilter[" + literal + "]";
+    }
+}
@@ -0,0 +1,268 @@
+package io.github.chutian0610.jregex.misc;
+
+import com.google.common.base.Preconditions;
+import io.github.chutian0610.jregex.automata.Edge;
+import io.github.chutian0610.jregex.automata.edge.CharacterEdge;
+import io.github.chutian0610.jregex.automata.edge.CharacterRangeEdge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 字符等价类映射.
+ *
+ * <pre>
+ * 将 [0x0000-0xFFFF] 划分为互不相交的等价类: 被同一组区间覆盖的字符属于同一个等价类,
+ * 它们在自动机中的行为完全相同。
+ * 等价类 0 固定表示不被任何区间覆盖的字符。
+ *
+ * 字符到等价类的映射使用两级查找表: 高 8 位定位块, 低 8 位在块内定位等价类, 内容相同的块共享存储。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public final class CharClassMap
+{
+    private static final int BLOCK_BITS = 8;
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    /**
+     * 高8位 -> 块在 blocks 中的偏移
+     */
+    private final int[] blockIndex;
+    /**
+     * 去重后的块
+     */
+    private final char[] blocks;
+    /**
+     * 基本区间的起点(有序), 第 i 个基本区间为 [intervalStarts[i], intervalStarts[i+1] - 1]
+     */
+    private final char[] intervalStarts;
+    /**
+     * 基本区间 -> 等价类
+     */
+    private final int[] intervalClasses;
+    /**
+     * 等价类 -> 基本区间下标
+     */
+    private final int[][] classIntervals;
+    private final int classCount;
+
+    private CharClassMap(char[] intervalStarts, int[] intervalClasses, int classCount)
+    {
+        this.intervalStarts = intervalStarts;
+        this.intervalClasses = intervalClasses;
+        this.classCount = classCount;
+        this.classIntervals = buildClassIntervals();
+        this.blockIndex = new int[BLOCK_SIZE];
+        this.blocks = buildBlocks();
+    }
+
+    public static CharClassMap of(Collection<CharRange> ranges)
+    {
+        // 所有区间边界, 切分出基本区间
+        TreeSet<Integer> bounds = new TreeSet<>();
+        bounds.add((int) Character.MIN_VALUE);
+        Set<CharRange> distinct = new LinkedHashSet<>(ranges);
+        for (CharRange range : distinct) {
+            bounds.add((int) range.getFrom());
+            if (range.getTo() != Character.MAX_VALUE) {
+                bounds.add(range.getTo() + 1);
+            }
+        }
+        char[] starts = new char[bounds.size()];
+        int index = 0;
+        for (Integer bound : bounds) {
+            starts[index++] = (char) bound.intValue();
+        }
+        // 逐个区间细分等价类
+        int[] classes = new int[starts.length];
+        int nextClass = 1;
+        for (CharRange range : distinct) {
+            Map<Integer, Integer> remap = new HashMap<>();
+            for (int i = Arrays.binarySearch(starts, range.getFrom()); i < starts.length && starts[i] <= range.getTo(); i++) {
+                Integer mapped = remap.get(classes[i]);
+                if (mapped == null) {
+                    mapped = nextClass++;
+                    remap.put(classes[i], mapped);
+                }
+                classes[i] = mapped;
+            }
+        }
+        // 等价类重新紧凑编号, 0 保留给未覆盖字符
+        Map<Integer, Integer> compact = new HashMap<>();
+        compact.put(0, 0);
+        for (int i = 0; i < classes.length; i++) {
+            Integer mapped = compact.get(classes[i]);
+            if (mapped == null) {
+                mapped = compact.size();
+                compact.put(classes[i], mapped);
+            }
+            classes[i] = mapped;
+        }
+        return new CharClassMap(starts, classes, compact.size());
+    }
+
+    public static CharClassMap fromEdges(Collection<Edge> edges)
+    {
+        List<CharRange> ranges = new ArrayList<>();
+        for (Edge edge : edges) {
+            CharRange range = toCharRange(edge);
+            if (range != null) {
+                ranges.add(range);
+            }
+        }
+        return of(ranges);
+    }
+
+    /**
+     * 将字符边转为区间, epsilon 边返回 null.
+     *
+     * @param edge 边
+     * @return 区间
+     */
+    public static CharRange toCharRange(Edge edge)
+    {
+        if (edge instanceof CharacterEdge) {
+            return CharRange.of(((CharacterEdge) edge).getCharacter());
+        }
+        if (edge instanceof CharacterRangeEdge) {
+            return CharRange.of(((CharacterRangeEdge) edge).getFrom(), ((CharacterRangeEdge) edge).getTo());
+        }
+        return null;
+    }
+
+    private int[][] buildClassIntervals()
+    {
+        int[] counts = new int[classCount];
+        for (int classId : intervalClasses) {
+            counts[classId]++;
+        }
+        int[][] result = new int[classCount][];
+        for (int i = 0; i < classCount; i++) {
+            result[i] = new int[counts[i]];
+            counts[i] = 0;
+        }
+        for (int i = 0; i < intervalClasses.length; i++) {
+            result[intervalClasses[i]][counts[intervalClasses[i]]++] = i;
+        }
+        return result;
+    }
+
+    private char[] buildBlocks()
+    {
+        Map<String, Integer> distinct = new HashMap<>();
+        char[] result = new char[BLOCK_SIZE * BLOCK_SIZE];
+        int used = 0;
+        int interval = 0;
+        char[] block = new char[BLOCK_SIZE];
+        for (int high = 0; high < BLOCK_SIZE; high++) {
+            for (int low = 0; low < BLOCK_SIZE; low++) {
+                int ch = (high << BLOCK_BITS) | low;
+                while (interval + 1 < intervalStarts.length && intervalStarts[interval + 1] <= ch) {
+                    interval++;
+                }
+                block[low] = (char) intervalClasses[interval];
+            }
+            String key = new String(block);
+            Integer offset = distinct.get(key);
+            if (offset == null) {
+                offset = used;
+                System.arraycopy(block, 0, result, used, BLOCK_SIZE);
+                used += BLOCK_SIZE;
+                distinct.put(key, offset);
+            }
+            blockIndex[high] = offset;
+        }
+        return Arrays.copyOf(result, used);
+    }
+
+    /**
+     * 字符所属的等价类
+     *
+     * @param ch 字符
+     * @return 等价类 id
+     */
+    public int classOf(char ch)
+    {
+        return blocks[blockIndex[ch >>> BLOCK_BITS] + (ch & BLOCK_MASK)];
+    }
+
+    public int getClassCount()
+    {
+        return classCount;
+    }
+
+    /**
+     * 区间 [from, to] 覆盖的所有等价类.
+     *
+     * @param from 起始字符
+     * @param to 结束字符
+     * @return 等价类 id (升序)
+     */
+    public int[] classesOf(char from, char to)
+    {
+        boolean[] marked = new boolean[classCount];
+        int count = 0;
+        for (int i = findInterval(from); i < intervalStarts.length && intervalStarts[i] <= to; i++) {
+            if (!marked[intervalClasses[i]]) {
+                marked[intervalClasses[i]] = true;
+                count++;
+            }
+        }
+        int[] result = new int[count];
+        for (int i = 0, j = 0; i < classCount; i++) {
+            if (marked[i]) {
+                result[j++] = i;
+            }
+        }
+        return result;
+    }
+
+    public int[] classesOf(CharRange range)
+    {
+        return classesOf(range.getFrom(), range.getTo());
+    }
+
+    /**
+     * 等价类包含的字符区间.
+     *
+     * @param classId 等价类 id
+     * @return 有序区间
+     */
+    public List<CharRange> rangesOf(int classId)
+    {
+        List<CharRange> ranges = new ArrayList<>(classIntervals[classId].length);
+        for (int i : classIntervals[classId]) {
+            char to = i + 1 < intervalStarts.length ? (char) (intervalStarts[i + 1] - 1) : Character.MAX_VALUE;
+            ranges.add(CharRange.of(intervalStarts[i], to));
+        }
+        return ranges;
+    }
+
+    /**
+     * 等价类中的一个代表字符
+     *
+     * @param classId 等价类 id
+     * @return 代表字符
+     */
+    public char representativeOf(int classId)
+    {
+        Preconditions.checkArgument(classIntervals[classId].length > 0, "empty char class: %s", classId);
+        return intervalStarts[classIntervals[classId][0]];
+    }
+
+    private int findInterval(char ch)
+    {
+        int index = Arrays.binarySearch(intervalStarts, ch);
+        return index >= 0 ? index : -index - 2;
+    }
+}
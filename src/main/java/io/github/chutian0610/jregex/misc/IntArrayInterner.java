@@ -0,0 +1,193 @@
+package io.github.chutian0610.jregex.misc;
+
+import java.util.Arrays;
+
+/**
+ * int 数组驻留表(开放寻址), 用于子集构造中 NFA 状态集合(升序 int[]) -> DFA 状态编号的映射.
+ *
+ * <pre>
+ * 1. 每个不同的数组按加入顺序分配稠密编号 [0, size), 可以通过编号取回数组;
+ * 2. 哈希表只保存 编号 + 1(0 表示空槽), 线性探测, 负载因子不超过 1/2; 每个数组的 hash 只计算一次并保存在 hashes 中,
+ *    扩容时不需要重新计算, 探测时先比较 hash 再比较数组内容;
+ * 3. 查找可以直接使用调用方复用的缓冲区(数组前缀), 只有插入新数组时才复制, 命中时不分配任何对象。
+ *
+ * 非线程安全。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public final class IntArrayInterner
+{
+    private static final int NOT_FOUND = -1;
+
+    private int[] table;
+    private int mask;
+    private int[][] arrays;
+    private int[] hashes;
+    private int size;
+
+    public IntArrayInterner()
+    {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize 预计的数组个数
+     */
+    public IntArrayInterner(int expectedSize)
+    {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        this.table = new int[capacity];
+        this.mask = capacity - 1;
+        this.arrays = new int[Math.max(expectedSize, 4)][];
+        this.hashes = new int[arrays.length];
+    }
+
+    /**
+     * 查找数组的编号
+     *
+     * @param array 数组
+     * @return 编号, 不存在时返回 -1
+     */
+    public int indexOf(int[] array)
+    {
+        return indexOf(array, array.length);
+    }
+
+    /**
+     * 查找数组前缀的编号
+     *
+     * @param buffer 缓冲区
+     * @param length 前缀长度
+     * @return 编号, 不存在时返回 -1
+     */
+    public int indexOf(int[] buffer, int length)
+    {
+        int hash = hash(buffer, length);
+        for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && equals(arrays[id], buffer, length)) {
+                return id;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * 驻留数组, 数组不存在时直接保存引用, 调用方之后不能再修改数组.
+     *
+     * @param array 数组
+     * @return 编号
+     */
+    public int intern(int[] array)
+    {
+        return intern(array, array.length, false);
+    }
+
+    /**
+     * 驻留数组前缀, 前缀不存在时保存它的拷贝, 缓冲区可以继续复用.
+     *
+     * @param buffer 缓冲区
+     * @param length 前缀长度
+     * @return 编号
+     */
+    public int intern(int[] buffer, int length)
+    {
+        return intern(buffer, length, true);
+    }
+
+    private int intern(int[] buffer, int length, boolean copy)
+    {
+        int hash = hash(buffer, length);
+        int slot = hash & mask;
+        for (; table[slot] != 0; slot = (slot + 1) & mask) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && equals(arrays[id], buffer, length)) {
+                return id;
+            }
+        }
+        int id = size;
+        if (id == arrays.length) {
+            arrays = Arrays.copyOf(arrays, id * 2);
+            hashes = Arrays.copyOf(hashes, id * 2);
+        }
+        arrays[id] = copy || length != buffer.length ? Arrays.copyOf(buffer, length) : buffer;
+        hashes[id] = hash;
+        table[slot] = id + 1;
+        size++;
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return id;
+    }
+
+    /**
+     * 编号对应的数组
+     *
+     * @param id 编号
+     * @return 数组, 调用方不能修改
+     */
+    public int[] get(int id)
+    {
+        return arrays[id];
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * 清空所有数组, 保留已分配的容量
+     */
+    public void clear()
+    {
+        Arrays.fill(table, 0);
+        Arrays.fill(arrays, 0, size, null);
+        size = 0;
+    }
+
+    private void rehash(int capacity)
+    {
+        int[] rehashed = new int[capacity];
+        int newMask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & newMask;
+            while (rehashed[slot] != 0) {
+                slot = (slot + 1) & newMask;
+            }
+            rehashed[slot] = id + 1;
+        }
+        this.table = rehashed;
+        this.mask = newMask;
+    }
+
+    private static int hash(int[] buffer, int length)
+    {
+        int h = 1;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + buffer[i];
+        }
+        // 打散低位, 线性探测只使用低位
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean equals(int[] array, int[] buffer, int length)
+    {
+        if (array.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (array[i] != buffer[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.chutian0610.jregex.misc;
+
+import java.util.Arrays;
+
+/**
+ * 稀疏集合(Briggs–Torczon).
+ *
+ * <pre>
+ * 元素范围为 [0, capacity), dense 按插入顺序保存元素, sparse 保存元素在 dense 中的位置。
+ * contains / add / clear 都是 O(1), clear 不需要清空数组, 因此可以在多次计算之间反复复用。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public final class SparseSet
+{
+    private final int[] dense;
+    private final int[] sparse;
+    private int size;
+
+    public SparseSet(int capacity)
+    {
+        this.dense = new int[capacity];
+        this.sparse = new int[capacity];
+    }
+
+    public boolean contains(int value)
+    {
+        int index = sparse[value];
+        return index < size && dense[index] == value;
+    }
+
+    /**
+     * 添加元素
+     *
+     * @param value 元素
+     * @return 元素之前不存在时返回 true
+     */
+    public boolean add(int value)
+    {
+        if (contains(value)) {
+            return false;
+        }
+        dense[size] = value;
+        sparse[value] = size;
+        size++;
+        return true;
+    }
+
+    /**
+     * 按插入顺序获取元素
+     *
+     * @param index 下标
+     * @return 元素
+     */
+    public int get(int index)
+    {
+        return dense[index];
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public int capacity()
+    {
+        return dense.length;
+    }
+
+    public void clear()
+    {
+        size = 0;
+    }
+
+    /**
+     * 拷贝为有序数组
+     *
+     * @return 升序元素
+     */
+    public int[] toSortedArray()
+    {
+        int[] result = Arrays.copyOf(dense, size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * 按升序拷贝到缓冲区, 不分配新数组
+     *
+     * @param buffer 缓冲区, 长度不小于 size
+     * @return 元素个数
+     */
+    public int toSortedArray(int[] buffer)
+    {
+        System.arraycopy(dense, 0, buffer, 0, size);
+        Arrays.sort(buffer, 0, size);
+        return size;
+    }
+}
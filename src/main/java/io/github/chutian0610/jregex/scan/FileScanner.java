@@ -0,0 +1,146 @@
+package io.github.chutian0610.jregex.scan;
+
+import com.google.common.base.Preconditions;
+import io.github.chutian0610.jregex.ast.RegexParser;
+import io.github.chutian0610.jregex.automata.utf8.Utf8DFA;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 基于内存映射的 UTF-8 文件扫描(类似 grep), 报告包含匹配的行.
+ *
+ * <pre>
+ * 1. 文件按窗口({@link FileChannel#map}) 映射, 窗口大小不超过 2GB, 因此可以扫描任意大小的文件;
+ *    DFA 状态, 行号和行首偏移量都在窗口之间延续, 跨越窗口的行不需要特殊处理。
+ * 2. 每一行从 .*R 字节 DFA({@link Utf8DFA#compileSearch}) 的起始状态开始, 第一次到达接受状态时报告该行,
+ *    然后跳到下一个换行符, 因此每行只报告最早结束的匹配的结束位置({@link LineMatch}), 不报告开始位置和之后的匹配。
+ *    换行符(\n)不参与匹配, \r 作为行内容的一部分; 辅助平面字符(4 字节 UTF-8)和其他字符一样参与匹配。
+ * 3. 遇到非法的 UTF-8 字节序列时从起始状态重新开始, 匹配不会跨越非法字节。
+ *
+ * 扫描过程中不会把文件内容复制到堆内存。DFA 不可变, 扫描器是线程安全的。
+ * </pre>
+ *
+ * @author victorchu
+ */
+public final class FileScanner
+{
+    /**
+     * 默认窗口大小 1GB
+     */
+    public static final long DEFAULT_WINDOW_BYTES = 1L << 30;
+    private static final byte NEW_LINE = '\n';
+
+    private final Utf8DFA dfa;
+    private final long windowBytes;
+
+    private FileScanner(Utf8DFA dfa, long windowBytes)
+    {
+        Preconditions.checkArgument(0 < windowBytes && windowBytes <= Integer.MAX_VALUE, "invalid window size: %s", windowBytes);
+        this.dfa = dfa;
+        this.windowBytes = windowBytes;
+    }
+
+    public static FileScanner compile(String regex)
+    {
+        return compile(regex, DEFAULT_WINDOW_BYTES);
+    }
+
+    /**
+     * @param regex 正则表达式
+     * @param windowBytes 每次映射的字节数
+     * @return 扫描器
+     */
+    public static FileScanner compile(String regex, long windowBytes)
+    {
+        return new FileScanner(Utf8DFA.compileSearch(RegexParser.parse(regex)), windowBytes);
+    }
+
+    /**
+     * 扫描文件, 返回所有包含匹配的行
+     *
+     * @param path 文件
+     * @return 匹配的行
+     * @throws IOException 读取失败
+     */
+    public List<LineMatch> scan(Path path)
+            throws IOException
+    {
+        List<LineMatch> result = new ArrayList<>();
+        scan(path, result::add);
+        return result;
+    }
+
+    /**
+     * 扫描文件, 每个包含匹配的行回调一次
+     *
+     * @param path 文件
+     * @param consumer 回调
+     * @return 匹配的行数
+     * @throws IOException 读取失败
+     */
+    public long scan(Path path, Consumer<LineMatch> consumer)
+            throws IOException
+    {
+        final Utf8DFA dfa = this.dfa;
+        final int start = dfa.getStart();
+        final boolean emptyMatch = dfa.isAccept(start);
+        long count = 0;
+        long lineNumber = 1;
+        long lineOffset = 0;
+        boolean matched = false;
+        int state = start;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += windowBytes) {
+                int length = (int) Math.min(windowBytes, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                for (int i = 0; i < length; i++) {
+                    byte b = window.get(i);
+                    if (b == NEW_LINE) {
+                        if (!matched && emptyMatch) {
+                            // 空行也可以匹配
+                            consumer.accept(LineMatch.of(lineNumber, lineOffset, lineOffset));
+                            count++;
+                        }
+                        lineNumber++;
+                        lineOffset = position + i + 1;
+                        matched = false;
+                        state = start;
+                        continue;
+                    }
+                    if (matched) {
+                        continue;
+                    }
+                    if (emptyMatch) {
+                        consumer.accept(LineMatch.of(lineNumber, lineOffset, lineOffset));
+                        count++;
+                        matched = true;
+                        continue;
+                    }
+                    state = dfa.next(state, b);
+                    if (state == Utf8DFA.DEAD) {
+                        // 非法的字节序列, 从当前字节重新开始; 当前字节本身非法时从下一个字节开始
+                        state = dfa.next(start, b);
+                        if (state == Utf8DFA.DEAD) {
+                            state = start;
+                            continue;
+                        }
+                    }
+                    if (dfa.isAccept(state)) {
+                        consumer.accept(LineMatch.of(lineNumber, lineOffset, position + i + 1));
+                        count++;
+                        matched = true;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+}
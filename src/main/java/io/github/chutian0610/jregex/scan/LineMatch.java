@@ -0,0 +1,33 @@
+package io.github.chutian0610.jregex.scan;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 文件中匹配的行.
+ *
+ * <pre>
+ * 每行只报告一次: matchEnd 是行内最早结束的匹配的结束位置, 之后的匹配不再报告。
+ * 扫描是单向的 .*R 字节 DFA, 不记录匹配的开始位置; 需要开始位置时可以用 {@link io.github.chutian0610.jregex.Pattern#find}
+ * 在 [lineOffset, matchEnd) 对应的行内容上重新查找。
+ * </pre>
+ *
+ * @author victorchu
+ */
+@Data
+@AllArgsConstructor(staticName = "of")
+public class LineMatch
+{
+    /**
+     * 行号, 从 1 开始
+     */
+    private final long lineNumber;
+    /**
+     * 行首在文件中的字节偏移量
+     */
+    private final long lineOffset;
+    /**
+     * 行内最早结束的匹配的结束字节偏移量(不包含), 不是匹配的开始位置
+     */
+    private final long matchEnd;
+}
@@ -0,0 +1,85 @@
+package io.github.chutian0610.jregex;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @author victorchu
+ */
+@DisplayName("Pattern 缓存测试")
+@Slf4j
+class PatternCacheTest
+{
+    @Test
+    @DisplayName("测试-命中和淘汰统计")
+    void cache01()
+    {
+        // 每个表达式的查找缓存为 2 * 8KB, 256KB 最多容纳 16 个
+        PatternCache cache = new PatternCache(256 * 1024, 8 * 1024);
+        Pattern first = cache.get("[a-z]+\\d");
+        Assertions.assertTrue(first.getMemoryBytes() > 2 * 8 * 1024);
+        Assertions.assertSame(first, cache.get("[a-z]+\\d"));
+        Assertions.assertEquals(1, cache.stats().hitCount());
+        Assertions.assertEquals(1, cache.stats().missCount());
+        for (int i = 0; i < 50; i++) {
+            cache.get("abc" + i + "(x|y)*z");
+        }
+        Assertions.assertTrue(cache.stats().evictionCount() > 0);
+        Assertions.assertTrue(cache.size() <= 16);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> cache.get("a{"));
+    }
+
+    @Test
+    @DisplayName("测试-并发请求只编译一次")
+    void cache02()
+            throws Exception
+    {
+        PatternCache cache = new PatternCache();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch ready = new CountDownLatch(1);
+        try {
+            List<Future<Pattern>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    ready.await();
+                    return cache.get("(a|b)*a(a|b){12}");
+                }));
+            }
+            ready.countDown();
+            Pattern pattern = futures.get(0).get();
+            for (Future<Pattern> future : futures) {
+                Assertions.assertSame(pattern, future.get());
+            }
+            Assertions.assertEquals(1, cache.stats().loadSuccessCount());
+            Assertions.assertEquals(8, cache.stats().requestCount());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("测试-较小的查找缓存预算编译大表达式")
+    void cache03()
+    {
+        // 每个惰性 DFA 只有 4KB, 小于单个状态编码的上限
+        PatternCache cache = new PatternCache(16L << 20, 4096);
+        Pattern pattern = cache.get("x[0-9a-f]{3000}");
+        String hex = String.join("", Collections.nCopies(750, "0a9f"));
+        Assertions.assertEquals(MatchSpan.of(1, 2 + hex.length()), pattern.find("-x" + hex + "-").get());
+        Assertions.assertTrue(pattern.matches("x" + hex));
+        Assertions.assertFalse(pattern.matches("x" + hex.substring(1)));
+        Assertions.assertTrue(cache.get("(abc){500}x").matches(String.join("", Collections.nCopies(500, "abc")) + "x"));
+        Assertions.assertEquals(2, cache.size());
+    }
+}
@@ -0,0 +1,233 @@
+package io.github.chutian0610.jregex;
+
+import io.github.chutian0610.jregex.ast.RegexParser;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraph;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraphMatcher;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @author victorchu
+ */
+@DisplayName("Pattern 查找测试")
+@Slf4j
+class PatternTest
+{
+    @Test
+    @DisplayName("测试-最左最长匹配")
+    void find01()
+    {
+        Pattern pattern = Pattern.compile("abcd|c|bcdef");
+        Assertions.assertEquals(Optional.of(MatchSpan.of(0, 4)), pattern.find("abcdef"));
+        Assertions.assertEquals(Optional.of(MatchSpan.of(1, 6)), pattern.find("abcdef", 1));
+        Assertions.assertEquals(Optional.of(MatchSpan.of(2, 3)), pattern.find("xxcbcx"));
+        Assertions.assertEquals(Optional.empty(), pattern.find("xyz"));
+
+        Pattern number = Pattern.compile("\\d+");
+        String line = "2024-05-01 level=3 cost=125ms";
+        Assertions.assertEquals(Arrays.asList(MatchSpan.of(0, 4), MatchSpan.of(5, 7), MatchSpan.of(8, 10),
+                MatchSpan.of(17, 18), MatchSpan.of(24, 27)), number.findAll(line));
+        Assertions.assertEquals("125", number.find(line, 20).get().group(line));
+    }
+
+    @Test
+    @DisplayName("测试-空匹配")
+    void find02()
+    {
+        Pattern pattern = Pattern.compile("a*");
+        Assertions.assertEquals(Arrays.asList(MatchSpan.of(0, 0), MatchSpan.of(1, 3), MatchSpan.of(3, 3)), pattern.findAll("baa"));
+        Assertions.assertEquals(Optional.of(MatchSpan.of(0, 0)), pattern.find(""));
+    }
+
+    @Test
+    @DisplayName("测试-与暴力查找结果一致")
+    void find03()
+    {
+        String[] regexes = {"ab", "a|b", "a*b", "a{2,4}b?", "(a|b)*abb", "b(ab)*a", "[a-c]{2}", "(ab|a)(bc|c)?", "a+|b+"};
+        Random random = new Random(11);
+        for (String regex : regexes) {
+            Pattern pattern = Pattern.compile(regex);
+            NFAGraphMatcher matcher = new NFAGraphMatcher(NFAGraph.build(RegexParser.parse(regex)));
+            for (int round = 0; round < 50; round++) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0, length = random.nextInt(12); i < length; i++) {
+                    sb.append("abc".charAt(random.nextInt(3)));
+                }
+                String input = sb.toString();
+                Assertions.assertEquals(bruteForce(matcher, input), pattern.find(input), regex + " : " + input);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("测试-前缀过滤")
+    void find04()
+    {
+        Pattern pattern = Pattern.compile("ERROR\\s+\\d+");
+        Assertions.assertTrue(pattern.getPrefilter().isPresent());
+        String line = "WARN 1 ERRORx ERROR\t2 ERROR\t\t37 ERROR";
+        Assertions.assertEquals(Arrays.asList(MatchSpan.of(14, 21), MatchSpan.of(22, 31)), pattern.findAll(line));
+
+        String[] regexes = {"ab+", "abc|abd|b", "[ab]{2}c", "x?ab", "(ab|ba)c?"};
+        Random random = new Random(5);
+        for (String regex : regexes) {
+            Pattern filtered = Pattern.compile(regex);
+            Assertions.assertTrue(filtered.getPrefilter().isPresent(), regex);
+            NFAGraphMatcher matcher = new NFAGraphMatcher(NFAGraph.build(RegexParser.parse(regex)));
+            for (int round = 0; round < 50; round++) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0, length = random.nextInt(16); i < length; i++) {
+                    sb.append("abcdx".charAt(random.nextInt(5)));
+                }
+                String input = sb.toString();
+                Assertions.assertEquals(bruteForce(matcher, input), filtered.find(input), regex + " : " + input);
+            }
+        }
+    }
+
+    private static Optional<MatchSpan> bruteForce(NFAGraphMatcher matcher, String input)
+    {
+        for (int start = 0; start <= input.length(); start++) {
+            for (int end = input.length(); end >= start; end--) {
+                if (matcher.matches(input.substring(start, end))) {
+                    return Optional.of(MatchSpan.of(start, end));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Test
+    @DisplayName("测试-匹配长度范围")
+    void matchLength01()
+    {
+        Pattern pattern = Pattern.compile("[a-z]{3,5}\\d");
+        Assertions.assertEquals(4, pattern.getMatchLength().getMin());
+        Assertions.assertEquals(6, pattern.getMatchLength().getMax());
+        Assertions.assertFalse(pattern.matches("ab1"));
+        Assertions.assertFalse(pattern.matches("abcdef1"));
+        Assertions.assertTrue(pattern.matches("abcd1"));
+        Assertions.assertEquals(Optional.of(MatchSpan.of(2, 6)), pattern.find("1.abc2xy3"));
+        Assertions.assertEquals(Optional.empty(), pattern.find("1.abc2xy3", 3));
+        Assertions.assertEquals(Arrays.asList(MatchSpan.of(0, 4), MatchSpan.of(6, 12)), pattern.findAll("abc1 zabcde9 ab3"));
+    }
+
+    @Test
+    @DisplayName("测试-CharSequence和char[]区间输入")
+    void charSequence01()
+    {
+        Pattern pattern = Pattern.compile("[a-z]+\\d");
+        StringBuilder builder = new StringBuilder("xx--abc1--");
+        Assertions.assertEquals(Optional.of(MatchSpan.of(4, 8)), pattern.find(builder));
+        Assertions.assertEquals("abc1", pattern.find(builder).get().group(builder));
+        Assertions.assertFalse(pattern.matches(builder));
+        Assertions.assertTrue(pattern.matches(builder.subSequence(4, 8)));
+
+        char[] array = "--abc1--de2".toCharArray();
+        Assertions.assertTrue(pattern.matches(array, 2, 4));
+        Assertions.assertFalse(pattern.matches(array, 2, 5));
+        Assertions.assertEquals(Optional.of(MatchSpan.of(8, 11)), pattern.find(array, 6, 5));
+        Assertions.assertEquals(Optional.empty(), pattern.find(array, 6, 4));
+
+        CharBuffer slice = CharBuffer.wrap(array, 8, 3).slice();
+        Assertions.assertTrue(pattern.matches(slice));
+        Assertions.assertEquals(Arrays.asList(MatchSpan.of(0, 3)), pattern.findAll(slice));
+    }
+
+    @Test
+    @DisplayName("测试-批量匹配")
+    void matchAll01()
+    {
+        Pattern pattern = Pattern.compile("[a-z]+\\d");
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            inputs.add(i % 3 == 0 ? "abc" + i % 10 : "x" + i);
+        }
+        BitSet bits = pattern.matchAll(inputs);
+        boolean[] flags = pattern.matchAll(inputs.toArray(new CharSequence[0]));
+        for (int i = 0; i < inputs.size(); i++) {
+            Assertions.assertEquals(pattern.matches(inputs.get(i)), bits.get(i));
+            Assertions.assertEquals(pattern.matches(inputs.get(i)), flags[i]);
+        }
+        // abcN 3334 个, 以及 x1, x2, x4, x5, x7, x8
+        Assertions.assertEquals(3334 + 6, bits.cardinality());
+    }
+
+    @Test
+    @DisplayName("测试-多线程共享同一个 Pattern")
+    void concurrent01()
+            throws Exception
+    {
+        Pattern pattern = Pattern.compile("(a|b)*a(a|b){6}c");
+        Random random = new Random(21);
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            StringBuilder input = new StringBuilder();
+            for (int j = random.nextInt(60); j > 0; j--) {
+                input.append((char) ('a' + random.nextInt(3)));
+            }
+            inputs.add(input.toString());
+        }
+        List<List<MatchSpan>> expected = new ArrayList<>();
+        for (String input : inputs) {
+            expected.add(pattern.findAll(input));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int round = 0; round < 20; round++) {
+                        for (int i = 0; i < inputs.size(); i++) {
+                            if (!expected.get(i).equals(pattern.findAll(inputs.get(i)))
+                                    || pattern.matches(inputs.get(i)) != (expected.get(i).size() == 1 && expected.get(i).get(0).length() == inputs.get(i).length())) {
+                                return false;
+                            }
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                Assertions.assertTrue(future.get());
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("测试-大规模表达式")
+    void large01()
+    {
+        // 约 10 万个 NFA 状态, 状态编码的上限超过默认缓存预算, 缓存按实际构造的状态计算
+        Pattern pattern = Pattern.compile("x[0-9a-f]{25000}");
+        String hex = String.join("", Collections.nCopies(6250, "0a9f"));
+        Optional<MatchSpan> span = pattern.find("--x" + hex + "--");
+        Assertions.assertTrue(span.isPresent());
+        Assertions.assertEquals(2, span.get().getStart());
+        Assertions.assertEquals(3 + hex.length(), span.get().getEnd());
+        Assertions.assertFalse(pattern.find("--x" + hex.substring(1) + "--").isPresent());
+        Assertions.assertTrue(pattern.matches("x" + hex));
+
+        pattern = Pattern.compile("(abc){20000}");
+        String abc = String.join("", Collections.nCopies(20000, "abc"));
+        Assertions.assertTrue(pattern.matches(abc));
+        Assertions.assertFalse(pattern.find(abc.substring(0, 300)).isPresent());
+    }
+}
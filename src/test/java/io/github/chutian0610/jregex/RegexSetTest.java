@@ -0,0 +1,60 @@
+package io.github.chutian0610.jregex;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author victorchu
+ */
+@DisplayName("多模式匹配测试")
+@Slf4j
+class RegexSetTest
+{
+    @Test
+    @DisplayName("测试-等价接受状态按照模式区分")
+    void matchAll01()
+    {
+        // 两个模式的接受状态在单模式最小化中是等价的
+        RegexSet regexSet = RegexSet.compile("ab", "cb", "[a-c]b", "x*");
+        Assertions.assertArrayEquals(new int[] {0, 2}, regexSet.matchAll("ab"));
+        Assertions.assertArrayEquals(new int[] {1, 2}, regexSet.matchAll("cb"));
+        Assertions.assertArrayEquals(new int[] {2}, regexSet.matchAll("bb"));
+        Assertions.assertArrayEquals(new int[] {3}, regexSet.matchAll(""));
+        Assertions.assertArrayEquals(new int[0], regexSet.matchAll("db"));
+        Assertions.assertFalse(regexSet.matchesAny("db"));
+        Assertions.assertTrue(regexSet.matchesAny("xx"));
+    }
+
+    @Test
+    @DisplayName("测试-与逐个匹配结果一致")
+    void matchAll02()
+    {
+        String[] regexes = {"(a|b)*abb", "a+", "b(ab)*", "[ab]{2,3}", ".*", "a?b?", "\\d+"};
+        List<Pattern> patterns = new ArrayList<>();
+        for (String regex : regexes) {
+            patterns.add(Pattern.compile(regex));
+        }
+        RegexSet regexSet = RegexSet.compile(regexes);
+        Random random = new Random(3);
+        for (int round = 0; round < 200; round++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0, length = random.nextInt(8); i < length; i++) {
+                sb.append("ab1".charAt(random.nextInt(3)));
+            }
+            String input = sb.toString();
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < patterns.size(); i++) {
+                if (patterns.get(i).matches(input)) {
+                    expected.add(i);
+                }
+            }
+            Assertions.assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), regexSet.matchAll(input), input);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.chutian0610.jregex.ast;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author victorchu
+ */
+@DisplayName("匹配长度分析测试")
+@Slf4j
+class MatchLengthAnalyzerTest
+{
+    private static MatchLength analyze(String regex)
+    {
+        return MatchLengthAnalyzer.analyze(RegexParser.parse(regex));
+    }
+
+    @Test
+    @DisplayName("测试-定长和有界表达式")
+    void analyze01()
+    {
+        Assertions.assertEquals(MatchLength.of(3, 3), analyze("a[bc]\\d"));
+        Assertions.assertEquals(MatchLength.of(1, 5), analyze("abcde|x"));
+        Assertions.assertEquals(MatchLength.of(1, 8), analyze("a(bc){0,3}d?"));
+        Assertions.assertEquals(MatchLength.of(6, 6), analyze("(ab|cd){3}"));
+        Assertions.assertTrue(analyze("a(bc){0,3}d?").isBounded());
+    }
+
+    @Test
+    @DisplayName("测试-无上限表达式")
+    void analyze02()
+    {
+        Assertions.assertEquals(MatchLength.of(0, MatchLength.UNBOUNDED), analyze("a*"));
+        Assertions.assertEquals(MatchLength.of(4, MatchLength.UNBOUNDED), analyze("ab(cd)+"));
+        Assertions.assertEquals(MatchLength.of(2, MatchLength.UNBOUNDED), analyze("a{2,}|bcd"));
+        Assertions.assertFalse(analyze("x+").isBounded());
+    }
+
+    @Test
+    @DisplayName("测试-长度饱和")
+    void analyze03()
+    {
+        MatchLength length = analyze("(((a{1000}){1000}){1000}){1000}b");
+        Assertions.assertEquals(MatchLength.UNBOUNDED, length.getMin());
+        Assertions.assertEquals(MatchLength.UNBOUNDED, length.getMax());
+    }
+}
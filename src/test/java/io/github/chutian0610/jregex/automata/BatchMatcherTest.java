@@ -0,0 +1,65 @@
+package io.github.chutian0610.jregex.automata;
+
+import io.github.chutian0610.jregex.ast.RegexParser;
+import io.github.chutian0610.jregex.automata.dfa.LazyDFAMatcher;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraph;
+import io.github.chutian0610.jregex.automata.nfa.NFATable;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author victorchu
+ */
+@DisplayName("批量匹配测试")
+@Slf4j
+class BatchMatcherTest
+{
+    @Test
+    @DisplayName("测试-并行批量匹配与逐个匹配结果一致")
+    void batch01()
+    {
+        NFATable nfa = NFAGraph.build(RegexParser.parse("(a|b)*a(a|b){3}")).toTable();
+        Random random = new Random(19);
+        List<String> inputs = new ArrayList<>();
+        for (int n = 0; n < 5000; n++) {
+            StringBuilder input = new StringBuilder();
+            for (int i = random.nextInt(12); i > 0; i--) {
+                input.append((char) ('a' + random.nextInt(2)));
+            }
+            inputs.add(input.toString());
+        }
+        LazyDFAMatcher sequential = new LazyDFAMatcher(nfa, LazyDFAMatcher.DEFAULT_CACHE_BYTES);
+        AtomicInteger created = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            BatchMatcher batch = new BatchMatcher(() -> {
+                created.incrementAndGet();
+                return new LazyDFAMatcher(nfa, LazyDFAMatcher.DEFAULT_CACHE_BYTES);
+            }, pool, 100);
+            BitSet bits = batch.matchAll(inputs);
+            boolean[] flags = batch.matchAll(inputs.toArray(new CharSequence[0]));
+            BitSet linked = batch.matchAll(new LinkedList<>(inputs));
+            for (int i = 0; i < inputs.size(); i++) {
+                boolean expected = sequential.matches(inputs.get(i));
+                Assertions.assertEquals(expected, bits.get(i), inputs.get(i));
+                Assertions.assertEquals(expected, flags[i], inputs.get(i));
+                Assertions.assertEquals(expected, linked.get(i), inputs.get(i));
+            }
+            // 每个工作线程只创建一个匹配器
+            Assertions.assertTrue(created.get() <= 5, "created " + created.get());
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+}
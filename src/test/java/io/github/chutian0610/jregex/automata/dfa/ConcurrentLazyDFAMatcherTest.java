@@ -0,0 +1,141 @@
+package io.github.chutian0610.jregex.automata.dfa;
+
+import io.github.chutian0610.jregex.ast.RegexParser;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraph;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraphMatcher;
+import io.github.chutian0610.jregex.automata.state.GenericStateManager;
+import io.github.chutian0610.jregex.util.RegexTestContext;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @author victorchu
+ */
+@DisplayName("共享惰性DFA匹配测试")
+@Slf4j
+class ConcurrentLazyDFAMatcherTest
+{
+    private static final int THREADS = 8;
+    private static final RegexTestContext regexContext = new RegexTestContext(new GenericStateManager());
+
+    @BeforeEach
+    void init()
+    {
+        regexContext.reset();
+    }
+
+    private static List<String> randomInputs(long seed, int count, int maxLength)
+    {
+        Random random = new Random(seed);
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int j = random.nextInt(maxLength); j > 0; j--) {
+                sb.append(random.nextBoolean() ? 'a' : 'b');
+            }
+            inputs.add(sb.toString());
+        }
+        return inputs;
+    }
+
+    /**
+     * 多个线程同时执行同一个任务
+     */
+    private static void runConcurrently(Callable<Boolean> task)
+            throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<Boolean> future : futures) {
+                Assertions.assertTrue(future.get());
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("测试-多线程复用同一份缓存")
+    void concurrent01()
+            throws Exception
+    {
+        NFAGraph nfa = NFAGraph.build(RegexParser.parse("(a|b)*a(a|b){4}"), regexContext.getStateManager());
+        ConcurrentLazyDFAMatcher matcher = new ConcurrentLazyDFAMatcher(nfa.toTable());
+        NFAGraphMatcher nfaGraphMatcher = new NFAGraphMatcher(nfa);
+        List<String> inputs = randomInputs(5, 300, 30);
+        List<Boolean> expected = new ArrayList<>();
+        for (String input : inputs) {
+            expected.add(nfaGraphMatcher.matches(input));
+            Assertions.assertEquals(expected.get(expected.size() - 1), matcher.matches(input), input);
+        }
+        int cached = matcher.getCachedStateCount();
+        runConcurrently(() -> {
+            for (int i = 0; i < inputs.size(); i++) {
+                if (matcher.matches(inputs.get(i)) != expected.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+        // 其他线程直接使用已经构造的状态, 不会各自复制一份缓存
+        Assertions.assertEquals(cached, matcher.getCachedStateCount());
+        Assertions.assertEquals(0, matcher.getFlushCount());
+    }
+
+    @Test
+    @DisplayName("测试-多线程并发时清空缓存")
+    void concurrent02()
+            throws Exception
+    {
+        NFAGraph nfa = NFAGraph.build(RegexParser.parse("(a|b)*a(a|b){6}"), regexContext.getStateManager());
+        ConcurrentLazyDFAMatcher matcher = new ConcurrentLazyDFAMatcher(nfa.toTable(), 4096);
+        NFAGraphMatcher nfaGraphMatcher = new NFAGraphMatcher(nfa);
+        List<String> inputs = randomInputs(7, 200, 40);
+        List<Boolean> expected = new ArrayList<>();
+        for (String input : inputs) {
+            expected.add(nfaGraphMatcher.matches(input));
+        }
+        runConcurrently(() -> {
+            for (int round = 0; round < 5; round++) {
+                for (int i = 0; i < inputs.size(); i++) {
+                    if (matcher.matches(inputs.get(i)) != expected.get(i)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        });
+        Assertions.assertTrue(matcher.getFlushCount() > 0);
+    }
+
+    @Test
+    @DisplayName("测试-预算小于单个状态")
+    void budget01()
+    {
+        NFAGraph nfa = NFAGraph.build(RegexParser.parse("(abc){2000}"), regexContext.getStateManager());
+        // 预算只够容纳一两个状态, 每一步都可能换代
+        ConcurrentLazyDFAMatcher matcher = new ConcurrentLazyDFAMatcher(nfa.toTable(), 256);
+        String input = String.join("", Collections.nCopies(2000, "abc"));
+        Assertions.assertTrue(matcher.matches(input));
+        Assertions.assertFalse(matcher.matches(input.substring(3)));
+        Assertions.assertFalse(matcher.matches(input + "a"));
+        Assertions.assertTrue(matcher.getFlushCount() > 0);
+    }
+}
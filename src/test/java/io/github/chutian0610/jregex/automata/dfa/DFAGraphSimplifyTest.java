@@ -8,6 +8,7 @@ import io.github.chutian0610.jregex.automata.nfa.NFAGraph;
 import io.github.chutian0610.jregex.automata.state.GenericStateManager;
 import lombok.extern.slf4j.Slf4j;
 import org.hamcrest.MatcherAssert;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -92,7 +93,7 @@ public class DFAGraphSimplifyTest
         log.debug(minDfa.printStateMapping());
         List<String> chart = minDfa.toMermaidJsChartLines();
         MatcherAssert.assertThat(
-                Lists.newArrayList("flowchart LR", "s_0(0)-->|\"#0098;\"|s_0(0)", "s_0(0)-->|\"#0097;\"|s_1(1)", "s_1(1)-->|\"#0098;\"|s_2(2)", "s_2(2)-->|\"#0098;\"|s_3((3))", "s_3((3))-->|\"#0098;\"|s_0(0)", "s_3((3))-->|\"#0097;\"|s_1(1)", "s_2(2)-->|\"#0097;\"|s_1(1)", "s_1(1)-->|\"#0097;\"|s_1(1)"
+                Lists.newArrayList("flowchart LR", "s_0(0)-->|\"#0098;\"|s_0(0)", "s_0(0)-->|\"#0097;\"|s_1(1)", "s_1(1)-->|\"#0098;\"|s_3(3)", "s_3(3)-->|\"#0098;\"|s_4((4))", "s_4((4))-->|\"#0098;\"|s_0(0)", "s_4((4))-->|\"#0097;\"|s_1(1)", "s_3(3)-->|\"#0097;\"|s_1(1)", "s_1(1)-->|\"#0097;\"|s_1(1)"
                 ),
                 RegexTestContext.containsInAnyOrder(chart));
     }
@@ -108,7 +109,7 @@ public class DFAGraphSimplifyTest
         log.debug(minDfa.printStateMapping());
         List<String> chart = minDfa.toMermaidJsChartLines();
         MatcherAssert.assertThat(
-                Lists.newArrayList("flowchart LR", "s_0(0)-->|\"#0097; - #0122;\"|s_1(1)", "s_1(1)-->|\"#0098;\"|s_2((2))", "s_0(0)-->|\"#0065; - #0090;\"|s_1(1)")
+                Lists.newArrayList("flowchart LR", "s_0(0)-->|\"#0097; - #0122;\"|s_1(1)", "s_1(1)-->|\"#0098;\"|s_3((3))", "s_0(0)-->|\"#0065; - #0090;\"|s_1(1)")
                 , RegexTestContext.containsInAnyOrder(chart));
     }
 
@@ -126,4 +127,58 @@ public class DFAGraphSimplifyTest
                 Lists.newArrayList("flowchart LR", "s_0(0)-->|\"#0048; - #0057;\"|s_1(1)", "s_1(1)-->|\"#0098;\"|s_2((2))", "s_1(1)-->|\"#0048; - #0057;\"|s_1(1)")
                 , RegexTestContext.containsInAnyOrder(chart));
     }
+
+    @Test
+    @DisplayName("测试-大规模 DFA 最小化")
+    void minimizationDFA07()
+    {
+        // (a|b)*a(a|b){9} 的最小 DFA 需要记住最后 10 个字符, 共 2^10 个状态
+        RegexExp regexExpression = RegexParser.parse("(a|b)*a(a|b)(a|b)(a|b)(a|b)(a|b)(a|b)(a|b)(a|b)(a|b)");
+        NFAGraph nfa = NFAGraph.build(regexExpression, regexContext.getStateManager());
+        DFAGraph dfa = nfa.toDFA();
+        DFAGraph minDfa = dfa.simplify();
+        Assertions.assertEquals(1 << 10, minDfa.getStates().size());
+        DFAGraphMatcher matcher = new DFAGraphMatcher(minDfa);
+        Assertions.assertTrue(matcher.matches("babbbbbbbbb"));
+        Assertions.assertTrue(matcher.matches("aaaaaaaaaa"));
+        Assertions.assertFalse(matcher.matches("abbbbbbbbbb"));
+        Assertions.assertFalse(matcher.matches("bbbbbbbbbb"));
+    }
+
+    @Test
+    @DisplayName("测试-合并不可区分的状态")
+    void minimizationDFA08()
+    {
+        // 子集构造得到的 DFA 中 a 后的状态和 b 后的状态等价
+        RegexExp regexExpression = RegexParser.parse("(ac|bc)*");
+        NFAGraph nfa = NFAGraph.build(regexExpression, regexContext.getStateManager());
+        DFAGraph dfa = nfa.toDFA();
+        DFAGraph minDfa = dfa.simplify();
+        Assertions.assertEquals(2, minDfa.getStates().size());
+        DFAGraphMatcher matcher = new DFAGraphMatcher(minDfa);
+        Assertions.assertTrue(matcher.matches(""));
+        Assertions.assertTrue(matcher.matches("acbcac"));
+        Assertions.assertFalse(matcher.matches("acb"));
+        Assertions.assertFalse(matcher.matches("cc"));
+    }
+
+    @Test
+    @DisplayName("测试-长链 DFA 构建和最小化不依赖递归")
+    void minimizationDFA09()
+    {
+        RegexExp regexExpression = RegexParser.parse("(ab){5000}");
+        NFAGraph nfa = NFAGraph.build(regexExpression, regexContext.getStateManager());
+        DFAGraph dfa = nfa.toDFA();
+        Assertions.assertEquals(10001, dfa.getStates().size());
+        DFAGraph minDfa = dfa.simplify();
+        Assertions.assertEquals(10001, minDfa.getStates().size());
+        Assertions.assertEquals(10001, minDfa.toMermaidJsChartLines().size());
+        DFAGraphMatcher matcher = new DFAGraphMatcher(minDfa);
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            input.append("ab");
+        }
+        Assertions.assertTrue(matcher.matches(input));
+        Assertions.assertFalse(matcher.matches(input.substring(1)));
+    }
 }
@@ -0,0 +1,108 @@
+package io.github.chutian0610.jregex.automata.dfa;
+
+import io.github.chutian0610.jregex.ast.RegexParser;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraph;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraphMatcher;
+import io.github.chutian0610.jregex.automata.state.GenericStateManager;
+import io.github.chutian0610.jregex.util.RegexTestContext;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author victorchu
+ */
+@DisplayName("DFA转换表测试")
+@Slf4j
+class DFATransitionTableTest
+{
+    private static final RegexTestContext regexContext = new RegexTestContext(new GenericStateManager());
+
+    @BeforeEach
+    void init()
+    {
+        regexContext.reset();
+    }
+
+    private DFATransitionTable compile(String regex)
+    {
+        NFAGraph nfa = NFAGraph.build(RegexParser.parse(regex), regexContext.getStateManager());
+        return DFATransitionTable.of(nfa.toDFA().simplify());
+    }
+
+    @Test
+    @DisplayName("测试-状态编号")
+    void table01()
+    {
+        DFATransitionTable table = compile("(a|b)*abb");
+        Assertions.assertEquals(4, table.getStateCount());
+        Assertions.assertEquals(0, table.getStart());
+        int state = table.getStart();
+        for (char ch : "abb".toCharArray()) {
+            state = table.next(state, ch);
+        }
+        Assertions.assertTrue(table.isAccept(state));
+        Assertions.assertEquals(DFATransitionTable.DEAD, table.next(state, 'c'));
+    }
+
+    @Test
+    @DisplayName("测试-与NFA匹配结果一致")
+    void table02()
+    {
+        String[] regexes = {"ab", "a|b", "a*b", "a{2,4}b", "(a|b)*abb", "[a-cA-]{1,3}b", "[^a-c]+", "\\d+b", ".+b", "\\w+@\\w+"};
+        String[] inputs = {"", "ab", "b", "aab", "aaaab", "aaaaab", "abb", "babb", "A-b", "dd", "111b", "x@y", "@y"};
+        for (String regex : regexes) {
+            DFATransitionTable table = compile(regex);
+            regexContext.reset();
+            NFAGraphMatcher nfaGraphMatcher = new NFAGraphMatcher(
+                    NFAGraph.build(RegexParser.parse(regex), regexContext.getStateManager()));
+            for (String input : inputs) {
+                Assertions.assertEquals(nfaGraphMatcher.matches(input), table.matches(input), regex + " : " + input);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("测试-到达接受状态的距离")
+    void table03()
+    {
+        DFATransitionTable table = compile("(a|b)*abb");
+        int state = table.getStart();
+        Assertions.assertEquals(3, table.distanceToAccept(state));
+        state = table.next(state, 'a');
+        Assertions.assertEquals(2, table.distanceToAccept(state));
+        state = table.next(state, 'b');
+        Assertions.assertEquals(1, table.distanceToAccept(state));
+        state = table.next(state, 'b');
+        Assertions.assertEquals(0, table.distanceToAccept(state));
+        Assertions.assertFalse(table.isDead(state));
+        Assertions.assertFalse(table.matches("ab"));
+        Assertions.assertFalse(table.matches("babab"));
+        Assertions.assertTrue(table.matches("bababb"));
+
+        DFATransitionTable bounded = compile("ab{3}c|d");
+        Assertions.assertEquals(1, bounded.distanceToAccept(bounded.getStart()));
+        Assertions.assertEquals(4, bounded.distanceToAccept(bounded.next(bounded.getStart(), 'a')));
+        Assertions.assertFalse(bounded.matches("abbb"));
+        Assertions.assertTrue(bounded.matches("abbbc"));
+    }
+
+    @Test
+    @DisplayName("测试-String, CharSequence 和 char[] 输入结果一致")
+    void table04()
+    {
+        String[] regexes = {"ab", "a*b", "(a|b)*abb", "\\d+b", "[^a-c]+"};
+        String[] inputs = {"", "ab", "b", "aab", "babb", "111b", "dd"};
+        for (String regex : regexes) {
+            DFATransitionTable table = compile(regex);
+            for (String input : inputs) {
+                boolean expected = table.matches(input);
+                Assertions.assertEquals(expected, table.matches(new StringBuilder(input)), regex + " : " + input);
+                char[] array = ("##" + input + "#").toCharArray();
+                Assertions.assertEquals(expected, table.matches(array, 2, input.length()), regex + " : " + input);
+            }
+        }
+    }
+}
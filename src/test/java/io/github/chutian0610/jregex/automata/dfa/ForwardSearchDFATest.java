@@ -0,0 +1,60 @@
+package io.github.chutian0610.jregex.automata.dfa;
+
+import io.github.chutian0610.jregex.ast.RegexParser;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraph;
+import io.github.chutian0610.jregex.automata.state.GenericStateManager;
+import io.github.chutian0610.jregex.literal.Prefilter;
+import io.github.chutian0610.jregex.literal.SingleLiteralPrefilter;
+import io.github.chutian0610.jregex.util.RegexTestContext;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author victorchu
+ */
+@DisplayName("前向搜索DFA测试")
+@Slf4j
+class ForwardSearchDFATest
+{
+    private static final RegexTestContext regexContext = new RegexTestContext(new GenericStateManager());
+
+    @BeforeEach
+    void init()
+    {
+        regexContext.reset();
+    }
+
+    @Test
+    @DisplayName("测试-缓存清空后继续使用前缀过滤器")
+    void prefilter01()
+    {
+        NFAGraph nfa = NFAGraph.build(RegexParser.parse("x(a|b)*a(a|b){6}y"), regexContext.getStateManager());
+        AtomicInteger calls = new AtomicInteger();
+        Prefilter literal = new SingleLiteralPrefilter("x");
+        Prefilter counting = (text, from) -> {
+            calls.incrementAndGet();
+            return literal.find(text, from);
+        };
+        ForwardSearchDFA dfa = new ForwardSearchDFA(nfa.toTable(), counting, 9, 4096);
+        Random random = new Random(7);
+        StringBuilder sb = new StringBuilder();
+        int segments = 50;
+        for (int round = 0; round < segments; round++) {
+            sb.append('x');
+            for (int i = 0; i < 40; i++) {
+                sb.append(random.nextBoolean() ? 'a' : 'b');
+            }
+            sb.append("zzzzzzzzzzzzzzzzzzzz");
+        }
+        Assertions.assertEquals(-1, dfa.findEnd(sb, 0));
+        Assertions.assertTrue(dfa.getFlushCount() > 0);
+        // 每一段结束后都回到起始状态, 由过滤器跳过填充字符
+        Assertions.assertTrue(calls.get() >= segments, "prefilter calls: " + calls.get());
+    }
+}
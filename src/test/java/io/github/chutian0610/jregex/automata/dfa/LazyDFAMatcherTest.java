@@ -0,0 +1,94 @@
+package io.github.chutian0610.jregex.automata.dfa;
+
+import io.github.chutian0610.jregex.ast.RegexParser;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraph;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraphMatcher;
+import io.github.chutian0610.jregex.automata.state.GenericStateManager;
+import io.github.chutian0610.jregex.util.RegexTestContext;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * @author victorchu
+ */
+@DisplayName("惰性DFA匹配测试")
+@Slf4j
+class LazyDFAMatcherTest
+{
+    private static final RegexTestContext regexContext = new RegexTestContext(new GenericStateManager());
+
+    @BeforeEach
+    void init()
+    {
+        regexContext.reset();
+    }
+
+    @Test
+    @DisplayName("测试-与NFA匹配结果一致")
+    void matches01()
+    {
+        String[] regexes = {"ab", "a|b", "a*b", "a{2,4}b", "(a|b)*abb", "[a-cA-]{1,3}b", "[^a-c]+", "\\d+b", ".+b"};
+        String[] inputs = {"", "ab", "b", "aab", "aaaab", "aaaaab", "abb", "babb", "A-b", "dd", "111b"};
+        for (String regex : regexes) {
+            NFAGraph nfa = NFAGraph.build(RegexParser.parse(regex), regexContext.getStateManager());
+            LazyDFAMatcher lazyDFAMatcher = new LazyDFAMatcher(nfa);
+            NFAGraphMatcher nfaGraphMatcher = new NFAGraphMatcher(nfa);
+            for (String input : inputs) {
+                Assertions.assertEquals(nfaGraphMatcher.matches(input), lazyDFAMatcher.matches(input), regex + " : " + input);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("测试-状态爆炸的表达式")
+    void matches02()
+    {
+        NFAGraph nfa = NFAGraph.build(RegexParser.parse("(a|b)*a(a|b){20}"), regexContext.getStateManager());
+        LazyDFAMatcher lazyDFAMatcher = new LazyDFAMatcher(nfa);
+        StringBuilder sb = new StringBuilder("a");
+        for (int i = 0; i < 20; i++) {
+            sb.append('b');
+        }
+        Assertions.assertTrue(lazyDFAMatcher.matches("bbbb" + sb));
+        Assertions.assertFalse(lazyDFAMatcher.matches("bbbb" + sb + "b"));
+    }
+
+    @Test
+    @DisplayName("测试-缓存超出预算时清空")
+    void matches03()
+    {
+        NFAGraph nfa = NFAGraph.build(RegexParser.parse("(a|b)*a(a|b){6}"), regexContext.getStateManager());
+        NFAGraphMatcher nfaGraphMatcher = new NFAGraphMatcher(nfa);
+        LazyDFAMatcher lazyDFAMatcher = new LazyDFAMatcher(nfa, 4096);
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 40; i++) {
+                sb.append(random.nextBoolean() ? 'a' : 'b');
+            }
+            String input = sb.toString();
+            Assertions.assertEquals(nfaGraphMatcher.matches(input), lazyDFAMatcher.matches(input), input);
+        }
+        Assertions.assertTrue(lazyDFAMatcher.getFlushCount() > 0);
+    }
+
+    @Test
+    @DisplayName("测试-预算小于单个状态")
+    void matches04()
+    {
+        NFAGraph nfa = NFAGraph.build(RegexParser.parse("(abc){2000}"), regexContext.getStateManager());
+        // 预算只够容纳一两个状态, 不会在构造时拒绝
+        LazyDFAMatcher lazyDFAMatcher = new LazyDFAMatcher(nfa, 256);
+        String input = String.join("", Collections.nCopies(2000, "abc"));
+        Assertions.assertTrue(lazyDFAMatcher.matches(input));
+        Assertions.assertFalse(lazyDFAMatcher.matches(input.substring(3)));
+        Assertions.assertFalse(lazyDFAMatcher.matches(input + "a"));
+        Assertions.assertTrue(lazyDFAMatcher.getFlushCount() > 0);
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.chutian0610.jregex.automata.dfa;
+
+import io.github.chutian0610.jregex.ast.RegexParser;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraph;
+import io.github.chutian0610.jregex.automata.state.GenericStateManager;
+import io.github.chutian0610.jregex.util.RegexTestContext;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @author victorchu
+ */
+@DisplayName("并行DFA匹配测试")
+@Slf4j
+class ParallelDFAMatcherTest
+{
+    private static final RegexTestContext regexContext = new RegexTestContext(new GenericStateManager());
+
+    @BeforeEach
+    void init()
+    {
+        regexContext.reset();
+    }
+
+    private DFATransitionTable compile(String regex)
+    {
+        NFAGraph nfa = NFAGraph.build(RegexParser.parse(regex), regexContext.getStateManager());
+        return DFATransitionTable.of(nfa.toDFA().simplify());
+    }
+
+    @Test
+    @DisplayName("测试-分块并行匹配与顺序匹配结果一致")
+    void parallel01()
+    {
+        String[] regexes = {"(a|b)*abb", "(ab|ba)*", "[ab]*a[ab]{3}", "a*b*", "(a|b)*"};
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Random random = new Random(18);
+        try {
+            for (String regex : regexes) {
+                DFATransitionTable table = compile(regex);
+                ParallelDFAMatcher matcher = new ParallelDFAMatcher(table, pool, 0, 7);
+                for (int n = 0; n < 200; n++) {
+                    StringBuilder input = new StringBuilder();
+                    int length = random.nextInt(120);
+                    for (int i = 0; i < length; i++) {
+                        input.append(random.nextInt(10) == 0 ? 'c' : (char) ('a' + random.nextInt(2)));
+                    }
+                    if (n % 2 == 0) {
+                        // 一半的输入不包含非法字符
+                        input = new StringBuilder(input.toString().replace('c', 'a'));
+                    }
+                    String text = input.toString();
+                    Assertions.assertEquals(table.matches(text), matcher.matches(text), regex + " : " + text);
+                    char[] array = ("#" + text + "#").toCharArray();
+                    Assertions.assertEquals(table.matches(text), matcher.matches(array, 1, text.length()), regex + " : " + text);
+                }
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("测试-块的转换函数")
+    void parallel02()
+    {
+        DFATransitionTable table = compile("(ab)*");
+        ParallelDFAMatcher matcher = new ParallelDFAMatcher(table);
+        int start = table.getStart();
+        int afterA = table.next(start, 'a');
+        int[] function = matcher.transitionFunction("ba", 0, 2, false);
+        Assertions.assertEquals(DFATransitionTable.DEAD, function[start]);
+        Assertions.assertEquals(afterA, function[afterA]);
+        int[] startOnly = matcher.transitionFunction("abab", 0, 4, true);
+        Assertions.assertEquals(start, startOnly[start]);
+        Assertions.assertEquals(DFATransitionTable.DEAD, startOnly[afterA]);
+    }
+}
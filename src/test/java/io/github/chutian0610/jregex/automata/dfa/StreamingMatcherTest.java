@@ -0,0 +1,111 @@
+package io.github.chutian0610.jregex.automata.dfa;
+
+import io.github.chutian0610.jregex.ast.RegexParser;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraph;
+import io.github.chutian0610.jregex.automata.state.GenericStateManager;
+import io.github.chutian0610.jregex.util.RegexTestContext;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author victorchu
+ */
+@DisplayName("流式匹配测试")
+@Slf4j
+class StreamingMatcherTest
+{
+    private static final RegexTestContext regexContext = new RegexTestContext(new GenericStateManager());
+
+    @BeforeEach
+    void init()
+    {
+        regexContext.reset();
+    }
+
+    private DFAGraphMatcher compile(String regex)
+    {
+        NFAGraph nfa = NFAGraph.build(RegexParser.parse(regex), regexContext.getStateManager());
+        return new DFAGraphMatcher(nfa.toDFA().simplify());
+    }
+
+    @Test
+    @DisplayName("测试-分块整串匹配与整串结果一致")
+    void stream01()
+    {
+        String[] regexes = {"ab", "a*b", "a{2,4}b", "(a|b)*abb", "\\d+b", ".+b"};
+        String[] inputs = {"", "ab", "aab", "aaaab", "aaaaab", "abb", "babb", "111b", "xb"};
+        for (String regex : regexes) {
+            DFAGraphMatcher matcher = compile(regex);
+            for (String input : inputs) {
+                for (int split = 0; split <= input.length(); split++) {
+                    StreamingMatcher stream = matcher.stream()
+                            .feed(input.substring(0, split))
+                            .feed(input.substring(split).toCharArray());
+                    Assertions.assertEquals(input.length(), stream.getOffset());
+                    Assertions.assertEquals(matcher.matches(input), stream.finish(), regex + " : " + input + " @" + split);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("测试-提前拒绝和 CharBuffer/Reader 输入")
+    void stream02()
+            throws IOException
+    {
+        StreamingMatcher stream = compile("ab{2}c").stream();
+        stream.feed(CharBuffer.wrap("abx"));
+        Assertions.assertTrue(stream.isRejected());
+        Assertions.assertFalse(stream.feed("bc").finish());
+        Assertions.assertThrows(IllegalStateException.class, () -> stream.feed("c"));
+
+        stream.reset();
+        CharBuffer buffer = CharBuffer.wrap("xxabbcxx".toCharArray(), 2, 4);
+        Assertions.assertTrue(stream.feed(buffer).finish());
+        Assertions.assertEquals(0, buffer.remaining());
+
+        stream.reset();
+        Assertions.assertTrue(stream.feed(new StringReader("abbc")).finish());
+    }
+
+    @Test
+    @DisplayName("测试-查找模式跨块报告匹配结束位置")
+    void stream03()
+    {
+        DFATransitionTable table = StreamingMatcher.searchTable(RegexParser.parse("ab+c"));
+        List<Long> ends = new ArrayList<>();
+        StreamingMatcher stream = new StreamingMatcher(table, ends::add);
+        stream.feed("xxab").feed("bbc".toCharArray()).feed(CharBuffer.wrap("abc-ac"));
+        Assertions.assertFalse(stream.finish());
+        Assertions.assertEquals(Arrays.asList(7L, 10L), ends);
+
+        ends.clear();
+        new StreamingMatcher(StreamingMatcher.searchTable(RegexParser.parse("a*")), ends::add).feed("ba");
+        Assertions.assertEquals(Arrays.asList(0L, 1L, 2L), ends);
+    }
+
+    @Test
+    @DisplayName("测试-查找模式使用普通转换表")
+    void stream04()
+    {
+        NFAGraph nfa = NFAGraph.build(RegexParser.parse("ab+"), regexContext.getStateManager());
+        DFATransitionTable table = DFATransitionTable.of(nfa.toDFA().simplify());
+        List<Long> ends = new ArrayList<>();
+        StreamingMatcher stream = new StreamingMatcher(table, ends::add);
+        // 只报告从流的开始处开始的匹配, 到达 DEAD 状态后忽略后续输入
+        stream.feed("ab").feed("bxab".toCharArray()).feed("abb");
+        Assertions.assertTrue(stream.isRejected());
+        Assertions.assertFalse(stream.finish());
+        Assertions.assertEquals(Arrays.asList(2L, 3L), ends);
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.chutian0610.jregex.automata.glushkov;
+
+import io.github.chutian0610.jregex.GraphMatchers;
+import io.github.chutian0610.jregex.ast.RegexExp;
+import io.github.chutian0610.jregex.ast.RegexParser;
+import io.github.chutian0610.jregex.automata.GraphMatcher;
+import io.github.chutian0610.jregex.automata.dfa.ConcurrentLazyDFAMatcher;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraph;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraphMatcher;
+import io.github.chutian0610.jregex.automata.state.GenericStateManager;
+import io.github.chutian0610.jregex.util.RegexTestContext;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+/**
+ * @author victorchu
+ */
+@DisplayName("位并行匹配测试")
+@Slf4j
+class ShiftAndMatcherTest
+{
+    private static final RegexTestContext regexContext = new RegexTestContext(new GenericStateManager());
+
+    private static final String[] REGEXES = {"ab", "a|b", "a*b", "a+b", "a?b", "a{2,4}b", "a{3,}b", "a{0}b", "(a|b)*abb",
+            "[a-cA-]{1,3}b", "[^a-c]+", "\\d+b", ".+b", "(ab|a)*b?", "((a|b)*c)*"};
+    private static final String[] INPUTS = {"", "a", "ab", "b", "aab", "aaaab", "aaaaab", "abb", "babb", "A-b", "dd",
+            "111b", "abab", "aacbc", "ababb"};
+
+    @BeforeEach
+    void init()
+    {
+        regexContext.reset();
+    }
+
+    private NFAGraphMatcher nfaMatcher(RegexExp regexExp)
+    {
+        regexContext.reset();
+        return new NFAGraphMatcher(NFAGraph.build(regexExp, regexContext.getStateManager()));
+    }
+
+    @Test
+    @DisplayName("测试-与NFA匹配结果一致")
+    void matches01()
+    {
+        for (String regex : REGEXES) {
+            RegexExp regexExp = RegexParser.parse(regex);
+            ShiftAndMatcher matcher = new ShiftAndMatcher(GlushkovAutomaton.of(regexExp));
+            NFAGraphMatcher nfaGraphMatcher = nfaMatcher(regexExp);
+            for (String input : INPUTS) {
+                Assertions.assertEquals(nfaGraphMatcher.matches(input), matcher.matches(input), regex + " : " + input);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("测试-long[] 与NFA匹配结果一致")
+    void matches02()
+    {
+        for (String regex : REGEXES) {
+            RegexExp regexExp = RegexParser.parse(regex);
+            WideShiftAndMatcher matcher = new WideShiftAndMatcher(GlushkovAutomaton.of(regexExp));
+            NFAGraphMatcher nfaGraphMatcher = nfaMatcher(regexExp);
+            for (String input : INPUTS) {
+                Assertions.assertEquals(nfaGraphMatcher.matches(input), matcher.matches(input), regex + " : " + input);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("测试-超过64个位置")
+    void matches03()
+    {
+        RegexExp regexExp = RegexParser.parse("(ab|cd){40}x*");
+        Assertions.assertEquals(161, GlushkovAutomaton.countPositions(regexExp));
+        GraphMatcher matcher = GraphMatchers.of(regexExp);
+        Assertions.assertTrue(matcher instanceof WideShiftAndMatcher);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            sb.append(i % 3 == 0 ? "ab" : "cd");
+        }
+        Assertions.assertTrue(matcher.matches(sb.toString()));
+        Assertions.assertTrue(matcher.matches(sb + "xxx"));
+        Assertions.assertFalse(matcher.matches(sb.substring(2)));
+        Assertions.assertFalse(matcher.matches(sb + "ab"));
+    }
+
+    @Test
+    @DisplayName("测试-自动选择匹配器")
+    void matches04()
+    {
+        Assertions.assertTrue(GraphMatchers.of(RegexParser.parse("(a|b)*abb")) instanceof ShiftAndMatcher);
+        GraphMatcher matcher = GraphMatchers.of(RegexParser.parse("(a|b|c|d){300}"));
+        Assertions.assertTrue(matcher instanceof ConcurrentLazyDFAMatcher);
+        Assertions.assertTrue(matcher.matches(String.join("", Collections.nCopies(100, "abc"))));
+        Assertions.assertFalse(matcher.matches(String.join("", Collections.nCopies(100, "abe"))));
+        // 编译时不做子集构造和最小化
+        matcher = GraphMatchers.of(RegexParser.parse("[a-z]{5000}"));
+        Assertions.assertTrue(matcher instanceof ConcurrentLazyDFAMatcher);
+        Assertions.assertTrue(matcher.matches(String.join("", Collections.nCopies(1000, "hello"))));
+        Assertions.assertFalse(matcher.matches(String.join("", Collections.nCopies(999, "hello"))));
+    }
+}
@@ -8,6 +8,7 @@ import io.github.chutian0610.jregex.automata.dfa.DFAGraph;
 import io.github.chutian0610.jregex.automata.state.GenericStateManager;
 import lombok.extern.slf4j.Slf4j;
 import org.hamcrest.MatcherAssert;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -92,7 +93,7 @@ class NFAGraphToDFATest
         log.debug(dfa.printStateMapping());
         List<String> chart = dfa.toMermaidJsChartLines();
         MatcherAssert.assertThat(
-                Lists.newArrayList("flowchart LR", "s_0(0)-->|\"#0098;\"|s_4(4)", "s_4(4)-->|\"#0098;\"|s_4(4)", "s_4(4)-->|\"#0097;\"|s_1(1)", "s_1(1)-->|\"#0098;\"|s_2(2)", "s_2(2)-->|\"#0098;\"|s_3((3))", "s_3((3))-->|\"#0098;\"|s_4(4)", "s_3((3))-->|\"#0097;\"|s_1(1)", "s_2(2)-->|\"#0097;\"|s_1(1)", "s_1(1)-->|\"#0097;\"|s_1(1)", "s_0(0)-->|\"#0097;\"|s_1(1)"),
+                Lists.newArrayList("flowchart LR", "s_0(0)-->|\"#0098;\"|s_2(2)", "s_2(2)-->|\"#0098;\"|s_2(2)", "s_2(2)-->|\"#0097;\"|s_1(1)", "s_1(1)-->|\"#0098;\"|s_3(3)", "s_3(3)-->|\"#0098;\"|s_4((4))", "s_4((4))-->|\"#0098;\"|s_2(2)", "s_4((4))-->|\"#0097;\"|s_1(1)", "s_3(3)-->|\"#0097;\"|s_1(1)", "s_1(1)-->|\"#0097;\"|s_1(1)", "s_0(0)-->|\"#0097;\"|s_1(1)"),
                 RegexTestContext.containsInAnyOrder(chart));
     }
     @Test
@@ -107,7 +108,7 @@ class NFAGraphToDFATest
         log.debug(dfa.printStateMapping());
         List<String> chart = dfa.toMermaidJsChartLines();
         MatcherAssert.assertThat(
-                Lists.newArrayList("flowchart LR", "s_0(0)-->|\"#0097; - #0122;\"|s_3(3)", "s_3(3)-->|\"#0098;\"|s_2((2))", "s_0(0)-->|\"#0065; - #0090;\"|s_1(1)", "s_1(1)-->|\"#0098;\"|s_2((2))")
+                Lists.newArrayList("flowchart LR", "s_0(0)-->|\"#0097; - #0122;\"|s_2(2)", "s_2(2)-->|\"#0098;\"|s_3((3))", "s_0(0)-->|\"#0065; - #0090;\"|s_1(1)", "s_1(1)-->|\"#0098;\"|s_3((3))")
                 , RegexTestContext.containsInAnyOrder(chart));
     }
 
@@ -126,4 +127,21 @@ class NFAGraphToDFATest
                 Lists.newArrayList("flowchart LR", "s_0(0)-->|\"#0048; - #0057;\"|s_1(1)", "s_1(1)-->|\"#0098;\"|s_2((2))", "s_1(1)-->|\"#0048; - #0057;\"|s_1(1)")
                 , RegexTestContext.containsInAnyOrder(chart));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("测试-字符等价类")
+    void toDFAAlphabet01()
+    {
+        RegexExp regexExpression = RegexParser.parse("[a-zA-Z]b");
+        NFAGraph nfa = NFAGraph.build(regexExpression, regexContext.getStateManager());
+        // 未覆盖字符, [A-Z], [a,c-z], [b]
+        Assertions.assertEquals(4, nfa.getAlphabet().getClassCount());
+        Assertions.assertEquals(nfa.getAlphabet().classOf('a'), nfa.getAlphabet().classOf('z'));
+        DFAGraph dfa = nfa.toDFA();
+        Assertions.assertSame(nfa.getAlphabet(), dfa.getAlphabet());
+        List<String> chart = dfa.toMermaidJsChartLines();
+        MatcherAssert.assertThat(
+                Lists.newArrayList("flowchart LR", "s_0(0)-->|\"#0065; - #0090;\"|s_1(1)", "s_1(1)-->|\"#0098;\"|s_3((3))", "s_0(0)-->|\"#0097; - #0122;\"|s_2(2)", "s_2(2)-->|\"#0098;\"|s_3((3))"),
+                RegexTestContext.containsInAnyOrder(chart));
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.chutian0610.jregex.automata.nfa;
+
+import io.github.chutian0610.jregex.ast.RegexParser;
+import io.github.chutian0610.jregex.automata.state.GenericStateManager;
+import io.github.chutian0610.jregex.util.RegexTestContext;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * @author victorchu
+ */
+@DisplayName("NFA 紧凑表示测试")
+@Slf4j
+class NFATableTest
+{
+    private static final RegexTestContext regexContext = new RegexTestContext(new GenericStateManager());
+
+    @BeforeEach
+    void init()
+    {
+        regexContext.reset();
+    }
+
+    @Test
+    @DisplayName("测试-ϵ闭包")
+    void closure01()
+    {
+        NFAGraph nfa = NFAGraph.build(RegexParser.parse("(a*)*b|c?"), regexContext.getStateManager());
+        NFATable table = nfa.toTable();
+        for (int state = 0; state < table.getStateCount(); state++) {
+            // 闭包包含自身, 且对 ϵ 边封闭
+            int[] closure = table.getClosure(state);
+            Set<Integer> set = new HashSet<>();
+            IntStream.of(closure).forEach(set::add);
+            Assertions.assertTrue(set.contains(state));
+            for (int member : closure) {
+                for (int next : table.getEpsilons(member)) {
+                    Assertions.assertTrue(set.contains(next));
+                }
+            }
+        }
+        Set<Integer> startClosure = nfa.computeEpsilonClosure(nfa.getStart().getStateId());
+        Assertions.assertEquals(table.getClosure(table.getStart()).length, startClosure.size());
+        Assertions.assertTrue(startClosure.contains(nfa.getStart().getStateId()));
+    }
+
+    @Test
+    @DisplayName("测试-move集合缓存")
+    void move01()
+    {
+        NFAGraph nfa = NFAGraph.build(RegexParser.parse("(a|b)*abb"), regexContext.getStateManager());
+        NFATable table = nfa.toTable();
+        Assertions.assertSame(table, nfa.toTable());
+        int classA = table.getAlphabet().classOf('a');
+        int classC = table.getAlphabet().classOf('c');
+        for (int state = 0; state < table.getStateCount(); state++) {
+            int[] move = table.moveOf(state, classA);
+            Assertions.assertSame(move, table.moveOf(state, classA));
+            Assertions.assertEquals(0, table.moveOf(state, classC).length);
+        }
+        // 多线程共享缓存
+        int stateCount = table.getStateCount();
+        int[] sizes = IntStream.range(0, 1000).parallel()
+                .map(i -> table.moveOf(i % stateCount, classA).length)
+                .toArray();
+        for (int i = 0; i < sizes.length; i++) {
+            Assertions.assertEquals(table.moveOf(i % stateCount, classA).length, sizes[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("测试-不可达状态的ϵ闭包和move集合")
+    void unreachable01()
+    {
+        NFAGraph nfa = NFAGraph.build(RegexParser.parse("a|b"), regexContext.getStateManager());
+        NFAGraph other = NFAGraph.build(RegexParser.parse("(a|c)*d"), regexContext.getStateManager());
+        Integer otherStart = other.getStart().getStateId();
+        Assertions.assertEquals(-1, nfa.toTable().indexOf(otherStart));
+        // other 的状态对 nfa 不可达, 直接沿 ϵ 边计算
+        Set<Integer> closure = nfa.computeEpsilonClosure(otherStart);
+        Assertions.assertEquals(other.computeEpsilonClosure(otherStart), closure);
+        Set<Integer> move = nfa.findDFAMoveSet(closure, nfa.getAlphabet().classOf('a'));
+        Assertions.assertFalse(move.isEmpty());
+        Assertions.assertEquals(other.findDFAMoveSet(closure, other.getAlphabet().classOf('a')), move);
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.chutian0610.jregex.automata.nfa;
+
+import io.github.chutian0610.jregex.ast.RegexParser;
+import io.github.chutian0610.jregex.automata.state.GenericStateManager;
+import io.github.chutian0610.jregex.util.RegexTestContext;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author victorchu
+ */
+@DisplayName("Pike VM 匹配测试")
+@Slf4j
+class PikeVMMatcherTest
+{
+    private static final RegexTestContext regexContext = new RegexTestContext(new GenericStateManager());
+
+    @BeforeEach
+    void init()
+    {
+        regexContext.reset();
+    }
+
+    @Test
+    @DisplayName("测试-与NFA匹配结果一致")
+    void matches01()
+    {
+        String[] regexes = {"ab", "a|b", "a*b", "a{2,4}b", "(a|b)*abb", "[a-cA-]{1,3}b", "[^a-c]+", "\\d+b", ".+b", "(a*)*b"};
+        String[] inputs = {"", "ab", "b", "aab", "aaaab", "aaaaab", "abb", "babb", "A-b", "dd", "111b"};
+        for (String regex : regexes) {
+            NFAGraph nfa = NFAGraph.build(RegexParser.parse(regex), regexContext.getStateManager());
+            PikeVMMatcher pikeVMMatcher = new PikeVMMatcher(nfa);
+            NFAGraphMatcher nfaGraphMatcher = new NFAGraphMatcher(nfa);
+            log.debug("{}\n{}", regex, pikeVMMatcher.getProgram());
+            for (String input : inputs) {
+                Assertions.assertEquals(nfaGraphMatcher.matches(input), pikeVMMatcher.matches(input), regex + " : " + input);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("测试-长输入")
+    void matches02()
+    {
+        NFAGraph nfa = NFAGraph.build(RegexParser.parse("(a|b)*a(a|b){20}"), regexContext.getStateManager());
+        PikeVMMatcher pikeVMMatcher = new PikeVMMatcher(nfa);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            sb.append(i % 3 == 0 ? 'a' : 'b');
+        }
+        String input = sb.toString();
+        String tail = "bbbbbbbbbbbbbbbbbbbb";
+        Assertions.assertTrue(pikeVMMatcher.matches(input + "a" + tail));
+        Assertions.assertFalse(pikeVMMatcher.matches(input + "a" + tail + "b"));
+        Assertions.assertFalse(pikeVMMatcher.matches(input + "c"));
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.chutian0610.jregex.automata.state;
+
+import io.github.chutian0610.jregex.ast.RegexParser;
+import io.github.chutian0610.jregex.automata.State;
+import io.github.chutian0610.jregex.automata.StateManager;
+import io.github.chutian0610.jregex.automata.dfa.DFATransitionTable;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraph;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @author victorchu
+ */
+@DisplayName("并发状态管理器测试")
+@Slf4j
+class ConcurrentStateManagerTest
+{
+    private static final String[] REGEXES = {"(a|b)*abb", "a{2,4}b", "[a-c]+d?", "(ab|ba)*", "\\d+b", "(a|b)*a(a|b){4}"};
+    private static final String[] INPUTS = {"", "ab", "abb", "aab", "aaaab", "abcd", "abba", "111b", "babaa", "aabbb"};
+
+    private static DFATransitionTable compile(String regex, StateManager stateManager)
+    {
+        NFAGraph nfa = NFAGraph.build(RegexParser.parse(regex), stateManager);
+        return DFATransitionTable.of(nfa.toDFA().simplify());
+    }
+
+    @Test
+    @DisplayName("测试-多线程共享管理器并行编译")
+    void compile01()
+            throws Exception
+    {
+        StateManager shared = new ConcurrentStateManager();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<DFATransitionTable>> futures = new ArrayList<>();
+            for (int round = 0; round < 20; round++) {
+                for (String regex : REGEXES) {
+                    futures.add(executor.submit(() -> compile(regex, shared)));
+                }
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                String regex = REGEXES[i % REGEXES.length];
+                DFATransitionTable expected = compile(regex, new GenericStateManager());
+                DFATransitionTable actual = futures.get(i).get();
+                Assertions.assertEquals(expected.getStateCount(), actual.getStateCount(), regex);
+                for (String input : INPUTS) {
+                    Assertions.assertEquals(expected.matches(input), actual.matches(input), regex + " : " + input);
+                }
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("测试-状态驻留")
+    void intern01()
+    {
+        StateManager manager = new ConcurrentStateManager();
+        Set<Integer> nfaStates = new HashSet<>(Arrays.asList(manager.createNFAState().getStateId(), manager.createNFAState().getStateId()));
+        manager.tryGetNFAState(1).setAccept(true);
+        Assertions.assertEquals(Integer.valueOf(2), manager.getNextNFAID());
+        Set<Integer> copy = new HashSet<>(nfaStates);
+        Assertions.assertSame(manager.createOrGetDFAState(nfaStates), manager.createOrGetDFAState(copy));
+        Assertions.assertTrue(manager.createOrGetDFAState(nfaStates).isAccept());
+        // 修改传入的集合不影响映射
+        nfaStates.clear();
+        Assertions.assertTrue(manager.getDFAState(copy).isPresent());
+        Assertions.assertEquals(2, manager.getDFAMappedNFAState(manager.getDFAState(copy).get()).size());
+    }
+
+    @Test
+    @DisplayName("测试-int数组状态集合驻留")
+    void intern02()
+    {
+        StateManager manager = new ConcurrentStateManager();
+        manager.createNFAState();
+        manager.createNFAState().setAccept(true);
+        State dfaState = manager.createOrGetDFAState(new int[] {0, 1});
+        Assertions.assertSame(dfaState, manager.createOrGetDFAState(new int[] {0, 1}));
+        Assertions.assertSame(dfaState, manager.createOrGetDFAState(new HashSet<>(Arrays.asList(1, 0))));
+        Assertions.assertSame(dfaState, manager.getDFAState(new int[] {0, 1}).get());
+        Assertions.assertFalse(manager.getDFAState(new int[] {0}).isPresent());
+        Assertions.assertTrue(dfaState.isAccept());
+        State minDfaState = manager.createOrGetMinimizationDFAState(new int[] {dfaState.getStateId()});
+        Assertions.assertSame(minDfaState, manager.getMinimizationDFAState(new HashSet<>(Arrays.asList(dfaState.getStateId()))).get());
+        Assertions.assertTrue(minDfaState.isAccept());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.createOrGetMinimizationDFAState(new int[0]));
+    }
+}
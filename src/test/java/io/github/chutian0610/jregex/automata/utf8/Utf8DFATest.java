@@ -0,0 +1,121 @@
+package io.github.chutian0610.jregex.automata.utf8;
+
+import io.github.chutian0610.jregex.ast.RegexParser;
+import io.github.chutian0610.jregex.automata.dfa.DFATransitionTable;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraph;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * @author victorchu
+ */
+@DisplayName("UTF-8字节DFA测试")
+@Slf4j
+class Utf8DFATest
+{
+    @Test
+    @DisplayName("测试-码点区间拆分为字节序列")
+    void sequences01()
+    {
+        List<int[]> sequences = Utf8Sequences.of(0, 0xFFFF);
+        Assertions.assertEquals(6, sequences.size());
+        Assertions.assertArrayEquals(new int[] {0x00, 0x7F}, sequences.get(0));
+        Assertions.assertArrayEquals(new int[] {0xC2, 0xDF, 0x80, 0xBF}, sequences.get(1));
+        Assertions.assertArrayEquals(new int[] {0xE0, 0xE0, 0xA0, 0xBF, 0x80, 0xBF}, sequences.get(2));
+        Assertions.assertArrayEquals(new int[] {0xED, 0xED, 0x80, 0x9F, 0x80, 0xBF}, sequences.get(4));
+        // 每个码点恰好被一个序列覆盖
+        for (int codePoint = 0; codePoint <= 0xFFFF; codePoint++) {
+            if (codePoint >= 0xD800 && codePoint <= 0xDFFF) {
+                continue;
+            }
+            byte[] bytes = new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8);
+            int covered = 0;
+            for (int[] sequence : Utf8Sequences.of(0x41, 0x3000)) {
+                if (covers(sequence, bytes)) {
+                    covered++;
+                }
+            }
+            Assertions.assertEquals(codePoint >= 0x41 && codePoint <= 0x3000 ? 1 : 0, covered, Integer.toHexString(codePoint));
+        }
+    }
+
+    private static boolean covers(int[] sequence, byte[] bytes)
+    {
+        if (sequence.length != bytes.length * 2) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            int b = bytes[i] & 0xFF;
+            if (b < sequence[2 * i] || b > sequence[2 * i + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Test
+    @DisplayName("测试-与字符DFA匹配结果一致")
+    void matches01()
+    {
+        String[] regexes = {"ab", "a*b", "[α-ω]+", "中文?\\d", ".+", "[^a]{2}", "\\w+é", "(€|¥)\\d+", "[a-zА-я]{1,3}"};
+        String[] inputs = {"", "ab", "aab", "αβγ", "中文1", "中2", "x", "bé", "€12", "¥", "aДж", "ab€", "ééé", "ω"};
+        for (String regex : regexes) {
+            NFAGraph nfa = NFAGraph.build(RegexParser.parse(regex));
+            DFATransitionTable table = DFATransitionTable.of(nfa.toDFA().simplify());
+            Utf8DFA dfa = Utf8DFA.compile(nfa.toTable());
+            for (String input : inputs) {
+                byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+                Assertions.assertEquals(table.matches(input), dfa.matches(bytes), regex + " : " + input);
+                ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 2);
+                direct.put((byte) 'x').put(bytes).flip();
+                direct.position(1);
+                Assertions.assertEquals(table.matches(input), dfa.matches(direct), regex + " : " + input);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("测试-字节等价类和最小化")
+    void compile01()
+    {
+        Utf8DFA dfa = Utf8DFA.compile(RegexParser.parse("[α-ω]+"));
+        // α-ο: CE B1-BF, π-ω: CF 80-89
+        Assertions.assertEquals(4, dfa.getStateCount());
+        Assertions.assertEquals(8, dfa.getClassCount());
+        Assertions.assertFalse(dfa.matches(new byte[] {(byte) 0xCE}));
+        Assertions.assertFalse(dfa.matches(new byte[] {(byte) 0xF0, (byte) 0x9F, (byte) 0x98, (byte) 0x80}));
+    }
+
+    @Test
+    @DisplayName("测试-辅助平面字符")
+    void supplementary01()
+    {
+        byte[] emoji = "😀".getBytes(StandardCharsets.UTF_8);
+        Assertions.assertEquals(4, emoji.length);
+        // 覆盖全部代理项的字符类按码点匹配
+        Assertions.assertTrue(Utf8DFA.compile(RegexParser.parse(".")).matches(emoji));
+        Assertions.assertTrue(Utf8DFA.compile(RegexParser.parse("[^a]")).matches(emoji));
+        Assertions.assertFalse(Utf8DFA.compile(RegexParser.parse("..")).matches(emoji));
+        Assertions.assertTrue(Utf8DFA.compile(RegexParser.parse("a.b")).matches("a😀b".getBytes(StandardCharsets.UTF_8)));
+        // 字面量中的代理对
+        Utf8DFA literal = Utf8DFA.compile(RegexParser.parse("x(😀)+y"));
+        Assertions.assertTrue(literal.matches("x😀😀y".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertFalse(literal.matches("x😁y".getBytes(StandardCharsets.UTF_8)));
+        // 非法的 UTF-8: 单独编码的代理项
+        Assertions.assertFalse(Utf8DFA.compile(RegexParser.parse(".")).matches(new byte[] {(byte) 0xED, (byte) 0xA0, (byte) 0x80}));
+        // .* 查找前缀跳过辅助平面字符
+        Utf8DFA search = Utf8DFA.compileSearch(RegexParser.parse("ab"));
+        int state = search.getStart();
+        for (byte b : "😀ab".getBytes(StandardCharsets.UTF_8)) {
+            state = search.next(state, b);
+            Assertions.assertNotEquals(Utf8DFA.DEAD, state);
+        }
+        Assertions.assertTrue(search.isAccept(state));
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.chutian0610.jregex.literal;
+
+import io.github.chutian0610.jregex.MatchSpan;
+import io.github.chutian0610.jregex.Pattern;
+import io.github.chutian0610.jregex.ast.RegexParser;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * @author victorchu
+ */
+@DisplayName("Aho-Corasick 测试")
+@Slf4j
+class AhoCorasickTest
+{
+    @Test
+    @DisplayName("测试-识别字面量或表达式")
+    void detect01()
+    {
+        Assertions.assertEquals(Optional.of(Arrays.asList("foo", "bar", "baz")),
+                LiteralAlternationDetector.detect(RegexParser.parse("foo|bar|baz|foo")));
+        Assertions.assertEquals(Optional.of(Arrays.asList("abc")), LiteralAlternationDetector.detect(RegexParser.parse("abc")));
+        Assertions.assertFalse(LiteralAlternationDetector.detect(RegexParser.parse("foo|ba[rz]")).isPresent());
+        Assertions.assertFalse(LiteralAlternationDetector.detect(RegexParser.parse("(foo|bar)x")).isPresent());
+        Assertions.assertFalse(LiteralAlternationDetector.detect(RegexParser.parse("foo|bar*")).isPresent());
+    }
+
+    @Test
+    @DisplayName("测试-查找必需的字面量或表达式")
+    void detect02()
+    {
+        Assertions.assertEquals(Optional.of(Arrays.asList("alpha", "beta", "gamma")),
+                LiteralAlternationDetector.findRequired(RegexParser.parse("foo(alpha|beta|gamma)bar")));
+        Assertions.assertEquals(Optional.of(Arrays.asList("abc", "bcd")),
+                LiteralAlternationDetector.findRequired(RegexParser.parse("(x|y)[0-9]+(abc|bcd)+")));
+        // 可选的或表达式, 非字面量的或表达式
+        Assertions.assertFalse(LiteralAlternationDetector.findRequired(RegexParser.parse("a(foo|bar)?b")).isPresent());
+        Assertions.assertFalse(LiteralAlternationDetector.findRequired(RegexParser.parse("a(foo|b(ar|az))c")).isPresent());
+        Assertions.assertFalse(LiteralAlternationDetector.findRequired(RegexParser.parse("[a-z]+")).isPresent());
+    }
+
+    @Test
+    @DisplayName("测试-最左最长查找")
+    void find01()
+    {
+        AhoCorasick ahoCorasick = AhoCorasick.of(Arrays.asList("he", "she", "his", "hers", "s"));
+        Assertions.assertEquals(1, ahoCorasick.find("ushers", 0));
+        Assertions.assertEquals(4, ahoCorasick.longestMatchAt("ushers", 1));
+        Assertions.assertEquals(6, ahoCorasick.longestMatchAt("ushers", 2));
+        Assertions.assertEquals(-1, ahoCorasick.longestMatchAt("ushers", 0));
+        Assertions.assertTrue(ahoCorasick.matches("hers"));
+        Assertions.assertFalse(ahoCorasick.matches("her"));
+        Assertions.assertEquals(-1, ahoCorasick.find("xyz", 0));
+    }
+
+    @Test
+    @DisplayName("测试-与暴力查找结果一致")
+    void find02()
+    {
+        Random random = new Random(17);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int j = 0, length = 1 + random.nextInt(5); j < length; j++) {
+                sb.append((char) ('a' + random.nextInt(6)));
+            }
+            words.add(sb.toString());
+        }
+        Pattern pattern = Pattern.compile(String.join("|", words));
+        Assertions.assertTrue(pattern.getPrefilter().get() instanceof AhoCorasick);
+        for (int round = 0; round < 200; round++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0, length = random.nextInt(20); i < length; i++) {
+                sb.append((char) ('a' + random.nextInt(8)));
+            }
+            String input = sb.toString();
+            Assertions.assertEquals(bruteForce(words, input), pattern.find(input), input);
+            Assertions.assertEquals(words.contains(input), pattern.matches(input), input);
+        }
+    }
+
+    private static Optional<MatchSpan> bruteForce(List<String> words, String input)
+    {
+        for (int start = 0; start < input.length(); start++) {
+            int end = -1;
+            for (String word : words) {
+                if (input.startsWith(word, start)) {
+                    end = Math.max(end, start + word.length());
+                }
+            }
+            if (end >= 0) {
+                return Optional.of(MatchSpan.of(start, end));
+            }
+        }
+        return Optional.empty();
+    }
+}
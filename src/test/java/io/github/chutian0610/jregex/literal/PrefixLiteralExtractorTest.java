@@ -0,0 +1,75 @@
+package io.github.chutian0610.jregex.literal;
+
+import io.github.chutian0610.jregex.ast.RegexParser;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+/**
+ * @author victorchu
+ */
+@DisplayName("前缀字面量提取测试")
+@Slf4j
+class PrefixLiteralExtractorTest
+{
+    private static LiteralSet extract(String regex)
+    {
+        return PrefixLiteralExtractor.extract(RegexParser.parse(regex));
+    }
+
+    @Test
+    @DisplayName("测试-精确字面量")
+    void extract01()
+    {
+        LiteralSet literals = extract("abc|abd|x?y");
+        Assertions.assertTrue(literals.isExact());
+        Assertions.assertEquals(Arrays.asList("abc", "abd", "xy", "y"), literals.getLiterals());
+        Assertions.assertEquals(Arrays.asList("aa", "ab", "ba", "bb"), extract("[ab]{2}").getLiterals());
+    }
+
+    @Test
+    @DisplayName("测试-前缀字面量")
+    void extract02()
+    {
+        LiteralSet error = extract("ERROR\\s+\\d+");
+        Assertions.assertFalse(error.isExact());
+        Assertions.assertEquals("ERROR", error.longestCommonPrefix());
+        Assertions.assertTrue(error.isUseful());
+
+        LiteralSet userId = extract("user_id=[0-9]+");
+        Assertions.assertFalse(userId.isExact());
+        Assertions.assertEquals("user_id=", userId.longestCommonPrefix());
+        Assertions.assertEquals(10, userId.getLiterals().size());
+
+        Assertions.assertEquals(Arrays.asList("aa"), extract("a{2,}b").getLiterals());
+        Assertions.assertEquals(Arrays.asList("ab"), extract("(ab)+c").getLiterals());
+    }
+
+    @Test
+    @DisplayName("测试-无法提取")
+    void extract03()
+    {
+        Assertions.assertFalse(extract("a*b").isUseful());
+        Assertions.assertFalse(extract("\\w+x").isUseful());
+        Assertions.assertFalse(extract("abc|.").isUseful());
+        Assertions.assertFalse(Prefilter.of(extract("(a|b)?c*")).isPresent());
+    }
+
+    @Test
+    @DisplayName("测试-过滤器选择")
+    void prefilter01()
+    {
+        Prefilter single = Prefilter.of(extract("ERROR\\s+\\d+")).get();
+        Assertions.assertTrue(single instanceof SingleLiteralPrefilter);
+        Assertions.assertEquals(6, single.find("info: ERROR 42", 0));
+        Assertions.assertEquals(-1, single.find("info: ERROR 42", 7));
+
+        Prefilter multi = Prefilter.of(extract("foo|bar|baz")).get();
+        Assertions.assertTrue(multi instanceof MultiLiteralPrefilter);
+        Assertions.assertEquals(4, multi.find("xxbabar", 0));
+        Assertions.assertEquals(-1, multi.find("xxbabar", 5));
+    }
+}
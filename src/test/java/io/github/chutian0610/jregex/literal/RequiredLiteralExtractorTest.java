@@ -0,0 +1,106 @@
+package io.github.chutian0610.jregex.literal;
+
+import io.github.chutian0610.jregex.Pattern;
+import io.github.chutian0610.jregex.ast.RegexParser;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraph;
+import io.github.chutian0610.jregex.automata.nfa.NFAGraphMatcher;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * @author victorchu
+ */
+@DisplayName("必需字面量提取测试")
+@Slf4j
+class RequiredLiteralExtractorTest
+{
+    private static RequiredLiterals extract(String regex)
+    {
+        return RequiredLiteralExtractor.extract(RegexParser.parse(regex));
+    }
+
+    @Test
+    @DisplayName("测试-必需子串")
+    void extract01()
+    {
+        RequiredLiterals timeout = extract(".*timeout.*\\d+ms");
+        Assertions.assertEquals(Arrays.asList("timeout", "ms"), timeout.getSubstrings());
+        Assertions.assertTrue(timeout.mayMatch("request timeout after 30ms", 0));
+        Assertions.assertFalse(timeout.mayMatch("request finished after 30ms", 0));
+        Assertions.assertFalse(timeout.mayMatch("request timeout after 30ms", 10));
+
+        Assertions.assertEquals(Collections.singletonList("error"), extract("(fatal_error|error_code)[0-9]").getSubstrings());
+        Assertions.assertEquals(Collections.singletonList("abab"), extract("x*(ab){2,}").getSubstrings());
+        Assertions.assertEquals(Collections.singletonList("ab"), extract("(ab)+").getSubstrings());
+    }
+
+    @Test
+    @DisplayName("测试-必需字符")
+    void extract02()
+    {
+        RequiredLiterals literals = extract("[ab]x|[cd]xy|zx");
+        Assertions.assertEquals(Collections.singletonList("x"), literals.getSubstrings());
+        RequiredLiterals chars = extract("(ab|ba)c?");
+        Assertions.assertEquals(Collections.singletonList("a"), chars.getSubstrings());
+        Assertions.assertArrayEquals(new char[] {'b'}, chars.getChars());
+        Assertions.assertFalse(chars.mayMatch("aac", 0));
+        Assertions.assertTrue(extract("a*|b").isEmpty());
+        Assertions.assertTrue(extract("[a-z]+").isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试-必需的字面量或表达式")
+    void extract03()
+    {
+        RequiredLiterals literals = extract("[0-9]+(alpha|beta|gamma)[0-9]+");
+        Assertions.assertEquals(Arrays.asList("alpha", "beta", "gamma"), literals.getAlternatives());
+        Assertions.assertTrue(literals.mayMatch("12beta34", 0));
+        Assertions.assertFalse(literals.mayMatch("12delta34", 0));
+        Assertions.assertFalse(literals.mayMatch("12beta34", 3));
+        Assertions.assertTrue(extract("(ab|cd)?x").getAlternatives().isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试-必需字符一次扫描")
+    void mayMatch02()
+    {
+        char[] chars = {'\uFFFF', 'z', '中', 'a', '\u0100'};
+        RequiredLiterals literals = new RequiredLiterals(Collections.emptyList(), chars, Collections.emptyList());
+        Assertions.assertArrayEquals(chars, literals.getChars());
+        Assertions.assertTrue(literals.mayMatch("za\u0100中\uFFFF", 0));
+        Assertions.assertTrue(literals.mayMatch("\uFFFF..中..\u0100..a..z", 0));
+        Assertions.assertFalse(literals.mayMatch("za\u0100中", 0));
+        Assertions.assertFalse(literals.mayMatch("za\u0100中\uFFFF", 1));
+        Assertions.assertFalse(literals.mayMatch("\u0000\u0101yb", 0));
+    }
+
+    @Test
+    @DisplayName("测试-过滤结果与匹配结果一致")
+    void mayMatch01()
+    {
+        String[] regexes = {"a(b|c)d", "(ab)+c", "x?abc|zab", "[ab]{2}c+", "a.b", "[a-d]*(ab|dx|cz)[a-d]*"};
+        Random random = new Random(23);
+        for (String regex : regexes) {
+            Pattern pattern = Pattern.compile(regex);
+            Assertions.assertTrue(pattern.getRequiredLiterals().isPresent(), regex);
+            NFAGraphMatcher matcher = new NFAGraphMatcher(NFAGraph.build(RegexParser.parse(regex)));
+            for (int round = 0; round < 200; round++) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0, length = random.nextInt(7); i < length; i++) {
+                    sb.append("abcdxz".charAt(random.nextInt(6)));
+                }
+                String input = sb.toString();
+                Assertions.assertEquals(matcher.matches(input), pattern.matches(input), regex + " : " + input);
+                if (matcher.matches(input)) {
+                    Assertions.assertTrue(pattern.getRequiredLiterals().get().mayMatch(input, 0), regex + " : " + input);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.chutian0610.jregex.misc;
+
+import com.google.common.collect.Lists;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author victorchu
+ */
+@Slf4j
+@DisplayName("字符等价类测试")
+class CharClassMapTest
+{
+    @Test
+    void testClassOf01()
+    {
+        CharClassMap classMap = CharClassMap.of(Lists.newArrayList(
+                CharRange.of('a', 'z'), CharRange.of('A', 'Z'), CharRange.of('b')));
+        Assertions.assertEquals(4, classMap.getClassCount());
+        Assertions.assertEquals(0, classMap.classOf('0'));
+        Assertions.assertEquals(0, classMap.classOf(Character.MAX_VALUE));
+        Assertions.assertEquals(classMap.classOf('a'), classMap.classOf('z'));
+        Assertions.assertNotEquals(classMap.classOf('a'), classMap.classOf('b'));
+        Assertions.assertNotEquals(classMap.classOf('a'), classMap.classOf('A'));
+    }
+
+    @Test
+    void testClassesOf01()
+    {
+        CharClassMap classMap = CharClassMap.of(Lists.newArrayList(
+                CharRange.of('a', 'z'), CharRange.of('b'), CharRange.of('天')));
+        Assertions.assertArrayEquals(new int[] {classMap.classOf('a'), classMap.classOf('b')},
+                classMap.classesOf('a', 'z'));
+        Assertions.assertEquals("[[a], [c-z]]", classMap.rangesOf(classMap.classOf('a')).toString());
+        Assertions.assertEquals("[[\\u5929]]", classMap.rangesOf(classMap.classOf('天')).toString());
+    }
+}
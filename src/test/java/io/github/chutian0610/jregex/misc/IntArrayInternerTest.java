@@ -0,0 +1,60 @@
+package io.github.chutian0610.jregex.misc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author victorchu
+ */
+@Slf4j
+@DisplayName("int 数组驻留表测试")
+class IntArrayInternerTest
+{
+    @Test
+    @DisplayName("测试-相同内容的数组编号相同")
+    void testIntern01()
+    {
+        IntArrayInterner interner = new IntArrayInterner();
+        Assertions.assertEquals(0, interner.intern(new int[] {1, 3, 5}));
+        Assertions.assertEquals(1, interner.intern(new int[] {1, 3}));
+        Assertions.assertEquals(2, interner.intern(new int[0]));
+        Assertions.assertEquals(0, interner.intern(new int[] {1, 3, 5}));
+        Assertions.assertEquals(1, interner.indexOf(new int[] {1, 3}));
+        Assertions.assertEquals(-1, interner.indexOf(new int[] {3, 1}));
+        Assertions.assertEquals(3, interner.size());
+        Assertions.assertArrayEquals(new int[] {1, 3}, interner.get(1));
+    }
+
+    @Test
+    @DisplayName("测试-缓冲区前缀查找, 插入时复制")
+    void testIntern02()
+    {
+        IntArrayInterner interner = new IntArrayInterner();
+        int[] buffer = {2, 4, 6, 8};
+        Assertions.assertEquals(-1, interner.indexOf(buffer, 2));
+        Assertions.assertEquals(0, interner.intern(buffer, 2));
+        buffer[0] = 7;
+        Assertions.assertArrayEquals(new int[] {2, 4}, interner.get(0));
+        Assertions.assertEquals(0, interner.indexOf(new int[] {2, 4, 9}, 2));
+        Assertions.assertEquals(1, interner.intern(buffer, 4));
+    }
+
+    @Test
+    @DisplayName("测试-扩容和清空")
+    void testIntern03()
+    {
+        IntArrayInterner interner = new IntArrayInterner(2);
+        for (int i = 0; i < 10000; i++) {
+            Assertions.assertEquals(i, interner.intern(new int[] {i, i + 1}));
+        }
+        for (int i = 0; i < 10000; i++) {
+            Assertions.assertEquals(i, interner.indexOf(new int[] {i, i + 1}));
+        }
+        interner.clear();
+        Assertions.assertTrue(interner.isEmpty());
+        Assertions.assertEquals(-1, interner.indexOf(new int[] {0, 1}));
+        Assertions.assertEquals(0, interner.intern(new int[] {5}));
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.chutian0610.jregex.scan;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author victorchu
+ */
+@DisplayName("文件扫描测试")
+@Slf4j
+class FileScannerTest
+{
+    private static List<LineMatch> scan(String regex, byte[] content, long windowBytes)
+            throws IOException
+    {
+        Path path = Files.createTempFile("jregex", ".log");
+        try {
+            Files.write(path, content);
+            return FileScanner.compile(regex, windowBytes).scan(path);
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    @DisplayName("测试-行号和字节偏移量(跨窗口)")
+    void scan01()
+            throws IOException
+    {
+        byte[] content = "INFO start\nERROR 错误 code=12\nWARN x\r\nERROR code=7".getBytes(StandardCharsets.UTF_8);
+        List<LineMatch> expected = Arrays.asList(LineMatch.of(2, 11, 30), LineMatch.of(4, 40, 52));
+        for (long window : new long[] {FileScanner.DEFAULT_WINDOW_BYTES, 1, 3, 7, 16}) {
+            Assertions.assertEquals(expected, scan("ERROR[^=]*=\\d", content, window), "window " + window);
+        }
+        Assertions.assertEquals(Arrays.asList(LineMatch.of(2, 11, 23)), scan("错误", content, 5));
+    }
+
+    @Test
+    @DisplayName("测试-空匹配, 空文件和非法字节")
+    void scan02()
+            throws IOException
+    {
+        Assertions.assertEquals(Arrays.asList(LineMatch.of(1, 0, 0), LineMatch.of(2, 2, 2)),
+                scan("a*", "b\n\n".getBytes(StandardCharsets.UTF_8), 4));
+        Assertions.assertTrue(scan("a", new byte[0], 4).isEmpty());
+        byte[] invalid = {'x', (byte) 0xE4, 'a', 'b', (byte) 0xFF, 'c', '\n', (byte) 0xC3, 'a', 'b'};
+        Assertions.assertEquals(Arrays.asList(LineMatch.of(1, 0, 4), LineMatch.of(2, 7, 10)), scan("ab", invalid, 3));
+        Assertions.assertTrue(scan("bc", invalid, 3).isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试-包含辅助平面字符的行")
+    void scan03()
+            throws IOException
+    {
+        // 😀 的 UTF-8 编码为 4 字节
+        byte[] content = "😀 ERROR code=1 ERROR code=2\nok 😀\nERROR 😀=3".getBytes(StandardCharsets.UTF_8);
+        List<LineMatch> expected = Arrays.asList(LineMatch.of(1, 0, 17), LineMatch.of(3, 39, 51));
+        for (long window : new long[] {FileScanner.DEFAULT_WINDOW_BYTES, 1, 3, 5}) {
+            Assertions.assertEquals(expected, scan("ERROR[^=]*=\\d", content, window), "window " + window);
+        }
+        Assertions.assertEquals(Arrays.asList(LineMatch.of(1, 0, 4), LineMatch.of(2, 31, 38), LineMatch.of(3, 39, 49)),
+                scan("😀", content, 2));
+        Assertions.assertEquals(Arrays.asList(LineMatch.of(2, 31, 38)), scan("k.😀", content, 7));
+    }
+}